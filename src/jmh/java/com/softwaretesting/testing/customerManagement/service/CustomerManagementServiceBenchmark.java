@@ -0,0 +1,162 @@
+package com.softwaretesting.testing.customerManagement.service;
+
+import com.softwaretesting.testing.TestingApplication;
+import com.softwaretesting.testing.dto.outbound.CustomerOutDTO;
+import com.softwaretesting.testing.model.Customer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Runs the service layer against the H2 datasource of the application, seeded by PopulateDatabase with
+ * tableSize customers (user name "f" + i, phone number "+49000" + i). Every table size runs in its own fork.
+ *
+ * The lookup caches are sized to 0 entries, so the lookups measure the DB path. addCustomer and saveAll
+ * insert new rows, the table grows by the number of operations during a run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx3g"})
+public class CustomerManagementServiceBenchmark {
+    private static final int SAMPLE_SIZE = 1024;
+    private static final int SAVE_ALL_SIZE = 100;
+    private static final int PAGE_SIZE = 1000;
+
+    @Param({"20000", "200000", "2000000"})
+    private int tableSize;
+
+    private ConfigurableApplicationContext context;
+
+    private CustomerManagementService customerManagementService;
+
+    private final List<Customer> sample = new ArrayList<>(SAMPLE_SIZE);
+
+    private final AtomicLong newPhoneNumbers = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(TestingApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--customer.seed.size=" + tableSize,
+                        "--customer.cache.spec=maximumSize=0",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.softwaretesting=WARN");
+        customerManagementService = context.getBean(CustomerManagementService.class);
+
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            int seed = ThreadLocalRandom.current().nextInt(1, tableSize + 1);
+            sample.add(customerManagementService.findByUserName("f" + seed));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    private Customer sampleCustomer() {
+        return sample.get(ThreadLocalRandom.current().nextInt(SAMPLE_SIZE));
+    }
+
+    private long samplePageCursor() {
+        return ThreadLocalRandom.current().nextLong(0, Math.max(1, tableSize - PAGE_SIZE));
+    }
+
+    private Customer newCustomer() {
+        long n = newPhoneNumbers.incrementAndGet();
+        return new Customer(null, "bench" + n, "Bench " + n, "+4940" + (100_000_000L + n));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 5)
+    public int list() {
+        return customerManagementService.list().size();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 5)
+    public void forEachCustomer(Blackhole blackhole) {
+        customerManagementService.forEachCustomer(blackhole::consume);
+    }
+
+    /**
+     * The streaming list endpoint without entities. Compare with forEachCustomer, e.g. with -prof gc.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 5)
+    public void forEachCustomerOutDTO(Blackhole blackhole) {
+        customerManagementService.forEachCustomerOutDTO(blackhole::consume);
+    }
+
+    /**
+     * A page of the list endpoint as it was served from entities: load the page, then map it to DTOs.
+     */
+    @Benchmark
+    public List<CustomerOutDTO> listPage() {
+        List<Customer> customers = customerManagementService.listPage(samplePageCursor(), PAGE_SIZE);
+        List<CustomerOutDTO> outDTOs = new ArrayList<>(customers.size());
+        customers.forEach(customer -> outDTOs.add(new CustomerOutDTO(customer)));
+        return outDTOs;
+    }
+
+    /**
+     * The same page from the projection query.
+     */
+    @Benchmark
+    public List<CustomerOutDTO> listOutDTOPage() {
+        return customerManagementService.listOutDTOPage(samplePageCursor(), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Customer findById() {
+        return customerManagementService.findById(sampleCustomer().getId());
+    }
+
+    @Benchmark
+    public Customer findByUserName() {
+        return customerManagementService.findByUserName(sampleCustomer().getUserName());
+    }
+
+    @Benchmark
+    public Customer selectCustomerByPhoneNumber() {
+        return customerManagementService.selectCustomerByPhoneNumber(sampleCustomer().getPhoneNumber());
+    }
+
+    @Benchmark
+    public Customer addCustomer() {
+        return customerManagementService.addCustomer(newCustomer());
+    }
+
+    /**
+     * The score is per batch of {@value #SAVE_ALL_SIZE} customers.
+     */
+    @Benchmark
+    public int saveAll() {
+        List<Customer> customers = new ArrayList<>(SAVE_ALL_SIZE);
+        for (int i = 0; i < SAVE_ALL_SIZE; i++) {
+            customers.add(newCustomer());
+        }
+        return customerManagementService.saveAll(customers).size();
+    }
+}
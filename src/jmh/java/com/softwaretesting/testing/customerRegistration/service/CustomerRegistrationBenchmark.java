@@ -0,0 +1,121 @@
+package com.softwaretesting.testing.customerRegistration.service;
+
+import com.softwaretesting.testing.TestingApplication;
+import com.softwaretesting.testing.dao.CustomerRepository;
+import com.softwaretesting.testing.exception.CustomerAlreadyRegisteredException;
+import com.softwaretesting.testing.exception.PhoneNumberTakenException;
+import com.softwaretesting.testing.model.Customer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Registrations per second with several threads registering at once, against the H2 datasource of the
+ * application seeded with tableSize customers:
+ *  - checkThenSave: the registration as it was before relying on the constraint, a lookup of the phone number
+ *    and then a save in one transaction
+ *  - constraint: CustomerRegistrationService.registerNewCustomer, a single insert whose unique constraint
+ *    violation is translated into the same errors
+ *
+ * Every thread registers new numbers. collisionPercent of the registrations instead take one of the last
+ * numbers handed out, which another thread has just registered or is still registering. A rejected
+ * registration counts as an operation as well. The number of threads can be changed with -t.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx3g"})
+public class CustomerRegistrationBenchmark {
+    private static final int RECENT_NUMBERS = 8;
+
+    @Param({"20000"})
+    private int tableSize;
+
+    @Param({"checkThenSave", "constraint"})
+    private String path;
+
+    @Param({"0", "10"})
+    private int collisionPercent;
+
+    private ConfigurableApplicationContext context;
+
+    private CustomerRegistrationService customerRegistrationService;
+
+    private CustomerRepository customerRepository;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final AtomicLong newPhoneNumbers = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(TestingApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--customer.seed.size=" + tableSize,
+                        "--logging.level.root=WARN",
+                        // Both log every rejected registration at ERROR, which would dominate the collisions
+                        "--logging.level.org.hibernate.engine.jdbc=OFF",
+                        "--logging.level.com.softwaretesting=OFF");
+        customerRegistrationService = context.getBean(CustomerRegistrationService.class);
+        customerRepository = context.getBean(CustomerRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    private Customer newCustomer() {
+        long n;
+        if (ThreadLocalRandom.current().nextInt(100) < collisionPercent) {
+            n = Math.max(1, newPhoneNumbers.get() - ThreadLocalRandom.current().nextInt(RECENT_NUMBERS));
+        } else {
+            n = newPhoneNumbers.incrementAndGet();
+        }
+        return new Customer(null, "bench" + ThreadLocalRandom.current().nextLong(), "Bench " + n,
+                "+4941" + (100_000_000L + n));
+    }
+
+    /**
+     * The registration before the constraint was relied on. Two threads can both pass the lookup, the second
+     * insert then fails on the constraint with a DataIntegrityViolationException.
+     */
+    private Customer checkThenSave(Customer customer) {
+        return transactionTemplate.execute(status -> {
+            Optional<Customer> existsPhoneNumber = customerRepository.selectCustomerByPhoneNumber(customer.getPhoneNumber());
+
+            if (existsPhoneNumber.isPresent()) {
+                if (existsPhoneNumber.get().getName().equals(customer.getName())) {
+                    throw new CustomerAlreadyRegisteredException();
+                }
+                throw new PhoneNumberTakenException(customer.getPhoneNumber());
+            }
+            return customerRepository.save(customer);
+        });
+    }
+
+    @Benchmark
+    public Object register() {
+        Customer customer = newCustomer();
+        try {
+            return path.equals("checkThenSave")
+                    ? checkThenSave(customer)
+                    : customerRegistrationService.registerNewCustomer(customer);
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+}
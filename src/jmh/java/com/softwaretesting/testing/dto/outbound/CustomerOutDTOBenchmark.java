@@ -0,0 +1,70 @@
+package com.softwaretesting.testing.dto.outbound;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.softwaretesting.testing.model.Customer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Mapping customers to CustomerOutDTOs and serializing them, for one customer and for a page of customers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerOutDTOBenchmark {
+
+    @Param({"1000"})
+    private int pageSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ObjectWriter writer = objectMapper.writerFor(CustomerOutDTO.class);
+
+    private final ObjectWriter pageWriter = objectMapper.writerFor(
+            objectMapper.getTypeFactory().constructCollectionType(List.class, CustomerOutDTO.class));
+
+    private Customer customer;
+
+    private List<Customer> page;
+
+    private CustomerOutDTO dto;
+
+    @Setup
+    public void setUp() {
+        customer = new Customer(42L, "f42", "l42", "+4900042");
+        dto = new CustomerOutDTO(customer);
+        page = new ArrayList<>(pageSize);
+        for (long id = 1; id <= pageSize; id++) {
+            page.add(new Customer(id, "f" + id, "l" + id, "+49000" + id));
+        }
+    }
+
+    @Benchmark
+    public CustomerOutDTO construct() {
+        return new CustomerOutDTO(customer);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return writer.writeValueAsBytes(dto);
+    }
+
+    /**
+     * What a page of the list endpoint costs: mapping every customer and writing them as one JSON array.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public byte[] mapAndSerializePage() throws JsonProcessingException {
+        List<CustomerOutDTO> dtos = new ArrayList<>(page.size());
+        page.forEach(entry -> dtos.add(new CustomerOutDTO(entry)));
+        return pageWriter.writeValueAsBytes(dtos);
+    }
+}
@@ -0,0 +1,166 @@
+package com.softwaretesting.testing.index;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.softwaretesting.testing.dao.CustomerRepository;
+import com.softwaretesting.testing.dto.outbound.CustomerOutDTO;
+import com.softwaretesting.testing.model.Customer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/*
+ * The in-memory read model against the obvious on-heap alternative, both holding {@code rows} customers
+ * (user name "f" + i, name "Name " + i, phone number "+49000" + i):
+ *  - heap: the customers in a HashMap by id and one by phone number, plus a list in id order for the scan,
+ *    which is written with Jackson through CustomerOutDTOs like the DB path of the list endpoint
+ *  - offHeap: CustomerReadModel, built through its rebuild() from a mocked repository
+ *
+ * Every combination runs in its own fork. The setup prints the heap retained after a full GC, the direct memory
+ * and how long that full GC took. Run with -prof gc to compare allocation rates and GC counts as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx4g", "-XX:MaxDirectMemorySize=2g"})
+public class CustomerReadModelBenchmark {
+
+    @Param({"10000000"})
+    private int rows;
+
+    @Param({"heap", "offHeap"})
+    private String store;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ObjectWriter writer = objectMapper.writerFor(CustomerOutDTO.class);
+
+    private Map<Long, Customer> byId;
+
+    private Map<String, Customer> byPhoneNumber;
+
+    private List<Customer> inIdOrder;
+
+    private CustomerReadModel customerReadModel;
+
+    private static Customer customer(long id) {
+        return new Customer(id, "f" + id, "Name " + id, "+49000" + id);
+    }
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        long heapBefore = retainedHeap();
+
+        if (store.equals("heap")) {
+            byId = new HashMap<>(rows * 4 / 3 + 1);
+            byPhoneNumber = new HashMap<>(rows * 4 / 3 + 1);
+            inIdOrder = new ArrayList<>(rows);
+            for (long id = 1; id <= rows; id++) {
+                Customer customer = customer(id);
+                byId.put(id, customer);
+                byPhoneNumber.put(customer.getPhoneNumber(), customer);
+                inIdOrder.add(customer);
+            }
+        } else {
+            CustomerRepository customerRepository = mock(CustomerRepository.class);
+            when(customerRepository.count()).thenReturn((long) rows);
+            doAnswer(invocation -> {
+                Consumer<Customer> action = invocation.getArgument(0);
+                for (long id = 1; id <= rows; id++) {
+                    action.accept(customer(id));
+                }
+                return null;
+            }).when(customerRepository).forEachCustomerRow(any(Consumer.class));
+            customerReadModel = new CustomerReadModel(new SimpleMeterRegistry(), customerRepository, objectMapper, true);
+            customerReadModel.rebuild();
+        }
+
+        long gcStart = System.nanoTime();
+        long retained = retainedHeap() - heapBefore;
+        long fullGcMillis = (System.nanoTime() - gcStart) / 1_000_000;
+        System.out.printf("%n%s, %d rows: %d MB retained heap (%d bytes per row), %d MB direct memory, " +
+                        "full GC %d ms, GC time since start %d ms%n",
+                store, rows, retained >> 20, retained / rows, directMemory() >> 20, fullGcMillis, totalGcMillis());
+    }
+
+    private static long retainedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long directMemory() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("direct"))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+
+    private static long totalGcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime)
+                .sum();
+    }
+
+    private long sampleId() {
+        return ThreadLocalRandom.current().nextLong(1, rows + 1);
+    }
+
+    @Benchmark
+    public Optional<Customer> findById() {
+        long id = sampleId();
+        return customerReadModel != null
+                ? customerReadModel.findById(id)
+                : Optional.ofNullable(byId.get(id));
+    }
+
+    @Benchmark
+    public Optional<Customer> findByPhoneNumber() {
+        String phoneNumber = "+49000" + sampleId();
+        return customerReadModel != null
+                ? customerReadModel.findByPhoneNumber(phoneNumber)
+                : Optional.ofNullable(byPhoneNumber.get(phoneNumber));
+    }
+
+    /**
+     * The list endpoint without paging: every customer as one JSON array.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2, time = 1)
+    @Measurement(iterations = 3, time = 1)
+    public void writeAll() throws IOException {
+        OutputStream outputStream = OutputStream.nullOutputStream();
+        if (customerReadModel != null) {
+            customerReadModel.writeAll(outputStream, false);
+            return;
+        }
+        try (SequenceWriter sequence = writer.writeValuesAsArray(outputStream)) {
+            for (Customer customer : inIdOrder) {
+                sequence.write(new CustomerOutDTO(customer));
+            }
+        }
+    }
+}
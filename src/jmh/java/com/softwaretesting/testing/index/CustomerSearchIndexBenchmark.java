@@ -0,0 +1,192 @@
+package com.softwaretesting.testing.index;
+
+import com.softwaretesting.testing.dao.CustomerRepository;
+import com.softwaretesting.testing.model.Customer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/*
+ * Lookups of CustomerSearchIndex over {@code rows} customers, built through its rebuild() from a mocked
+ * repository. Names are combinations of 200 first and 1000 generated last names, user names are
+ * "first.last" + i and phone numbers "+49" + (1500000000 + i), so a prefix matches many customers the way real
+ * data does.
+ *
+ * The setup prints how long the build took, the heap the index retains after a full GC and the heap the build
+ * needed on the way: the most that was still live after a collection during the build, and the sum of the peaks of
+ * the heap pools, which includes garbage and is an upper bound. The build has to fit into -Xmx next to the index
+ * it replaces. Run with -prof gc to see the allocations per lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx4g"})
+public class CustomerSearchIndexBenchmark {
+
+    private static final String[] FIRST_NAMES = new String[200];
+
+    private static final String[] LAST_NAMES = new String[1000];
+
+    private static final String[] SYLLABLES = {"ba", "ber", "dor", "el", "fen", "ga", "hal", "in", "ko", "lan",
+            "mar", "ner", "o", "pet", "ri", "san", "ter", "u", "vo", "wen"};
+
+    static {
+        for (int i = 0; i < FIRST_NAMES.length; i++) {
+            FIRST_NAMES[i] = capitalize(SYLLABLES[i % 20] + SYLLABLES[i / 20 % 20]);
+        }
+        for (int i = 0; i < LAST_NAMES.length; i++) {
+            LAST_NAMES[i] = capitalize(SYLLABLES[i % 20] + SYLLABLES[i / 20 % 20] + SYLLABLES[i / 400 % 20] + "mann");
+        }
+    }
+
+    @Param({"1000000", "10000000"})
+    private int rows;
+
+    private CustomerSearchIndex customerSearchIndex;
+
+    private static String capitalize(String value) {
+        return Character.toUpperCase(value.charAt(0)) + value.substring(1);
+    }
+
+    private static Customer customer(long id) {
+        String first = FIRST_NAMES[(int) (id % FIRST_NAMES.length)];
+        String last = LAST_NAMES[(int) (id / FIRST_NAMES.length % LAST_NAMES.length)];
+        return new Customer(id, (first + "." + last).toLowerCase() + id, first + " " + last,
+                "+49" + (1500000000L + id));
+    }
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        long heapBefore = retainedHeap();
+
+        CustomerRepository customerRepository = mock(CustomerRepository.class);
+        doAnswer(invocation -> {
+            Consumer<Customer> action = invocation.getArgument(0);
+            for (long id = 1; id <= rows; id++) {
+                action.accept(customer(id));
+            }
+            return null;
+        }).when(customerRepository).forEachCustomerRow(any(Consumer.class));
+        customerSearchIndex = new CustomerSearchIndex(new SimpleMeterRegistry(), customerRepository, true);
+
+        AtomicLong peakLive = new AtomicLong();
+        NotificationListener afterGc = (notification, handback) -> peakLive.accumulateAndGet(liveAfterGc(notification), Math::max);
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        collectors.forEach(collector -> ((NotificationEmitter) collector).addNotificationListener(afterGc, null, null));
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        long start = System.nanoTime();
+        customerSearchIndex.rebuild();
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+
+        long peakUsed = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        for (GarbageCollectorMXBean collector : collectors) {
+            try {
+                ((NotificationEmitter) collector).removeNotificationListener(afterGc);
+            } catch (ListenerNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        // the mock holds on to its last invocation, and through it to the builder of the index
+        reset(customerRepository);
+
+        long retained = retainedHeap() - heapBefore;
+        System.out.printf("%n%d rows: built in %d ms, %d MB retained heap (%d bytes per row), "
+                        + "build peak %d MB live after GC (%d bytes per row), %d MB heap pools%n",
+                rows, buildMillis, retained >> 20, retained / rows,
+                (peakLive.get() - heapBefore) >> 20, (peakLive.get() - heapBefore) / rows, (peakUsed - heapBefore) >> 20);
+    }
+
+    private static long liveAfterGc(Notification notification) {
+        if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+            return 0;
+        }
+        GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        return info.getGcInfo().getMemoryUsageAfterGc().values().stream().mapToLong(MemoryUsage::getUsed).sum();
+    }
+
+    private static long retainedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private Customer sample() {
+        return customer(ThreadLocalRandom.current().nextLong(1, rows + 1));
+    }
+
+    @Benchmark
+    public List<Long> prefixUserName() {
+        String userName = sample().getUserName();
+        return customerSearchIndex.searchPrefix(userName.substring(0, userName.indexOf('.') + 3),
+                CustomerSearchIndex.Field.USER_NAME, 20);
+    }
+
+    @Benchmark
+    public List<Long> prefixName() {
+        String name = sample().getName();
+        return customerSearchIndex.searchPrefix(name.substring(name.indexOf(' ') + 1, name.indexOf(' ') + 4),
+                CustomerSearchIndex.Field.NAME, 20);
+    }
+
+    @Benchmark
+    public List<Long> prefixPhoneNumber() {
+        return customerSearchIndex.searchPrefix(sample().getPhoneNumber().substring(0, 10),
+                CustomerSearchIndex.Field.PHONE_NUMBER, 20);
+    }
+
+    @Benchmark
+    public List<Long> prefixAllFields() {
+        String name = sample().getName();
+        return customerSearchIndex.searchPrefix(name.substring(0, 4), null, 20);
+    }
+
+    /**
+     * The last name with a typo.
+     */
+    @Benchmark
+    public List<Long> fuzzyWord() {
+        String name = sample().getName();
+        int space = name.indexOf(' ');
+        return customerSearchIndex.searchFuzzy(name.substring(space + 1, space + 2) + "x" + name.substring(space + 3), 20);
+    }
+
+    /**
+     * Both words of a name with one typo each.
+     */
+    @Benchmark
+    public List<Long> fuzzyName() {
+        String name = sample().getName();
+        int space = name.indexOf(' ');
+        String typos = name.substring(0, 1) + "x" + name.substring(2, space + 2) + "x" + name.substring(space + 3);
+        return customerSearchIndex.searchFuzzy(typos, 20);
+    }
+}
@@ -0,0 +1,66 @@
+package com.softwaretesting.testing.validator;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/*
+ * Validates a fixed mix of valid and invalid numbers: compiling the regex on every call (how the validator
+ * used to work), with a compiled regex kept in a constant, and with the scanner of PhoneNumberValidator.
+ * Run with -prof gc to compare the allocation rates as well.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PhoneNumberValidatorBenchmark {
+    private static final String REGEX = "^\\+[1-9][0-9]{6,14}$";
+    private static final Pattern PATTERN = Pattern.compile(REGEX);
+
+    private final PhoneNumberValidator phoneNumberValidator = new PhoneNumberValidator();
+
+    private final String[] phoneNumbers = {
+            "+4912345",
+            "+491701234567",
+            "+491234567890123",
+            "+4917012345678901",
+            "+049123456789",
+            "+49123AB456789",
+            "004917012345",
+            "+12025550123"
+    };
+
+    private int next;
+
+    private String nextPhoneNumber() {
+        final String phoneNumber = phoneNumbers[next];
+        next = (next + 1) & (phoneNumbers.length - 1);
+        return phoneNumber;
+    }
+
+    @Benchmark
+    public boolean regexCompiledPerCall() {
+        return Pattern.compile(REGEX).matcher(nextPhoneNumber()).find();
+    }
+
+    @Benchmark
+    public boolean regexCached() {
+        return PATTERN.matcher(nextPhoneNumber()).find();
+    }
+
+    @Benchmark
+    public boolean scanner() {
+        return phoneNumberValidator.validate(nextPhoneNumber());
+    }
+
+    /**
+     * All numbers at once, the score is per batch of {@code phoneNumbers.length} numbers.
+     */
+    @Benchmark
+    public boolean[] scannerValidateAll() {
+        return phoneNumberValidator.validateAll(phoneNumbers);
+    }
+}
@@ -0,0 +1,229 @@
+package com.softwaretesting.testing.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the request execution modes of the application: starts the packaged application once on platform
+ * threads, once on virtual threads and once on the reactive stack (profile "loadtest"), and for every concurrency
+ * level lets that many clients send requests back to back for a fixed time. 90% of the requests look up a seeded customer by id,
+ * 10% register a new customer.
+ * <p>
+ * Writes one CSV line per mode and concurrency level with the throughput and latency percentiles.
+ * A mode the JVM cannot run (virtual threads before Java 21) is reported as unavailable.
+ * <p>
+ * Usage: LoadTest &lt;application jar&gt; &lt;result csv&gt;, options as system properties:
+ * loadtest.concurrency (comma separated levels), loadtest.step (ISO-8601 duration per level), loadtest.port.
+ */
+public final class LoadTest {
+    private static final String CSV_HEADER = "mode,concurrency,requests,errors,throughput_per_s,p50_ms,p90_ms,p99_ms,max_ms";
+    private static final int SEEDED_IDS = 19_999;
+
+    /**
+     * The modes by name, with the command line argument that selects them.
+     */
+    private static final Map<String, String> MODES = new LinkedHashMap<>();
+
+    static {
+        MODES.put("platform", "--spring.threads.virtual.enabled=false");
+        MODES.put("virtual", "--spring.threads.virtual.enabled=true");
+        MODES.put("reactive", "--spring.main.web-application-type=reactive");
+    }
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final AtomicLong phoneNumbers = new AtomicLong(ThreadLocalRandom.current().nextLong(1_000_000L) * 1_000L);
+
+    private final String baseUrl;
+
+    private LoadTest(int port) {
+        this.baseUrl = "http://localhost:" + port;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: LoadTest <application jar> <result csv>");
+        }
+        final Path jar = Path.of(args[0]);
+        final Path results = Path.of(args[1]);
+        final int[] levels = Arrays.stream(System.getProperty("loadtest.concurrency", "1,4,16,64,256").split(","))
+                .mapToInt(level -> Integer.parseInt(level.trim()))
+                .toArray();
+        final Duration step = Duration.parse(System.getProperty("loadtest.step", "PT15S"));
+        final int port = Integer.getInteger("loadtest.port", 18080);
+
+        final LoadTest loadTest = new LoadTest(port);
+        final List<String> lines = new ArrayList<>();
+        lines.add(CSV_HEADER);
+        for (Map.Entry<String, String> mode : MODES.entrySet()) {
+            lines.addAll(loadTest.runMode(jar, results.resolveSibling("loadtest-" + mode.getKey() + ".log"),
+                    mode.getKey(), mode.getValue(), port, levels, step));
+        }
+
+        Files.write(results, lines);
+        lines.forEach(System.out::println);
+    }
+
+    private List<String> runMode(Path jar, Path log, String mode, String modeArgument, int port, int[] levels,
+                                 Duration step) throws Exception {
+        final Process application = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-jar", jar.toString(),
+                "--spring.profiles.active=loadtest",
+                "--server.port=" + port,
+                modeArgument)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+
+        final List<String> lines = new ArrayList<>();
+        try {
+            if (!awaitReady(application)) {
+                System.out.println(mode + " mode unavailable, see " + log);
+                lines.add(mode + ",unavailable,,,,,,,");
+                return lines;
+            }
+            // warm up the JIT and the connection pool at the highest level before measuring
+            runStep(levels[levels.length - 1], step);
+            for (int concurrency : levels) {
+                final String line = mode + "," + runStep(concurrency, step);
+                System.out.println(line);
+                lines.add(line);
+            }
+        } finally {
+            application.destroy();
+            application.waitFor();
+        }
+        return lines;
+    }
+
+    private boolean awaitReady(Process application) throws InterruptedException {
+        final long deadline = System.nanoTime() + Duration.ofMinutes(3).toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!application.isAlive()) {
+                return false;
+            }
+            try {
+                final HttpResponse<String> health = client.send(
+                        HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/health")).build(),
+                        HttpResponse.BodyHandlers.ofString());
+                if (health.statusCode() == 200) {
+                    return true;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(500);
+        }
+        return false;
+    }
+
+    /**
+     * Runs the given number of clients for the duration of a step and returns the CSV columns after the mode.
+     */
+    private String runStep(int concurrency, Duration step) throws InterruptedException {
+        final long deadline = System.nanoTime() + step.toNanos();
+        final Client[] clients = new Client[concurrency];
+        final Thread[] threads = new Thread[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            clients[i] = new Client(deadline);
+            threads[i] = new Thread(clients[i], "loadtest-client-" + i);
+            threads[i].start();
+        }
+
+        long errors = 0;
+        int requests = 0;
+        for (int i = 0; i < concurrency; i++) {
+            threads[i].join();
+            errors += clients[i].errors;
+            requests += clients[i].count;
+        }
+        final long[] latencies = new long[requests];
+        int offset = 0;
+        for (Client client : clients) {
+            System.arraycopy(client.latencies, 0, latencies, offset, client.count);
+            offset += client.count;
+        }
+        Arrays.sort(latencies);
+
+        return String.format(Locale.ROOT, "%d,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f",
+                concurrency, requests, errors,
+                requests / (step.toNanos() / 1e9),
+                percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+                percentile(latencies, 1.0));
+    }
+
+    private static double percentile(long[] sortedLatencies, double percentile) {
+        if (sortedLatencies.length == 0) {
+            return Double.NaN;
+        }
+        final int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(0, index)] / 1e6;
+    }
+
+    private HttpRequest nextRequest() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextInt(10) == 0) {
+            final long n = phoneNumbers.incrementAndGet();
+            final String body = "{\"userName\":\"load" + n + "\",\"name\":\"Load " + n + "\",\"phoneNumber\":\"+4977" + n + "\"}";
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/customer-registration"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/customers/" + random.nextInt(2, SEEDED_IDS + 1)))
+                .GET()
+                .build();
+    }
+
+    private final class Client implements Runnable {
+        private final long deadline;
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        private Client(long deadline) {
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            while (System.nanoTime() < deadline) {
+                final HttpRequest request = nextRequest();
+                final long start = System.nanoTime();
+                try {
+                    final HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() >= 500) {
+                        errors++;
+                    }
+                } catch (IOException e) {
+                    errors++;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = System.nanoTime() - start;
+            }
+        }
+    }
+}
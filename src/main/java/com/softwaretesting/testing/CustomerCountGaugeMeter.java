@@ -1,28 +1,54 @@
 package com.softwaretesting.testing;
 
-import com.softwaretesting.testing.customerManagement.service.CustomerManagementService;
+import com.softwaretesting.testing.dao.CustomerRepository;
+import com.softwaretesting.testing.event.CustomersAddedEvent;
+import com.softwaretesting.testing.event.CustomersDeletedEvent;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
 
-import java.util.function.Supplier;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Keeps the number of customers in memory, so a scrape of the customer_count gauge does not touch the DB.
+ * The count is seeded with a {@code SELECT COUNT(*)}, kept up to date by the customer events and
+ * reconciled with the DB periodically in case it drifted.
+ */
 @Component
 public class CustomerCountGaugeMeter {
-    final
-    CustomerManagementService customerManagementService;
+    private final CustomerRepository customerRepository;
 
+    private final AtomicLong customerCount = new AtomicLong();
 
-    public CustomerCountGaugeMeter(MeterRegistry meterRegistry, CustomerManagementService customerManagementService) {
-        Gauge.builder("customer_count", fetchCustomerCount()).
+    public CustomerCountGaugeMeter(MeterRegistry meterRegistry, CustomerRepository customerRepository) {
+        this.customerRepository = customerRepository;
+        reconcile();
+
+        Gauge.builder("customer_count", customerCount, AtomicLong::get).
                 description("current number of customers in DB").
                 register(meterRegistry);
+    }
+
+    public long getCustomerCount() {
+        return customerCount.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomersAdded(CustomersAddedEvent event) {
+        customerCount.addAndGet(event.getCustomers().size());
+    }
 
-        this.customerManagementService = customerManagementService;
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomersDeleted(CustomersDeletedEvent event) {
+        customerCount.addAndGet(-event.getDeletedCount());
     }
 
-    public Supplier<Number> fetchCustomerCount() {
-        return () -> customerManagementService.list().size();
+    @Scheduled(initialDelayString = "${customer.count.reconcile-interval:PT1M}",
+            fixedDelayString = "${customer.count.reconcile-interval:PT1M}")
+    public void reconcile() {
+        customerCount.set(customerRepository.count());
     }
 
 }
@@ -0,0 +1,43 @@
+package com.softwaretesting.testing.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Read-through caches for the customer point lookups.
+ * <p>
+ * Evictions are deferred until the surrounding transaction commits, after the read model has applied the change.
+ * The lookups themselves are not transactional: one running concurrently with a delete can read the customer
+ * before the delete commits and put it after the eviction ran. {@link GenerationCheckedCaffeineCache} evicts
+ * such a value again, so the lookups must be {@code @Cacheable(sync = true)}.
+ * Hit, miss and eviction counts are published as cache_* metrics for every region.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String CUSTOMERS_BY_ID = "customersById";
+    public static final String CUSTOMERS_BY_USER_NAME = "customersByUserName";
+    public static final String CUSTOMERS_BY_PHONE_NUMBER = "customersByPhoneNumber";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${customer.cache.spec}") String cacheSpec) {
+        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new GenerationCheckedCaffeineCache(name, cache, isAllowNullValues());
+            }
+        };
+        caffeineCacheManager.setCacheSpecification(cacheSpec);
+        caffeineCacheManager.setCacheNames(List.of(CUSTOMERS_BY_ID, CUSTOMERS_BY_USER_NAME, CUSTOMERS_BY_PHONE_NUMBER));
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
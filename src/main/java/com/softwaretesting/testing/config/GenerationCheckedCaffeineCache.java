@@ -0,0 +1,70 @@
+package com.softwaretesting.testing.config;
+
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Caffeine cache that does not keep a value loaded across an eviction.
+ * <p>
+ * Every eviction and clear advances the generation of the cache. A load remembers the generation before it reads;
+ * if the generation moved by the time its value is in the cache, the value may have been read before the eviction
+ * and is evicted again. Checking after the value is in the cache closes the gap between the check and the put: an
+ * eviction that runs after the check also runs after the put.
+ * <p>
+ * The load runs in the compute of the underlying Caffeine cache, so concurrent misses of a key wait for the one
+ * load instead of each reading the DB. A clear does not wait for a load in flight and would miss its value without
+ * the generation.
+ * <p>
+ * Only {@link #get(Object, Callable)} is checked, so the lookups have to be {@code @Cacheable(sync = true)}.
+ * Any eviction of the cache counts, the value of a load racing with the eviction of a different key is not kept
+ * either.
+ */
+class GenerationCheckedCaffeineCache extends CaffeineCache {
+
+    private final AtomicLong generation = new AtomicLong();
+
+    GenerationCheckedCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache,
+                                   boolean allowNullValues) {
+        super(name, cache, allowNullValues);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        // only set if this call loads, callers that waited for the load of another one have nothing to check
+        long[] loadedGeneration = {-1};
+        T value = super.get(key, () -> {
+            loadedGeneration[0] = generation.get();
+            return valueLoader.call();
+        });
+        if (loadedGeneration[0] != -1 && generation.get() != loadedGeneration[0]) {
+            super.evict(key);
+        }
+        return value;
+    }
+
+    @Override
+    public void evict(Object key) {
+        generation.incrementAndGet();
+        super.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        generation.incrementAndGet();
+        return super.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        generation.incrementAndGet();
+        super.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        generation.incrementAndGet();
+        return super.invalidate();
+    }
+}
@@ -0,0 +1,151 @@
+package com.softwaretesting.testing.config;
+
+import com.softwaretesting.testing.exception.BadRequestException;
+import com.softwaretesting.testing.exception.CustomerAlreadyRegisteredException;
+import com.softwaretesting.testing.exception.CustomerNotFoundException;
+import com.softwaretesting.testing.exception.PhoneNumberTakenException;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.boot.actuate.metrics.web.reactive.server.WebFluxTagsContributor;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTagsContributor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Latency histograms of the customer endpoints, for the percentiles and burn rate alerts of
+ * alertmanager/rules/http_latency.yml, and the customer_outcome tag of http_server_requests.
+ * <p>
+ * Only the requests of /api/v1/customers/** and /api/v1/customer-registration/** publish a percentile histogram,
+ * with buckets between {@link #MINIMUM_EXPECTED} and {@link #MAXIMUM_EXPECTED} and one bucket per
+ * {@link #SLO_BUCKETS} value, the others (actuator, H2 console) keep the count, sum and max.
+ */
+@Configuration(proxyBeanMethods = false)
+public class HttpMetricsConfig {
+
+    static final String HTTP_SERVER_REQUESTS = "http.server.requests";
+    static final String CUSTOMER_URI_PREFIX = "/api/v1/customer";
+
+    static final String OUTCOME_TAG = "customer_outcome";
+    static final String HIT = "hit";
+    static final String SUCCESS = "success";
+    static final String MISS = "miss";
+    static final String DUPLICATE = "duplicate";
+    static final String VALIDATION_FAILURE = "validation_failure";
+    static final String ERROR = "error";
+    static final String NONE = "none";
+
+    /**
+     * Buckets for the latency SLOs, 250 ms is the one of the alerts.
+     */
+    static final Duration[] SLO_BUCKETS = {Duration.ofMillis(5), Duration.ofMillis(10), Duration.ofMillis(25),
+            Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500),
+            Duration.ofSeconds(1), Duration.ofMillis(2500)};
+    static final Duration MINIMUM_EXPECTED = Duration.ofMillis(1);
+    static final Duration MAXIMUM_EXPECTED = Duration.ofSeconds(10);
+
+    @Bean
+    public MeterFilter customerEndpointHistograms() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                String uri = id.getTag("uri");
+                if (!HTTP_SERVER_REQUESTS.equals(id.getName()) || uri == null || !uri.startsWith(CUSTOMER_URI_PREFIX)) {
+                    return config;
+                }
+                return DistributionStatisticConfig.builder()
+                        .percentilesHistogram(true)
+                        .serviceLevelObjectives(Arrays.stream(SLO_BUCKETS).mapToDouble(Duration::toNanos).toArray())
+                        .minimumExpectedValue((double) MINIMUM_EXPECTED.toNanos())
+                        .maximumExpectedValue((double) MAXIMUM_EXPECTED.toNanos())
+                        .build()
+                        .merge(config);
+            }
+        };
+    }
+
+    @Bean
+    public CustomerOutcomeTagsContributor customerOutcomeTagsContributor() {
+        return new CustomerOutcomeTagsContributor();
+    }
+
+    /**
+     * What a request to a customer endpoint came to:
+     * <ul>
+     *     <li>{@value #HIT}: a GET that answered with 2xx</li>
+     *     <li>{@value #SUCCESS}: any other request that answered with 2xx</li>
+     *     <li>{@value #MISS}: the customer does not exist (404)</li>
+     *     <li>{@value #DUPLICATE}: the phone number is taken or the customer is registered already</li>
+     *     <li>{@value #VALIDATION_FAILURE}: any other 4xx</li>
+     *     <li>{@value #ERROR}: 5xx</li>
+     * </ul>
+     * The exception decides over the status, the reactive stack may not have set the status yet when it is recorded.
+     */
+    static String outcome(String method, int status, Throwable exception) {
+        if (exception instanceof PhoneNumberTakenException || exception instanceof CustomerAlreadyRegisteredException) {
+            return DUPLICATE;
+        }
+        if (exception instanceof CustomerNotFoundException) {
+            return MISS;
+        }
+        if (exception instanceof BadRequestException) {
+            return VALIDATION_FAILURE;
+        }
+        if (exception instanceof ResponseStatusException) {
+            status = ((ResponseStatusException) exception).getRawStatusCode();
+        } else if (exception != null) {
+            return ERROR;
+        }
+        if (status == HttpStatus.NOT_FOUND.value()) {
+            return MISS;
+        }
+        if (status >= 500) {
+            return ERROR;
+        }
+        if (status >= 400) {
+            return VALIDATION_FAILURE;
+        }
+        return "GET".equals(method) ? HIT : SUCCESS;
+    }
+
+    /**
+     * Adds the customer_outcome tag to http_server_requests of both stacks, {@value #NONE} outside the customer
+     * endpoints.
+     */
+    static class CustomerOutcomeTagsContributor implements WebMvcTagsContributor, WebFluxTagsContributor {
+
+        @Override
+        public Iterable<Tag> getTags(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                     Throwable exception) {
+            if (!request.getRequestURI().startsWith(CUSTOMER_URI_PREFIX)) {
+                return Tags.of(OUTCOME_TAG, NONE);
+            }
+            return Tags.of(OUTCOME_TAG, outcome(request.getMethod(), response.getStatus(), exception));
+        }
+
+        @Override
+        public Iterable<Tag> getLongRequestTags(HttpServletRequest request, Object handler) {
+            return Tags.empty();
+        }
+
+        @Override
+        public Iterable<Tag> httpRequestTags(ServerWebExchange exchange, Throwable exception) {
+            if (!exchange.getRequest().getPath().value().startsWith(CUSTOMER_URI_PREFIX)) {
+                return Tags.of(OUTCOME_TAG, NONE);
+            }
+            Integer status = exchange.getResponse().getRawStatusCode();
+            return Tags.of(OUTCOME_TAG, outcome(exchange.getRequest().getMethodValue(),
+                    status == null ? HttpStatus.OK.value() : status, exception));
+        }
+    }
+}
@@ -1,24 +1,30 @@
 /**
  * The Spring Boot app triggers the run method on successful start up and 
  * the code basically initializes the in-memory h2 databsae with 20K records. 
- * 
+ * The number of records is configured by customer.seed.size. They are inserted
+ * in chunks of customer.seed.chunk-size, one transaction per chunk, so neither the
+ * persistence context nor the list of pending customers grows with the seed size.
+ * A table that holds as many customers already, the file of the durable mode after
+ * a restart, is left as it is. A seed that stopped part way, e.g. the app was killed,
+ * is resumed: the chunks committed before are skipped.
  *
  */
 
 package com.softwaretesting.testing.config;
 
+import com.softwaretesting.testing.dao.CustomerRepository;
 import com.softwaretesting.testing.model.Customer;
 import com.softwaretesting.testing.customerManagement.service.CustomerManagementService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.IntStream;
 
 @Component
 public class PopulateDatabase implements ApplicationRunner {
@@ -26,27 +32,61 @@ public class PopulateDatabase implements ApplicationRunner {
 
 	private CustomerManagementService customerManagementService;
 
+	private CustomerRepository customerRepository;
+
+	@Value("${customer.seed.size:19999}")
+	private int seedSize;
+
+	@Value("${customer.seed.chunk-size:10000}")
+	private int chunkSize;
+
 	@Autowired
-	public PopulateDatabase(CustomerManagementService customerManagementService) {
+	public PopulateDatabase(CustomerManagementService customerManagementService,
+							CustomerRepository customerRepository) {
 		this.customerManagementService = customerManagementService;
+		this.customerRepository = customerRepository;
 	}
 	
 	@Override
 	public void run(ApplicationArguments args) throws Exception {
-		logger.debug("Populating the database with 20K Dummy Records ... In Progress");
-		List<Customer> customers = new ArrayList<>();
-		
-		IntStream.range(1,20000).forEach(id -> {
-			Customer customer = new Customer();
-			customer.setUserName("f" + id);
-			customer.setName("l" + id);
-			customer.setPhoneNumber("+49000" + id);
-			
-			customers.add(customer);
-		});
-
-		customerManagementService.saveAll(customers);
-		
-		logger.debug("Database filled up!");
+		// H2 keeps the row count of a table, so this does not scan it
+		long existing = customerRepository.count();
+		if (existing >= seedSize) {
+			logger.info("Database holds {} customers already, skipping the seed", existing);
+			return;
+		}
+
+		logger.debug("Populating the database with {} Dummy Records ... In Progress", seedSize);
+		long start = System.nanoTime();
+		List<Customer> customers = new ArrayList<>(Math.min(chunkSize, seedSize));
+		int seeded = 0;
+
+		for (int first = 1; first <= seedSize; first += chunkSize) {
+			// a chunk is committed as a whole, so its first customer tells whether an earlier run got that far
+			if (existing > 0 && customerRepository.selectCustomerByPhoneNumber(phoneNumber(first)).isPresent()) {
+				continue;
+			}
+			for (int id = first; id <= Math.min(first + chunkSize - 1, seedSize); id++) {
+				Customer customer = new Customer();
+				customer.setUserName("f" + id);
+				customer.setName("l" + id);
+				customer.setPhoneNumber(phoneNumber(id));
+
+				customers.add(customer);
+			}
+			customerManagementService.saveAll(customers);
+			seeded += customers.size();
+			customers.clear();
+		}
+
+		Runtime runtime = Runtime.getRuntime();
+		logger.info("Database filled up with {} customers in {} ms, heap used {} MB",
+				seeded,
+				(System.nanoTime() - start) / 1_000_000,
+				(runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024));
+	}
+
+	private static String phoneNumber(int id) {
+		return "+49000" + id;
 	}
 }
@@ -0,0 +1,60 @@
+package com.softwaretesting.testing.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Server and DB access of the reactive stack (spring.main.web-application-type=reactive).
+ * <p>
+ * Spring MVC needs Tomcat on the classpath, which Boot would also pick for the reactive stack.
+ * The server factory declared here makes it run on Reactor Netty instead.
+ * <p>
+ * Boot's R2dbcAutoConfiguration is excluded: as soon as there is a ConnectionFactory bean, Boot backs off the JDBC
+ * DataSource that JPA, the seeding and the SQL scripts depend on. The connection pool is therefore set up here from
+ * the spring.r2dbc.* properties, is only exposed through the DatabaseClient, and is closed with the context.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableConfigurationProperties(R2dbcProperties.class)
+public class ReactiveStackConfig implements DisposableBean {
+
+    private ConnectionPool connectionPool;
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public DatabaseClient databaseClient(R2dbcProperties properties) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(properties.getUrl()).mutate()
+                .option(ConnectionFactoryOptions.USER, properties.getUsername())
+                .option(ConnectionFactoryOptions.PASSWORD, properties.getPassword())
+                .build();
+        R2dbcProperties.Pool pool = properties.getPool();
+
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .initialSize(pool.getInitialSize())
+                .maxSize(pool.getMaxSize())
+                .maxIdleTime(pool.getMaxIdleTime())
+                .build());
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @Override
+    public void destroy() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.softwaretesting.testing.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Timers of the JPA transactions, tagged with the service method that started them ("Class.method"):
+ * <ul>
+ *     <li>customer_transaction_duration: the whole transaction as the caller sees it, from waiting for a
+ *     connection to the commit or rollback, tagged with the exception the method threw ("None" if it returned)</li>
+ *     <li>customer_transaction_commit_duration: the commit alone, including the flush of the persistence context</li>
+ * </ul>
+ * Together with spring_data_repository_invocations (SQL per repository method) and hikaricp_connections_acquire
+ * (waiting for a connection) they tell where the time of a transaction goes. Commits of a TransactionTemplate
+ * are tagged with the name of the template.
+ */
+@Configuration(proxyBeanMethods = false)
+public class TransactionMetricsConfig {
+
+    static final String TRANSACTION_DURATION = "customer_transaction_duration";
+    static final String COMMIT_DURATION = "customer_transaction_commit_duration";
+
+    /**
+     * The transactions of the latency SLO finish within this time.
+     */
+    static final Duration TRANSACTION_SLO = Duration.ofMillis(100);
+
+    /**
+     * Replaces the transaction manager Boot would configure, with the same customizers applied.
+     */
+    @Bean
+    public PlatformTransactionManager transactionManager(MeterRegistry meterRegistry,
+                                                         ObjectProvider<TransactionManagerCustomizers> customizers) {
+        JpaTransactionManager transactionManager = new MeteredJpaTransactionManager(meterRegistry);
+        customizers.ifAvailable(transactionCustomizers -> transactionCustomizers.customize(transactionManager));
+        return transactionManager;
+    }
+
+    @Bean
+    public TransactionTimingAspect transactionTimingAspect(MeterRegistry meterRegistry) {
+        return new TransactionTimingAspect(meterRegistry);
+    }
+
+    /**
+     * @return "Class.method" of the transaction name Spring derives from the fully qualified method name
+     */
+    static String methodTag(String transactionName) {
+        if (transactionName == null) {
+            return "unnamed";
+        }
+        int methodStart = transactionName.lastIndexOf('.');
+        return transactionName.substring(transactionName.lastIndexOf('.', methodStart - 1) + 1);
+    }
+
+    /**
+     * Runs outside the transaction interceptor, so the time includes beginning the transaction (getting a
+     * connection) and completing it. Methods that join a transaction already running are not timed on their own.
+     */
+    @Aspect
+    @Order(Ordered.LOWEST_PRECEDENCE - 1)
+    static class TransactionTimingAspect {
+        private final MeterRegistry meterRegistry;
+
+        TransactionTimingAspect(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Around("@annotation(org.springframework.transaction.annotation.Transactional)"
+                + " || @within(org.springframework.transaction.annotation.Transactional)")
+        public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                return joinPoint.proceed();
+            }
+            String method = AopUtils.getTargetClass(joinPoint.getTarget()).getSimpleName() + "."
+                    + joinPoint.getSignature().getName();
+            String exception = "None";
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                return joinPoint.proceed();
+            } catch (Throwable e) {
+                exception = e.getClass().getSimpleName();
+                throw e;
+            } finally {
+                sample.stop(Timer.builder(TRANSACTION_DURATION).
+                        description("duration of the transactions started by a service method, commit included").
+                        tag("method", method).
+                        tag("exception", exception).
+                        publishPercentileHistogram().
+                        serviceLevelObjectives(TRANSACTION_SLO).
+                        register(meterRegistry));
+            }
+        }
+    }
+
+    static class MeteredJpaTransactionManager extends JpaTransactionManager {
+        private final transient MeterRegistry meterRegistry;
+
+        MeteredJpaTransactionManager(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                super.doCommit(status);
+            } finally {
+                sample.stop(Timer.builder(COMMIT_DURATION).
+                        description("duration of the commits, flush of the persistence context included").
+                        tag("method", methodTag(TransactionSynchronizationManager.getCurrentTransactionName())).
+                        publishPercentileHistogram().
+                        register(meterRegistry));
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.softwaretesting.testing.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Opt-in execution mode (spring.threads.virtual.enabled=true) that runs every request on its own virtual thread
+ * instead of Tomcat's pool of platform threads. The controllers and the @Transactional service calls they make run
+ * on the request thread, so a request blocked on JDBC no longer holds a platform thread. Async requests
+ * (the streaming list and the batch registration) use virtual threads as well.
+ * <p>
+ * With virtual threads the number of concurrent requests is no longer bounded by server.tomcat.threads.max,
+ * the Hikari pool (spring.datasource.hikari.maximum-pool-size) becomes the limit for everything that touches the DB.
+ * <p>
+ * Virtual threads need Java 21 (or 19/20 with --enable-preview). The application is built for Java 17,
+ * so the executor is looked up reflectively and startup fails if the JVM does not provide it.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+    final Logger logger = LoggerFactory.getLogger(VirtualThreadsConfig.class);
+
+    @Bean
+    public ExecutorService virtualThreadExecutor(ObjectProvider<HikariDataSource> dataSource) {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        dataSource.ifAvailable(hikari -> logger.info(
+                "Serving requests on virtual threads, DB work is bounded by the connection pool of {}",
+                hikari.getMaximumPoolSize()));
+        return executor;
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    /**
+     * Replaces the platform thread pool Spring MVC runs async requests on.
+     */
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw virtualThreadsUnavailable(e);
+        } catch (InvocationTargetException e) {
+            // Java 19/20 without --enable-preview
+            throw virtualThreadsUnavailable(e.getCause());
+        }
+    }
+
+    private static IllegalStateException virtualThreadsUnavailable(Throwable cause) {
+        return new IllegalStateException("spring.threads.virtual.enabled is set, but Java "
+                + Runtime.version().feature() + " provides no virtual threads (Java 21 or --enable-preview on 19/20 required)",
+                cause);
+    }
+}
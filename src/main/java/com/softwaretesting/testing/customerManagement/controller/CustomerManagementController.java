@@ -1,33 +1,118 @@
 package com.softwaretesting.testing.customerManagement.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.softwaretesting.testing.customerManagement.service.CustomerInsertQueue;
 import com.softwaretesting.testing.customerManagement.service.CustomerManagementService;
+import com.softwaretesting.testing.exception.BadRequestException;
+import com.softwaretesting.testing.index.CustomerReadModel;
+import com.softwaretesting.testing.index.CustomerSearchIndex;
 import com.softwaretesting.testing.model.Customer;
 import com.softwaretesting.testing.dto.inbound.CustomerInDTO;
 import com.softwaretesting.testing.dto.outbound.CustomerOutDTO;
+import com.softwaretesting.testing.dto.outbound.DeletionResultDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.ArrayList;
-import java.util.Collection;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/v1/customers")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class CustomerManagementController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int MAX_SEARCH_RESULTS = 100;
+    static final int MAX_DELETE_IDS = 1000;
+
     @Autowired
     private CustomerManagementService customerManagementService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CustomerReadModel customerReadModel;
+
+    @Autowired
+    private CustomerInsertQueue customerInsertQueue;
+
     public CustomerManagementController() {}
 
-    @GetMapping("list")
-    public List<CustomerOutDTO> list() {
-        Collection<Customer> customersIterable = customerManagementService.list();
-        List<CustomerOutDTO> outDTOs = new ArrayList<>();
-        customersIterable.forEach(entry -> outDTOs.add(new CustomerOutDTO(entry)));
-        return outDTOs;
+    /**
+     * Streams every customer row by row, as a JSON array or, if the client accepts
+     * {@code application/x-ndjson}, as newline delimited JSON. Written straight from the read model if it is
+     * enabled, otherwise from the DB.
+     */
+    @GetMapping(value = "list", params = "!limit")
+    public ResponseEntity<StreamingResponseBody> list(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean ndjson = accept != null && MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
+
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(outputStream -> writeCustomers(outputStream, ndjson));
+    }
+
+    /**
+     * Keyset pagination: returns up to {@code limit} customers with an id greater than {@code after}.
+     * If the page is full, the cursor for the next page is returned in the {@value #NEXT_CURSOR_HEADER} header.
+     */
+    @GetMapping(value = "list", params = "limit")
+    public ResponseEntity<List<CustomerOutDTO>> listPage(
+            @RequestParam(value = "after", defaultValue = "0") Long after,
+            @RequestParam("limit") int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        List<CustomerOutDTO> outDTOs = customerManagementService.listOutDTOPage(after, limit);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (outDTOs.size() == limit) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(outDTOs.get(outDTOs.size() - 1).getId()));
+        }
+        return response.body(outDTOs);
+    }
+
+    /**
+     * Customers whose user name, name (or a word of it) or phone number starts with {@code q}, or only those
+     * of the given {@code field} (userName, name or phoneNumber). With {@code fuzzy=true} the words of
+     * {@code q} are matched against the words of the names with a few typos allowed.
+     */
+    @GetMapping("search")
+    public List<CustomerOutDTO> search(
+            @RequestParam("q") String query,
+            @RequestParam(value = "field", required = false) String field,
+            @RequestParam(value = "fuzzy", defaultValue = "false") boolean fuzzy,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        if (query.isBlank()) {
+            throw new BadRequestException("q must not be blank");
+        }
+        if (limit < 1 || limit > MAX_SEARCH_RESULTS) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_SEARCH_RESULTS);
+        }
+        CustomerSearchIndex.Field searchedField = field == null ? null : CustomerSearchIndex.Field.fromParameter(field)
+                .orElseThrow(() -> new BadRequestException("field must be one of userName, name, phoneNumber"));
+
+        return customerManagementService.search(query, searchedField, fuzzy, limit).stream()
+                .map(CustomerOutDTO::new)
+                .collect(Collectors.toList());
     }
 
     @GetMapping("{cid}")
@@ -36,10 +121,18 @@ public class CustomerManagementController {
         return new CustomerOutDTO(customer);
     }
 
+    /**
+     * Adds the customer in a transaction of its own, or together with concurrently added customers if the insert
+     * queue is enabled. Either way the customer is stored once the response is sent.
+     */
     @PostMapping
     public CustomerOutDTO addCustomer(@RequestBody CustomerInDTO dto) {
         Customer customer = dto.toEntity();
-        customerManagementService.addCustomer(customer);
+        if (customerInsertQueue.isEnabled()) {
+            customerInsertQueue.insert(customer);
+        } else {
+            customerManagementService.addCustomer(customer);
+        }
         return new CustomerOutDTO(customer);
     }
 
@@ -49,4 +142,37 @@ public class CustomerManagementController {
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
+    /**
+     * Deletes the customers of the given ids ({@code ?ids=1,2,3}) with a single statement. Ids without a customer
+     * are skipped, the response tells how many customers were deleted.
+     */
+    @DeleteMapping
+    public DeletionResultDTO deleteAll(@RequestParam("ids") List<Long> ids) {
+        if (ids.isEmpty() || ids.size() > MAX_DELETE_IDS) {
+            throw new BadRequestException("ids must hold between 1 and " + MAX_DELETE_IDS + " ids");
+        }
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        return new DeletionResultDTO(distinctIds.size(), customerManagementService.deleteAll(distinctIds));
+    }
+
+    private void writeCustomers(OutputStream outputStream, boolean ndjson) throws IOException {
+        if (customerReadModel.writeAll(outputStream, ndjson)) {
+            return;
+        }
+
+        ObjectWriter writer = objectMapper.writerFor(CustomerOutDTO.class);
+
+        try (SequenceWriter sequence = ndjson
+                ? writer.withRootValueSeparator("\n").writeValues(outputStream)
+                : writer.writeValuesAsArray(outputStream)) {
+            customerManagementService.forEachCustomerOutDTO(customer -> {
+                try {
+                    sequence.write(customer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
 }
@@ -0,0 +1,92 @@
+package com.softwaretesting.testing.customerManagement.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.softwaretesting.testing.customerManagement.service.ReactiveCustomerManagementService;
+import com.softwaretesting.testing.dto.inbound.CustomerInDTO;
+import com.softwaretesting.testing.dto.outbound.CustomerOutDTO;
+import com.softwaretesting.testing.exception.BadRequestException;
+import com.softwaretesting.testing.util.JsonSequences;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static com.softwaretesting.testing.customerManagement.controller.CustomerManagementController.MAX_PAGE_SIZE;
+import static com.softwaretesting.testing.customerManagement.controller.CustomerManagementController.NEXT_CURSOR_HEADER;
+
+/**
+ * The routes of {@link CustomerManagementController} on WebFlux and R2DBC, active with
+ * spring.main.web-application-type=reactive.
+ */
+@RestController
+@RequestMapping("/api/v1/customers")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCustomerManagementController {
+
+    private final ReactiveCustomerManagementService customerManagementService;
+
+    private final ObjectWriter writer;
+
+    public ReactiveCustomerManagementController(ReactiveCustomerManagementService customerManagementService,
+                                                ObjectMapper objectMapper) {
+        this.customerManagementService = customerManagementService;
+        this.writer = objectMapper.writerFor(CustomerOutDTO.class);
+    }
+
+    /**
+     * Streams every customer, as a JSON array or, if the client accepts {@code application/x-ndjson}, as
+     * newline delimited JSON. Rows are only read from the DB as fast as the client consumes the response.
+     */
+    @GetMapping(value = "list", params = "!limit")
+    public ResponseEntity<Flux<DataBuffer>> list(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean ndjson = accept != null && MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
+
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(JsonSequences.write(customerManagementService.list().map(CustomerOutDTO::new), writer, ndjson));
+    }
+
+    @GetMapping(value = "list", params = "limit")
+    public Mono<ResponseEntity<List<CustomerOutDTO>>> listPage(
+            @RequestParam(value = "after", defaultValue = "0") Long after,
+            @RequestParam("limit") int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return Mono.error(new BadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+
+        return customerManagementService.listPage(after, limit)
+                .map(CustomerOutDTO::new)
+                .collectList()
+                .map(outDTOs -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                    if (outDTOs.size() == limit) {
+                        response.header(NEXT_CURSOR_HEADER, String.valueOf(outDTOs.get(outDTOs.size() - 1).getId()));
+                    }
+                    return response.body(outDTOs);
+                });
+    }
+
+    @GetMapping("{cid}")
+    public Mono<CustomerOutDTO> getById(@PathVariable("cid") Long id) {
+        return customerManagementService.findById(id).map(CustomerOutDTO::new);
+    }
+
+    @PostMapping
+    public Mono<CustomerOutDTO> addCustomer(@RequestBody CustomerInDTO dto) {
+        return customerManagementService.addCustomer(dto.toEntity()).map(CustomerOutDTO::new);
+    }
+
+    @DeleteMapping("{cid}")
+    public Mono<ResponseEntity<Void>> delete(@PathVariable("cid") Long id) {
+        return customerManagementService.delete(id).then(Mono.fromSupplier(() -> ResponseEntity.ok().build()));
+    }
+}
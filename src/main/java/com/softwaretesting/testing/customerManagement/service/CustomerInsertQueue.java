@@ -0,0 +1,323 @@
+package com.softwaretesting.testing.customerManagement.service;
+
+import com.softwaretesting.testing.config.CacheConfig;
+import com.softwaretesting.testing.dao.CustomerRepository;
+import com.softwaretesting.testing.event.CustomersAddedEvent;
+import com.softwaretesting.testing.model.Customer;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Optional group commit for POST /api/v1/customers (customer.insert-queue.enabled=true): instead of one
+ * transaction per customer, the request threads put their customers into a bounded queue and wait, while a single
+ * writer thread inserts whatever has queued up with JDBC batches in one transaction.
+ * <p>
+ * A batch is closed once it has customer.insert-queue.batch-size customers, or customer.insert-queue.max-linger
+ * after its first customer was taken, whichever comes first; a customer that finds the writer idle waits at most
+ * that long for company. The future of every customer completes only after the transaction of its batch committed,
+ * so a successful response still means the customer is stored. Customers are validated before they are queued,
+ * like the entity is on the path without the queue. If a constraint of the table still rejects the batch, for
+ * example because one of the phone numbers is taken, the batch is rolled back and its customers are added one by
+ * one through {@link CustomerManagementService#addCustomer}, which only fails the caller of the offending one.
+ * <p>
+ * A full queue rejects further customers with 503 instead of blocking the request threads, and so does a queue
+ * that is shutting down. A caller waits at most max-linger plus customer.insert-queue.commit-timeout, which is
+ * also the timeout of the transaction, before it gets a 503; if its batch was already being inserted by then, the
+ * customer may still be added.
+ */
+@Component
+public class CustomerInsertQueue {
+    final Logger logger = LoggerFactory.getLogger(CustomerInsertQueue.class);
+
+    private final CustomerRepository customerRepository;
+    private final CustomerManagementService customerManagementService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final long maxLingerNanos;
+    private final long commitTimeoutNanos;
+
+    private final BlockingQueue<PendingInsert> queue;
+
+    private final DistributionSummary batchSizes;
+    private final Timer commitTimer;
+
+    private Thread writer;
+
+    /**
+     * False once the queue is stopped or its writer ended, further customers are rejected.
+     */
+    private volatile boolean accepting = true;
+
+    public CustomerInsertQueue(MeterRegistry meterRegistry,
+                               CustomerRepository customerRepository,
+                               @Lazy CustomerManagementService customerManagementService,
+                               ApplicationEventPublisher eventPublisher,
+                               CacheManager cacheManager,
+                               PlatformTransactionManager transactionManager,
+                               Validator validator,
+                               @Value("${customer.insert-queue.enabled:false}") boolean enabled,
+                               @Value("${customer.insert-queue.capacity:10000}") int capacity,
+                               @Value("${customer.insert-queue.batch-size:100}") int batchSize,
+                               @Value("${customer.insert-queue.max-linger:2ms}") Duration maxLinger,
+                               @Value("${customer.insert-queue.commit-timeout:5s}") Duration commitTimeout) {
+        this.customerRepository = customerRepository;
+        this.customerManagementService = customerManagementService;
+        this.eventPublisher = eventPublisher;
+        this.cacheManager = cacheManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setName("CustomerInsertQueue.commit");
+        this.transactionTemplate.setTimeout((int) Math.max(1, (commitTimeout.toMillis() + 999) / 1000));
+        this.validator = validator;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxLingerNanos = maxLinger.toNanos();
+        this.commitTimeoutNanos = commitTimeout.toNanos();
+        this.queue = new ArrayBlockingQueue<>(capacity);
+
+        Gauge.builder("customer_insert_queue_depth", queue, BlockingQueue::size).
+                description("customers waiting for the insert queue writer").
+                register(meterRegistry);
+        Gauge.builder("customer_insert_queue_remaining_capacity", queue, BlockingQueue::remainingCapacity).
+                description("customers the insert queue takes before it rejects further ones").
+                register(meterRegistry);
+        batchSizes = DistributionSummary.builder("customer_insert_batch_size").
+                description("customers inserted by one transaction of the insert queue writer").
+                register(meterRegistry);
+        commitTimer = Timer.builder("customer_insert_batch_duration").
+                description("time the insert queue writer takes to insert and commit one batch").
+                register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        writer = new Thread(this::drain, "customer-insert-writer");
+        writer.setDaemon(true);
+        writer.start();
+        logger.info("Inserting customers in batches of up to {}, waiting at most {} µs for a batch to fill",
+                batchSize, maxLingerNanos / 1000);
+    }
+
+    /**
+     * Stops the writer once it has inserted the customers queued so far. Customers submitted from now on are
+     * rejected.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        accepting = false;
+        if (writer != null) {
+            writer.interrupt();
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    /**
+     * Queues the customer and waits until the batch it ended up in committed, see {@link #submit}.
+     *
+     * @return the customer, with its id set
+     * @throws ResponseStatusException with 503 if the queue rejects the customer or it was not added in time
+     */
+    public Customer insert(Customer customer) {
+        PendingInsert pending = enqueue(customer);
+        try {
+            return pending.future.get(maxLingerNanos + commitTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CompletionException(e.getCause());
+        } catch (TimeoutException e) {
+            queue.remove(pending);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Timed out waiting for the customer to be added");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queue.remove(pending);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted waiting for the customer to be added");
+        }
+    }
+
+    /**
+     * Queues the customer for the next batch.
+     *
+     * @return completes with the customer after its batch committed, or exceptionally like
+     * {@link CustomerManagementService#addCustomer} if it could not be inserted
+     * @throws ResponseStatusException with 503 if the queue is full, stopped or its writer ended
+     * @throws ConstraintViolationException if the customer is not valid, it is not queued then
+     */
+    public CompletableFuture<Customer> submit(Customer customer) {
+        return enqueue(customer).future;
+    }
+
+    private PendingInsert enqueue(Customer customer) {
+        Set<ConstraintViolation<Customer>> violations = validator.validate(customer);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        if (!accepting) {
+            throw notAccepting();
+        }
+        PendingInsert pending = new PendingInsert(customer);
+        if (!queue.offer(pending)) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many customers waiting to be added");
+        }
+        // the writer may have taken its last customers between the check and the offer, nothing would take this one
+        if (!accepting && queue.remove(pending)) {
+            throw notAccepting();
+        }
+        return pending;
+    }
+
+    private static ResponseStatusException notAccepting() {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Customers are not being added right now");
+    }
+
+    private void drain() {
+        List<PendingInsert> batch = new ArrayList<>(batchSize);
+        boolean running = true;
+        try {
+            while (running) {
+                try {
+                    batch.add(queue.take());
+                    fill(batch);
+                } catch (InterruptedException e) {
+                    // shutting down, insert what is queued already
+                    running = false;
+                    queue.drainTo(batch);
+                }
+                if (!batch.isEmpty()) {
+                    commit(batch);
+                    batch.clear();
+                }
+            }
+        } finally {
+            accepting = false;
+            batch.clear();
+            queue.drainTo(batch);
+            batch.forEach(pending -> pending.future.completeExceptionally(notAccepting()));
+        }
+    }
+
+    /**
+     * Adds queued customers to the batch until it is full or max-linger passed.
+     */
+    private void fill(List<PendingInsert> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + maxLingerNanos;
+        while (batch.size() < batchSize) {
+            if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            PendingInsert next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    /**
+     * Inserts the batch in one transaction and completes the futures of its customers. Never throws, not even
+     * errors, so the writer keeps running and no caller is left waiting.
+     */
+    void commit(List<PendingInsert> batch) {
+        List<Customer> customers = batch.stream().map(pending -> pending.customer).collect(Collectors.toList());
+        batchSizes.record(customers.size());
+        try {
+            commitTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+                customerRepository.insertAll(customers);
+                eventPublisher.publishEvent(new CustomersAddedEvent(new ArrayList<>(customers)));
+            }));
+        } catch (DataIntegrityViolationException e) {
+            // only the customers that break a constraint on their own fail
+            logger.warn("Constraint violated in a batch of {} customers, adding them one by one", customers.size());
+            addOneByOne(batch);
+            return;
+        } catch (Throwable e) {
+            failAll(batch, e);
+            return;
+        }
+
+        Cache byUserName = cacheManager.getCache(CacheConfig.CUSTOMERS_BY_USER_NAME);
+        for (PendingInsert pending : batch) {
+            if (byUserName != null) {
+                byUserName.evict(pending.customer.getUserName());
+            }
+            pending.future.complete(pending.customer);
+        }
+    }
+
+    private void addOneByOne(List<PendingInsert> batch) {
+        for (PendingInsert pending : batch) {
+            pending.customer.setId(null);
+            try {
+                pending.future.complete(customerManagementService.addCustomer(pending.customer));
+            } catch (Throwable e) {
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void failAll(List<PendingInsert> batch, Throwable e) {
+        logger.error("Inserting a batch of {} customers failed", batch.size(), e);
+        batch.forEach(pending -> {
+            pending.customer.setId(null);
+            pending.future.completeExceptionally(e);
+        });
+    }
+
+    static final class PendingInsert {
+        private final Customer customer;
+        private final CompletableFuture<Customer> future = new CompletableFuture<>();
+
+        private PendingInsert(Customer customer) {
+            this.customer = customer;
+        }
+    }
+}
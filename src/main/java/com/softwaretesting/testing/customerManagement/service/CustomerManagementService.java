@@ -1,17 +1,26 @@
 package com.softwaretesting.testing.customerManagement.service;
 
+import com.softwaretesting.testing.dto.outbound.CustomerOutDTO;
+import com.softwaretesting.testing.index.CustomerSearchIndex;
 import com.softwaretesting.testing.model.Customer;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface CustomerManagementService {
 
     Collection<Customer> list();
+    List<Customer> listPage(Long afterId, int limit);
+    void forEachCustomer(Consumer<Customer> action);
+    List<CustomerOutDTO> listOutDTOPage(Long afterId, int limit);
+    void forEachCustomerOutDTO(Consumer<CustomerOutDTO> action);
     Customer findByUserName(String userName);
     Customer findById(Long id);
     Customer selectCustomerByPhoneNumber(String phoneNumber);
+    List<Customer> search(String query, CustomerSearchIndex.Field field, boolean fuzzy, int limit);
     void delete(Long customerId);
+    int deleteAll(Collection<Long> customerIds);
     Customer addCustomer(Customer customer);
     Collection<Customer> saveAll(List<Customer> customers);
 }
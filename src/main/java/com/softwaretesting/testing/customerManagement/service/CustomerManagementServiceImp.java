@@ -1,18 +1,47 @@
 package com.softwaretesting.testing.customerManagement.service;
 
+import com.softwaretesting.testing.config.CacheConfig;
+import com.softwaretesting.testing.dto.outbound.CustomerOutDTO;
 import com.softwaretesting.testing.model.Customer;
 import com.softwaretesting.testing.exception.BadRequestException;
 import com.softwaretesting.testing.exception.CustomerNotFoundException;
+import com.softwaretesting.testing.exception.PhoneNumberTakenException;
+import com.softwaretesting.testing.dao.CustomerConstraints;
 import com.softwaretesting.testing.dao.CustomerRepository;
+import com.softwaretesting.testing.event.CustomersAddedEvent;
+import com.softwaretesting.testing.event.CustomersDeletedEvent;
+import com.softwaretesting.testing.index.CustomerReadModel;
+import com.softwaretesting.testing.index.CustomerSearchIndex;
+import com.softwaretesting.testing.index.PhoneNumberFilter;
 import com.softwaretesting.testing.validator.CustomerValidator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 @Service
@@ -23,6 +52,23 @@ public class CustomerManagementServiceImp implements CustomerManagementService {
     @Autowired
     private CustomerValidator customerValidator;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PhoneNumberFilter phoneNumberFilter;
+
+    @Autowired
+    private CustomerReadModel customerReadModel;
+
+    @Autowired
+    private CustomerSearchIndex customerSearchIndex;
+
+    @Autowired
+    private Validator validator;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Transactional(readOnly = true)
     @Override
@@ -33,63 +79,221 @@ public class CustomerManagementServiceImp implements CustomerManagementService {
 
     @Transactional(readOnly = true)
     @Override
+    public List<Customer> listPage(Long afterId, int limit) {
+        return customerRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Hands every customer to the given action, one row at a time. Each entity is detached right after
+     * the action returns, so the persistence context never holds more than one customer.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public void forEachCustomer(Consumer<Customer> action) {
+        try (Stream<Customer> customers = customerRepository.streamAll()) {
+            customers.forEach(customer -> {
+                action.accept(customer);
+                entityManager.detach(customer);
+            });
+        }
+    }
+
+    /**
+     * {@link #listPage} without entities: the rows are mapped to DTOs by the query, or taken from the read model
+     * if it is enabled. No transaction of its own, so a page of the read model takes no connection; the query
+     * runs in the read-only transaction of the repository.
+     */
+    @Override
+    public List<CustomerOutDTO> listOutDTOPage(Long afterId, int limit) {
+        return customerReadModel.listPage(afterId, limit)
+                .orElseGet(() -> customerRepository.findOutDTOsByIdGreaterThan(afterId, PageRequest.of(0, limit)));
+    }
+
+    /**
+     * {@link #forEachCustomer} without entities: the rows are mapped to DTOs by the query, so there is nothing
+     * to detach.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public void forEachCustomerOutDTO(Consumer<CustomerOutDTO> action) {
+        try (Stream<CustomerOutDTO> customers = customerRepository.streamAllOutDTOs()) {
+            customers.forEach(action);
+        }
+    }
+
+    /**
+     * The lookups by user name, id and phone number are answered by the read model once it is available,
+     * a customer it does not know does not exist. Otherwise the query runs in the read-only transaction of
+     * the repository.
+     */
+    @Cacheable(cacheNames = CacheConfig.CUSTOMERS_BY_USER_NAME, key = "#userName", sync = true)
+    @Override
     public Customer findByUserName(String userName) {
-        Optional<Customer> customer = customerRepository.findByUserName(userName);
+        Optional<Customer> customer = customerReadModel.isAvailable()
+                ? customerReadModel.findByUserName(userName)
+                : customerRepository.findByUserName(userName);
 
         customerValidator.validate404(customer, "User-Name", userName);
 
         return customer.get();
     }
 
-    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.CUSTOMERS_BY_ID, key = "#id", sync = true)
     @Override
     public Customer findById(Long id) {
-        Optional<Customer> customer = customerRepository.findById(id);
+        Optional<Customer> customer = customerReadModel.isAvailable()
+                ? customerReadModel.findById(id)
+                : customerRepository.findById(id);
 
         customerValidator.validate404(customer, "id", String.valueOf(id));
 
         return customer.get();
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Most looked up numbers are not registered, the phone number filter answers those without a query.
+     * Not transactional itself, so those lookups do not take a connection either; the query runs in
+     * the read-only transaction of the repository.
+     */
+    @Cacheable(cacheNames = CacheConfig.CUSTOMERS_BY_PHONE_NUMBER, key = "#phoneNumber", sync = true)
     @Override
     public Customer selectCustomerByPhoneNumber(String phoneNumber) {
-        Optional<Customer> customer = customerRepository.selectCustomerByPhoneNumber(phoneNumber);
+        Optional<Customer> customer;
+        if (!phoneNumberFilter.mightContain(phoneNumber)) {
+            customer = Optional.empty();
+        } else if (customerReadModel.isAvailable()) {
+            customer = customerReadModel.findByPhoneNumber(phoneNumber);
+        } else {
+            customer = customerRepository.selectCustomerByPhoneNumber(phoneNumber);
+        }
 
         customerValidator.validate404(customer, "phone number", phoneNumber);
 
         return customer.get();
     }
 
-    @Transactional(rollbackFor = Exception.class)
+    /**
+     * The search index finds the ids, the customers are then read by id in one query, or from the read model
+     * if it is available. Ids of customers deleted in the meantime are dropped.
+     * Fuzzy search is only supported on the name.
+     */
     @Override
-    public void delete(Long customerId) {
+    public List<Customer> search(String query, CustomerSearchIndex.Field field, boolean fuzzy, int limit) {
+        if (fuzzy && field != null && field != CustomerSearchIndex.Field.NAME) {
+            throw new BadRequestException("Fuzzy search is only supported on the name");
+        }
+        if (!customerSearchIndex.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "The search index is disabled");
+        }
+        if (!customerSearchIndex.isAvailable()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "The search index is not built yet");
+        }
+
+        List<Long> ids = fuzzy
+                ? customerSearchIndex.searchFuzzy(query, limit)
+                : customerSearchIndex.searchPrefix(query, field, limit);
 
+        if (customerReadModel.isAvailable()) {
+            return ids.stream()
+                    .map(customerReadModel::findById)
+                    .flatMap(Optional::stream)
+                    .collect(Collectors.toList());
+        }
+        Map<Long, Customer> customers = StreamSupport.stream(customerRepository.findAllById(ids).spliterator(), false)
+                .collect(Collectors.toMap(Customer::getId, Function.identity()));
+        return ids.stream()
+                .map(customers::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
 
-        if(!customerRepository.existsById(customerId)) {
+    /**
+     * Deletes with a single statement, the row count tells whether the customer existed.
+     * The user name and phone number of the customer are unknown here, so those two regions are cleared entirely.
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CUSTOMERS_BY_ID, key = "#customerId"),
+            @CacheEvict(cacheNames = {CacheConfig.CUSTOMERS_BY_USER_NAME, CacheConfig.CUSTOMERS_BY_PHONE_NUMBER}, allEntries = true)
+    })
+    @Transactional(rollbackFor = Exception.class)
+    @Override
+    public void delete(Long customerId) {
+        if (customerRepository.deleteCustomerById(customerId) == 0) {
             throw new CustomerNotFoundException(
                     "Customer with id " + customerId + " does not exists");
         }
+        eventPublisher.publishEvent(new CustomersDeletedEvent(List.of(customerId), 1));
+    }
 
-        customerRepository.deleteById(customerId);
+    /**
+     * Deletes the customers with a single statement. Ids without a customer are skipped.
+     *
+     * @return the number of deleted customers
+     */
+    @CacheEvict(cacheNames = {CacheConfig.CUSTOMERS_BY_ID, CacheConfig.CUSTOMERS_BY_USER_NAME, CacheConfig.CUSTOMERS_BY_PHONE_NUMBER},
+            allEntries = true)
+    @Transactional(rollbackFor = Exception.class)
+    @Override
+    public int deleteAll(Collection<Long> customerIds) {
+        if (customerIds.isEmpty()) {
+            return 0;
+        }
+        int deleted = customerRepository.deleteCustomersByIds(customerIds);
+        if (deleted > 0) {
+            eventPublisher.publishEvent(new CustomersDeletedEvent(List.copyOf(customerIds), deleted));
+        }
+        return deleted;
     }
 
+    /**
+     * Inserts the customer with a single statement and relies on the unique phone number constraint
+     * instead of looking the number up first, which also holds for concurrent inserts of the same number.
+     * User names are not unique, so a cached lookup of the same user name is evicted.
+     */
+    @CacheEvict(cacheNames = CacheConfig.CUSTOMERS_BY_USER_NAME, key = "#customer.userName")
     @Transactional(rollbackFor = Exception.class)
     @Override
     public Customer addCustomer(Customer customer) {
-        Optional<Customer> existsPhoneNumber = customerRepository.selectCustomerByPhoneNumber(customer.getPhoneNumber());
-
-        if (existsPhoneNumber.isPresent()) {
-            throw new BadRequestException(
-                    "Phone Number " + customer.getPhoneNumber() + " taken");
+        Customer savedCustomer;
+        try {
+            savedCustomer = customerRepository.saveAndFlush(customer);
+        } catch (DataIntegrityViolationException e) {
+            if (!CustomerConstraints.isPhoneNumberTaken(e)) {
+                throw e;
+            }
+            throw new PhoneNumberTakenException(customer.getPhoneNumber());
         }
-        return customerRepository.save(customer);
+        eventPublisher.publishEvent(new CustomersAddedEvent(List.of(savedCustomer)));
+        return savedCustomer;
     }
 
+    /**
+     * If none of the customers has an id yet, they are inserted with JDBC batches without going through
+     * the persistence context. Otherwise every customer is saved (persisted or merged) by JPA.
+     *
+     * @throws ConstraintViolationException if one of the customers is not valid, none is saved then
+     */
+    @CacheEvict(cacheNames = {CacheConfig.CUSTOMERS_BY_ID, CacheConfig.CUSTOMERS_BY_USER_NAME, CacheConfig.CUSTOMERS_BY_PHONE_NUMBER},
+            allEntries = true)
     @Transactional(rollbackFor = Exception.class)
     @Override
     public Collection<Customer> saveAll(List<Customer> customers) {
-        return StreamSupport.stream(customerRepository.saveAll(customers).spliterator(), false)
-                .collect(Collectors.toSet());
+        Collection<Customer> savedCustomers;
+        if (customers.stream().allMatch(customer -> customer.getId() == null)) {
+            // JPA validates the entities it persists, the JDBC batches have to do it themselves
+            Set<ConstraintViolation<Customer>> violations = customers.stream()
+                    .flatMap(customer -> validator.validate(customer).stream())
+                    .collect(Collectors.toSet());
+            if (!violations.isEmpty()) {
+                throw new ConstraintViolationException(violations);
+            }
+            customerRepository.insertAll(customers);
+            savedCustomers = new HashSet<>(customers);
+        } else {
+            savedCustomers = StreamSupport.stream(customerRepository.saveAll(customers).spliterator(), false)
+                    .collect(Collectors.toSet());
+        }
+        eventPublisher.publishEvent(new CustomersAddedEvent(savedCustomers));
+        return savedCustomers;
     }
 }
@@ -0,0 +1,76 @@
+package com.softwaretesting.testing.customerManagement.service;
+
+import com.softwaretesting.testing.dao.CustomerConstraints;
+import com.softwaretesting.testing.dao.ReactiveCustomerRepository;
+import com.softwaretesting.testing.event.CustomersAddedEvent;
+import com.softwaretesting.testing.event.CustomersDeletedEvent;
+import com.softwaretesting.testing.exception.CustomerNotFoundException;
+import com.softwaretesting.testing.exception.PhoneNumberTakenException;
+import com.softwaretesting.testing.model.Customer;
+import com.softwaretesting.testing.validator.CustomerValidator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The customer management operations of {@link CustomerManagementService} for the reactive stack.
+ * Lookups go to the DB directly, the caches of the blocking stack are not used.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCustomerManagementService {
+
+    private final ReactiveCustomerRepository customerRepository;
+    private final CustomerValidator customerValidator;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ReactiveCustomerManagementService(ReactiveCustomerRepository customerRepository,
+                                             CustomerValidator customerValidator,
+                                             ApplicationEventPublisher eventPublisher) {
+        this.customerRepository = customerRepository;
+        this.customerValidator = customerValidator;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public Flux<Customer> list() {
+        return customerRepository.findAll();
+    }
+
+    public Flux<Customer> listPage(long afterId, int limit) {
+        return customerRepository.findPage(afterId, limit);
+    }
+
+    public Mono<Customer> findById(long id) {
+        return customerRepository.findById(id)
+                .switchIfEmpty(Mono.fromRunnable(
+                        () -> customerValidator.validate404(Optional.empty(), "id", String.valueOf(id))));
+    }
+
+    public Mono<Void> delete(long customerId) {
+        return customerRepository.deleteById(customerId)
+                .flatMap(deleted -> {
+                    if (!deleted) {
+                        return Mono.error(new CustomerNotFoundException(
+                                "Customer with id " + customerId + " does not exists"));
+                    }
+                    eventPublisher.publishEvent(new CustomersDeletedEvent(List.of(customerId), 1));
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Inserts the customer and relies on the unique phone number constraint, like
+     * {@link CustomerManagementServiceImp#addCustomer}.
+     */
+    public Mono<Customer> addCustomer(Customer customer) {
+        return customerRepository.insert(customer)
+                .onErrorMap(CustomerConstraints::isPhoneNumberTaken,
+                        e -> new PhoneNumberTakenException(customer.getPhoneNumber()))
+                .doOnNext(savedCustomer -> eventPublisher.publishEvent(new CustomersAddedEvent(List.of(savedCustomer))));
+    }
+}
@@ -1,20 +1,50 @@
 package com.softwaretesting.testing.customerRegistration.controller;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.softwaretesting.testing.customerRegistration.service.RegistrationResult;
 import com.softwaretesting.testing.dto.inbound.CustomerInDTO;
 import com.softwaretesting.testing.dto.outbound.CustomerOutDTO;
+import com.softwaretesting.testing.dto.outbound.RegistrationResultDTO;
 import com.softwaretesting.testing.model.Customer;
 import com.softwaretesting.testing.customerRegistration.service.CustomerRegistrationService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 
 @RestController
 @RequestMapping("api/v1/customer-registration")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class CustomerRegistrationController {
 
     private final CustomerRegistrationService customerRegistrationService;
 
-    public CustomerRegistrationController(CustomerRegistrationService customerRegistrationService) {
+    private final ObjectMapper objectMapper;
+
+    private final int chunkSize;
+
+    public CustomerRegistrationController(CustomerRegistrationService customerRegistrationService,
+                                          ObjectMapper objectMapper,
+                                          @Value("${customer.registration.batch-chunk-size:1000}") int chunkSize) {
         this.customerRegistrationService = customerRegistrationService;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
     }
 
 
@@ -24,4 +54,66 @@ public class CustomerRegistrationController {
         customerRegistrationService.registerNewCustomer(customer);
         return new CustomerOutDTO(customer);
     }
+
+    /**
+     * Registers every customer of a JSON array or a newline delimited JSON stream, in chunks of
+     * customer.registration.batch-chunk-size. One result per customer is returned in the same order and format.
+     * <p>
+     * The results are written only after the whole body was read: most HTTP clients do not read the response
+     * before they finished sending the request, so writing earlier could block both sides once the buffers are full.
+     */
+    @PostMapping(value = "batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<StreamingResponseBody> registerNewCustomers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            HttpServletRequest request) throws IOException {
+        boolean ndjson = MediaType.APPLICATION_NDJSON.equalsTypeAndSubtype(contentType);
+        InputStream body = request.getInputStream();
+
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(outputStream -> writeResults(outputStream, ndjson, registerChunks(body)));
+    }
+
+    private List<RegistrationResultDTO> registerChunks(InputStream body) throws IOException {
+        List<RegistrationResultDTO> results = new ArrayList<>();
+
+        ObjectReader reader = objectMapper.readerFor(CustomerInDTO.class);
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            // either the elements of an array or a sequence of root values
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+            List<Customer> chunk = new ArrayList<>(chunkSize);
+            for (; token != null && !(array && token == JsonToken.END_ARRAY); token = parser.nextToken()) {
+                // a null element is rejected by the service like any other invalid customer
+                chunk.add(token == JsonToken.VALUE_NULL ? null : reader.<CustomerInDTO>readValue(parser).toEntity());
+                if (chunk.size() == chunkSize) {
+                    addResults(results, customerRegistrationService.registerNewCustomers(chunk));
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                addResults(results, customerRegistrationService.registerNewCustomers(chunk));
+            }
+        }
+        return results;
+    }
+
+    private static void addResults(List<RegistrationResultDTO> results, List<RegistrationResult> chunkResults) {
+        for (RegistrationResult result : chunkResults) {
+            results.add(new RegistrationResultDTO(results.size(), result));
+        }
+    }
+
+    private void writeResults(OutputStream outputStream, boolean ndjson, List<RegistrationResultDTO> results) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(RegistrationResultDTO.class);
+
+        try (SequenceWriter sequence = ndjson
+                ? writer.withRootValueSeparator("\n").writeValues(outputStream)
+                : writer.writeValuesAsArray(outputStream)) {
+            sequence.writeAll(results);
+        }
+    }
 }
@@ -0,0 +1,93 @@
+package com.softwaretesting.testing.customerRegistration.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.softwaretesting.testing.customerRegistration.service.ReactiveCustomerRegistrationService;
+import com.softwaretesting.testing.dto.inbound.CustomerInDTO;
+import com.softwaretesting.testing.dto.outbound.CustomerOutDTO;
+import com.softwaretesting.testing.dto.outbound.RegistrationResultDTO;
+import com.softwaretesting.testing.model.Customer;
+import com.softwaretesting.testing.util.JsonSequences;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * The routes of {@link CustomerRegistrationController} on WebFlux and R2DBC, active with
+ * spring.main.web-application-type=reactive.
+ */
+@RestController
+@RequestMapping("api/v1/customer-registration")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCustomerRegistrationController {
+
+    private final ReactiveCustomerRegistrationService customerRegistrationService;
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectWriter writer;
+
+    private final int chunkSize;
+
+    public ReactiveCustomerRegistrationController(ReactiveCustomerRegistrationService customerRegistrationService,
+                                                  ObjectMapper objectMapper,
+                                                  @Value("${customer.registration.batch-chunk-size:1000}") int chunkSize) {
+        this.customerRegistrationService = customerRegistrationService;
+        this.objectMapper = objectMapper;
+        this.writer = objectMapper.writerFor(RegistrationResultDTO.class);
+        this.chunkSize = chunkSize;
+    }
+
+    @PostMapping
+    public Mono<CustomerOutDTO> registerNewCustomer(@RequestBody CustomerInDTO dto) {
+        return customerRegistrationService.registerNewCustomer(dto.toEntity()).map(CustomerOutDTO::new);
+    }
+
+    /**
+     * Registers every customer of a JSON array or a newline delimited JSON stream in chunks, like
+     * {@link CustomerRegistrationController#registerNewCustomers}. The body is decoded customer by customer while
+     * it arrives; the results are written once all of it was read, for the same reason as there. The elements
+     * are decoded as trees first: the decoder drops a null element, which would shift the index of the results
+     * after it, a {@link JsonNode} keeps it as a customer that is missing.
+     */
+    @PostMapping(value = "batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<ResponseEntity<Flux<DataBuffer>>> registerNewCustomers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            @RequestBody Flux<JsonNode> customers) {
+        boolean ndjson = MediaType.APPLICATION_NDJSON.equalsTypeAndSubtype(contentType);
+
+        return customers.map(this::toCustomer)
+                .buffer(chunkSize)
+                .concatMap(chunk -> customerRegistrationService.registerNewCustomers(chunk.stream()
+                        .map(customer -> customer.orElse(null))
+                        .collect(Collectors.toList())))
+                .concatMapIterable(results -> results)
+                .index((index, result) -> new RegistrationResultDTO(index.intValue(), result))
+                .collectList()
+                .map(results -> ResponseEntity.ok()
+                        .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                        .body(JsonSequences.write(Flux.fromIterable(results), writer, ndjson)));
+    }
+
+    private Optional<Customer> toCustomer(JsonNode node) {
+        if (node.isNull()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(objectMapper.convertValue(node, CustomerInDTO.class).toEntity());
+        } catch (IllegalArgumentException e) {
+            throw new ServerWebInputException("Invalid customer", null, e);
+        }
+    }
+}
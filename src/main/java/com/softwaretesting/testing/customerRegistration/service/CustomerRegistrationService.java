@@ -1,46 +1,220 @@
 package com.softwaretesting.testing.customerRegistration.service;
 
+import com.softwaretesting.testing.config.CacheConfig;
+import com.softwaretesting.testing.dao.CustomerConstraints;
 import com.softwaretesting.testing.dao.CustomerRepository;
-import com.softwaretesting.testing.exception.BadRequestException;
+import com.softwaretesting.testing.event.CustomersAddedEvent;
+import com.softwaretesting.testing.exception.CustomerAlreadyRegisteredException;
+import com.softwaretesting.testing.exception.PhoneNumberTakenException;
+import com.softwaretesting.testing.index.PhoneNumberFilter;
 import com.softwaretesting.testing.model.Customer;
+import com.softwaretesting.testing.validator.PhoneNumberValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Optional;
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class CustomerRegistrationService {
     final Logger logger = LoggerFactory.getLogger(CustomerRegistrationService.class);
 
     private final CustomerRepository customerRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PhoneNumberValidator phoneNumberValidator;
+    private final PhoneNumberFilter phoneNumberFilter;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
-    public CustomerRegistrationService(CustomerRepository customerRepository) {
+    public CustomerRegistrationService(CustomerRepository customerRepository,
+                                       ApplicationEventPublisher eventPublisher,
+                                       PhoneNumberValidator phoneNumberValidator,
+                                       PhoneNumberFilter phoneNumberFilter,
+                                       Validator validator,
+                                       PlatformTransactionManager transactionManager) {
         this.customerRepository = customerRepository;
+        this.eventPublisher = eventPublisher;
+        this.phoneNumberValidator = phoneNumberValidator;
+        this.phoneNumberFilter = phoneNumberFilter;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setName("CustomerRegistrationService.insertAll");
     }
 
 
-    @Transactional(rollbackFor = Exception.class)
+    /**
+     * Registers the customer with a single insert. Only if the unique phone number constraint rejects it,
+     * the current holder of the number is looked up to tell the caller why.
+     * <p>
+     * Deliberately not transactional: the lookup has to run after the failed insert was rolled back.
+     */
+    @CacheEvict(cacheNames = CacheConfig.CUSTOMERS_BY_USER_NAME, key = "#customer.userName")
     public Customer registerNewCustomer(Customer customer) {
-        Optional<Customer> existsPhoneNumber = customerRepository.selectCustomerByPhoneNumber(customer.getPhoneNumber());
-
         //TODO: Validate customer phone number
 
-        if (existsPhoneNumber.isPresent()) {
-            Customer existingCustomer = existsPhoneNumber.get();
-            if (existingCustomer.getName().equals(customer.getName())) {
-                logger.error("Customer already registered: %s".formatted(customer));
-                throw new IllegalStateException("You are already registered");
+        Customer savedCustomer;
+        try {
+            savedCustomer = customerRepository.saveAndFlush(customer);
+        } catch (DataIntegrityViolationException e) {
+            if (!CustomerConstraints.isPhoneNumberTaken(e)) {
+                throw e;
             }
-            logger.error("Phone Number %s taken".formatted(customer.getPhoneNumber()));
-            throw new BadRequestException(
-                    "Phone Number " + customer.getPhoneNumber() + " taken");
+            throw rejectTakenPhoneNumber(customer);
         }
         logger.info("Customer %s successfully registered");
-        return customerRepository.save(customer);
+        eventPublisher.publishEvent(new CustomersAddedEvent(List.of(savedCustomer)));
+        return savedCustomer;
+    }
+
+    /**
+     * Registers a chunk of customers and returns one result per customer, in the same order.
+     * <p>
+     * The customers are validated first, missing ones (null elements) included. Numbers that appear twice in the
+     * chunk or that the phone number filter cannot rule out are checked with a single IN query, the remaining
+     * customers are inserted with JDBC batches in one transaction. If a concurrent registration takes one of the
+     * numbers in between, or another constraint rejects one of them, that transaction is rolled back and the
+     * customers are registered one by one instead.
+     * <p>
+     * The user names are not known to the cache annotation, so the whole user name region is evicted.
+     */
+    @CacheEvict(cacheNames = CacheConfig.CUSTOMERS_BY_USER_NAME, allEntries = true)
+    public List<RegistrationResult> registerNewCustomers(List<Customer> customers) {
+        RegistrationResult[] results = new RegistrationResult[customers.size()];
+        Map<String, Customer> firstByPhoneNumber = new HashMap<>();
+        List<String> maybeRegistered = new ArrayList<>();
+
+        for (int i = 0; i < customers.size(); i++) {
+            Customer customer = customers.get(i);
+            results[i] = rejectInvalid(customer, phoneNumberValidator, validator);
+            if (results[i] != null) {
+                continue;
+            }
+            String phoneNumber = customer.getPhoneNumber();
+            if (firstByPhoneNumber.putIfAbsent(phoneNumber, customer) == null
+                    && phoneNumberFilter.mightContain(phoneNumber)) {
+                maybeRegistered.add(phoneNumber);
+            }
+        }
+
+        Map<String, Customer> registered = maybeRegistered.isEmpty()
+                ? Map.of()
+                : customerRepository.findByPhoneNumberIn(maybeRegistered).stream()
+                        .collect(Collectors.toMap(Customer::getPhoneNumber, Function.identity()));
+
+        List<Customer> newCustomers = new ArrayList<>();
+        for (int i = 0; i < customers.size(); i++) {
+            Customer customer = customers.get(i);
+            if (results[i] != null) {
+                continue;
+            }
+            Customer holder = registered.get(customer.getPhoneNumber());
+            if (holder == null && firstByPhoneNumber.get(customer.getPhoneNumber()) != customer) {
+                holder = firstByPhoneNumber.get(customer.getPhoneNumber());
+            }
+            if (holder != null) {
+                results[i] = rejectTakenPhoneNumber(customer, holder);
+            } else {
+                newCustomers.add(customer);
+            }
+        }
+
+        if (!newCustomers.isEmpty()) {
+            insertAll(newCustomers);
+        }
+        for (int i = 0; i < customers.size(); i++) {
+            if (results[i] == null) {
+                results[i] = registerFallback(customers.get(i));
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Inserts the customers in one transaction, or none of them if one of the numbers was taken in between or
+     * another constraint rejected one of them. Customers that were not inserted have no id afterwards.
+     */
+    private void insertAll(List<Customer> customers) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                customerRepository.insertAll(customers);
+                eventPublisher.publishEvent(new CustomersAddedEvent(new ArrayList<>(customers)));
+            });
+            logger.info("{} customers successfully registered", customers.size());
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("Constraint violated while registering {} customers, registering them one by one", customers.size());
+            customers.forEach(customer -> customer.setId(null));
+        }
+    }
+
+    private RegistrationResult registerFallback(Customer customer) {
+        if (customer.getId() != null) {
+            return RegistrationResult.registered(customer);
+        }
+        try {
+            return RegistrationResult.registered(registerNewCustomer(customer));
+        } catch (CustomerAlreadyRegisteredException e) {
+            return RegistrationResult.rejected(RegistrationResult.Status.ALREADY_REGISTERED, customer, e.getMessage());
+        } catch (PhoneNumberTakenException e) {
+            return RegistrationResult.rejected(RegistrationResult.Status.PHONE_NUMBER_TAKEN, customer, e.getMessage());
+        } catch (DataIntegrityViolationException | ConstraintViolationException e) {
+            logger.warn("Customer {} rejected by a constraint", customer.getUserName(), e);
+            return RegistrationResult.rejected(RegistrationResult.Status.INVALID, customer, "Customer is invalid");
+        }
+    }
+
+    /**
+     * @return the rejection of a customer that cannot be registered like this, or null if it is valid
+     */
+    static RegistrationResult rejectInvalid(Customer customer, PhoneNumberValidator phoneNumberValidator,
+                                            Validator validator) {
+        if (customer == null) {
+            return RegistrationResult.rejected(RegistrationResult.Status.INVALID, null, "Customer is missing");
+        }
+        String phoneNumber = customer.getPhoneNumber();
+        if (phoneNumber == null || !phoneNumberValidator.validate(phoneNumber)) {
+            return RegistrationResult.rejected(RegistrationResult.Status.INVALID_PHONE_NUMBER, customer,
+                    "Phone Number " + phoneNumber + " is invalid");
+        }
+        Set<ConstraintViolation<Customer>> violations = validator.validate(customer);
+        if (!violations.isEmpty()) {
+            return RegistrationResult.rejected(RegistrationResult.Status.INVALID, customer, violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+        return null;
+    }
+
+    static RegistrationResult rejectTakenPhoneNumber(Customer customer, Customer holder) {
+        if (Objects.equals(holder.getName(), customer.getName())) {
+            return RegistrationResult.rejected(RegistrationResult.Status.ALREADY_REGISTERED, customer,
+                    "You are already registered");
+        }
+        return RegistrationResult.rejected(RegistrationResult.Status.PHONE_NUMBER_TAKEN, customer,
+                "Phone Number " + customer.getPhoneNumber() + " taken");
+    }
+
+    private RuntimeException rejectTakenPhoneNumber(Customer customer) {
+        Optional<Customer> existsPhoneNumber = customerRepository.selectCustomerByPhoneNumber(customer.getPhoneNumber());
+
+        if (existsPhoneNumber.isPresent() && existsPhoneNumber.get().getName().equals(customer.getName())) {
+            logger.error("Customer already registered: %s".formatted(customer));
+            return new CustomerAlreadyRegisteredException();
+        }
+        logger.error("Phone Number %s taken".formatted(customer.getPhoneNumber()));
+        return new PhoneNumberTakenException(customer.getPhoneNumber());
     }
 }
 
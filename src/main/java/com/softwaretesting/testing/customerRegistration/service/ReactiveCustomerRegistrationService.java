@@ -0,0 +1,149 @@
+package com.softwaretesting.testing.customerRegistration.service;
+
+import com.softwaretesting.testing.dao.CustomerConstraints;
+import com.softwaretesting.testing.dao.ReactiveCustomerRepository;
+import com.softwaretesting.testing.event.CustomersAddedEvent;
+import com.softwaretesting.testing.exception.CustomerAlreadyRegisteredException;
+import com.softwaretesting.testing.exception.PhoneNumberTakenException;
+import com.softwaretesting.testing.index.PhoneNumberFilter;
+import com.softwaretesting.testing.model.Customer;
+import com.softwaretesting.testing.validator.PhoneNumberValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Validator;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * The registration of {@link CustomerRegistrationService} for the reactive stack.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCustomerRegistrationService {
+    final Logger logger = LoggerFactory.getLogger(ReactiveCustomerRegistrationService.class);
+
+    private final ReactiveCustomerRepository customerRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PhoneNumberValidator phoneNumberValidator;
+    private final PhoneNumberFilter phoneNumberFilter;
+    private final Validator validator;
+
+    public ReactiveCustomerRegistrationService(ReactiveCustomerRepository customerRepository,
+                                               ApplicationEventPublisher eventPublisher,
+                                               PhoneNumberValidator phoneNumberValidator,
+                                               PhoneNumberFilter phoneNumberFilter,
+                                               Validator validator) {
+        this.customerRepository = customerRepository;
+        this.eventPublisher = eventPublisher;
+        this.phoneNumberValidator = phoneNumberValidator;
+        this.phoneNumberFilter = phoneNumberFilter;
+        this.validator = validator;
+    }
+
+    /**
+     * Registers the customer with a single insert, see {@link CustomerRegistrationService#registerNewCustomer}.
+     */
+    public Mono<Customer> registerNewCustomer(Customer customer) {
+        return customerRepository.insert(customer)
+                .onErrorResume(CustomerConstraints::isPhoneNumberTaken, e -> rejectTakenPhoneNumber(customer))
+                .doOnNext(savedCustomer -> {
+                    logger.info("Customer {} successfully registered", savedCustomer.getId());
+                    eventPublisher.publishEvent(new CustomersAddedEvent(List.of(savedCustomer)));
+                });
+    }
+
+    /**
+     * Registers a chunk of customers and emits one result per customer, in the same order. The customers are
+     * checked like in {@link CustomerRegistrationService#registerNewCustomers}, then inserted one after the other
+     * without a common transaction: a customer whose number was taken in between, or that violates another
+     * constraint, is rejected on its own.
+     */
+    public Mono<List<RegistrationResult>> registerNewCustomers(List<Customer> customers) {
+        RegistrationResult[] results = new RegistrationResult[customers.size()];
+        Map<String, Customer> firstByPhoneNumber = new HashMap<>();
+        List<String> maybeRegistered = new ArrayList<>();
+
+        for (int i = 0; i < customers.size(); i++) {
+            Customer customer = customers.get(i);
+            results[i] = CustomerRegistrationService.rejectInvalid(customer, phoneNumberValidator, validator);
+            if (results[i] != null) {
+                continue;
+            }
+            String phoneNumber = customer.getPhoneNumber();
+            if (firstByPhoneNumber.putIfAbsent(phoneNumber, customer) == null
+                    && phoneNumberFilter.mightContain(phoneNumber)) {
+                maybeRegistered.add(phoneNumber);
+            }
+        }
+
+        Mono<Map<String, Customer>> registered = maybeRegistered.isEmpty()
+                ? Mono.just(Map.of())
+                : customerRepository.findByPhoneNumberIn(maybeRegistered).collectMap(Customer::getPhoneNumber);
+
+        return registered
+                .flatMapMany(holders -> Flux.range(0, customers.size()).concatMap(i -> {
+                    Customer customer = customers.get(i);
+                    if (results[i] != null) {
+                        return Mono.just(results[i]);
+                    }
+                    Customer holder = holders.get(customer.getPhoneNumber());
+                    if (holder == null && firstByPhoneNumber.get(customer.getPhoneNumber()) != customer) {
+                        holder = firstByPhoneNumber.get(customer.getPhoneNumber());
+                    }
+                    if (holder != null) {
+                        return Mono.just(CustomerRegistrationService.rejectTakenPhoneNumber(customer, holder));
+                    }
+                    return insert(customer);
+                }))
+                .collectList()
+                .doOnNext(this::publishRegistered);
+    }
+
+    private Mono<RegistrationResult> insert(Customer customer) {
+        return customerRepository.insert(customer)
+                .map(RegistrationResult::registered)
+                .onErrorResume(CustomerConstraints::isPhoneNumberTaken, e -> customerRepository
+                        .findByPhoneNumber(customer.getPhoneNumber())
+                        .map(holder -> CustomerRegistrationService.rejectTakenPhoneNumber(customer, holder))
+                        .defaultIfEmpty(RegistrationResult.rejected(RegistrationResult.Status.PHONE_NUMBER_TAKEN,
+                                customer, "Phone Number " + customer.getPhoneNumber() + " taken")))
+                .onErrorResume(DataIntegrityViolationException.class, e -> {
+                    logger.warn("Customer {} rejected by a constraint", customer.getUserName(), e);
+                    return Mono.just(RegistrationResult.rejected(RegistrationResult.Status.INVALID, customer,
+                            "Customer is invalid"));
+                });
+    }
+
+    private void publishRegistered(List<RegistrationResult> results) {
+        List<Customer> registered = results.stream()
+                .filter(result -> result.getStatus() == RegistrationResult.Status.REGISTERED)
+                .map(RegistrationResult::getCustomer)
+                .collect(Collectors.toList());
+        if (!registered.isEmpty()) {
+            logger.info("{} customers successfully registered", registered.size());
+            eventPublisher.publishEvent(new CustomersAddedEvent(registered));
+        }
+    }
+
+    private Mono<Customer> rejectTakenPhoneNumber(Customer customer) {
+        return customerRepository.findByPhoneNumber(customer.getPhoneNumber())
+                .filter(holder -> holder.getName().equals(customer.getName()))
+                .<RuntimeException>map(holder -> {
+                    logger.error("Customer already registered: %s".formatted(customer));
+                    return new CustomerAlreadyRegisteredException();
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    logger.error("Phone Number %s taken".formatted(customer.getPhoneNumber()));
+                    return new PhoneNumberTakenException(customer.getPhoneNumber());
+                }))
+                .flatMap(Mono::error);
+    }
+}
@@ -0,0 +1,47 @@
+package com.softwaretesting.testing.customerRegistration.service;
+
+import com.softwaretesting.testing.model.Customer;
+
+/**
+ * Outcome of registering one customer of a batch.
+ */
+public class RegistrationResult {
+
+    public enum Status {
+        REGISTERED,
+        ALREADY_REGISTERED,
+        PHONE_NUMBER_TAKEN,
+        INVALID_PHONE_NUMBER,
+        INVALID
+    }
+
+    private final Status status;
+    private final Customer customer;
+    private final String message;
+
+    private RegistrationResult(Status status, Customer customer, String message) {
+        this.status = status;
+        this.customer = customer;
+        this.message = message;
+    }
+
+    public static RegistrationResult registered(Customer customer) {
+        return new RegistrationResult(Status.REGISTERED, customer, null);
+    }
+
+    public static RegistrationResult rejected(Status status, Customer customer, String message) {
+        return new RegistrationResult(status, customer, message);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Customer getCustomer() {
+        return customer;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
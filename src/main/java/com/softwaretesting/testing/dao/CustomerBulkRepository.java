@@ -0,0 +1,31 @@
+package com.softwaretesting.testing.dao;
+
+import com.softwaretesting.testing.model.Customer;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Bulk operations on the customer table that bypass the persistence context.
+ */
+public interface CustomerBulkRepository {
+
+    /**
+     * Inserts new customers with plain JDBC batches. Ids are taken from CUSTOMER_SEQ in the same blocks
+     * Hibernate's pooled optimizer uses and are set on the given customers.
+     *
+     * @param customers customers without an id
+     */
+    void insertAll(Collection<Customer> customers);
+
+    /**
+     * Hands the phone number of every customer to the given action, reading the table with a plain JDBC cursor.
+     */
+    void forEachPhoneNumber(Consumer<String> action);
+
+    /**
+     * Hands every customer to the given action in id order, reading the table with a plain JDBC cursor.
+     * The customers are not managed entities.
+     */
+    void forEachCustomerRow(Consumer<Customer> action);
+}
@@ -0,0 +1,98 @@
+package com.softwaretesting.testing.dao;
+
+import com.softwaretesting.testing.model.Customer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+class CustomerBulkRepositoryImpl implements CustomerBulkRepository {
+
+    /**
+     * Has to match the allocationSize of the customer_seq generator on {@link Customer#getId()}.
+     */
+    static final int ID_BLOCK_SIZE = 50;
+
+    private static final int FETCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    CustomerBulkRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertAll(Collection<Customer> customers) {
+        assignIds(customers);
+
+        jdbcTemplate.batchUpdate(
+                "insert into customer (id, user_name, name, phone_number) values (?, ?, ?, ?)",
+                customers,
+                batchSize,
+                (statement, customer) -> {
+                    statement.setLong(1, customer.getId());
+                    statement.setString(2, customer.getUserName());
+                    statement.setString(3, customer.getName());
+                    statement.setString(4, customer.getPhoneNumber());
+                });
+    }
+
+    @Override
+    public void forEachPhoneNumber(Consumer<String> action) {
+        jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement("select phone_number from customer");
+                    statement.setFetchSize(FETCH_SIZE);
+                    return statement;
+                },
+                (RowCallbackHandler) resultSet -> action.accept(resultSet.getString(1)));
+    }
+
+    @Override
+    public void forEachCustomerRow(Consumer<Customer> action) {
+        jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                            "select id, user_name, name, phone_number from customer order by id");
+                    statement.setFetchSize(FETCH_SIZE);
+                    return statement;
+                },
+                (RowCallbackHandler) resultSet -> action.accept(new Customer(
+                        resultSet.getLong(1),
+                        resultSet.getString(2),
+                        resultSet.getString(3),
+                        resultSet.getString(4))));
+    }
+
+    /**
+     * Every value v returned by the sequence reserves the ids (v - 50, v], like the pooled optimizer does.
+     * The very first value of the sequence would reserve ids below 1, so it is skipped.
+     */
+    private void assignIds(Collection<Customer> customers) {
+        Iterator<Customer> iterator = customers.iterator();
+        while (iterator.hasNext()) {
+            long hi = nextSequenceValue();
+            if (hi < ID_BLOCK_SIZE) {
+                hi = nextSequenceValue();
+            }
+            for (long id = hi - ID_BLOCK_SIZE + 1; id <= hi && iterator.hasNext(); id++) {
+                iterator.next().setId(id);
+            }
+        }
+    }
+
+    private long nextSequenceValue() {
+        Long value = jdbcTemplate.queryForObject("select next value for customer_seq", Long.class);
+        if (value == null) {
+            throw new IllegalStateException("customer_seq returned no value");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,47 @@
+package com.softwaretesting.testing.dao;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
+
+/**
+ * Names of the constraints on the customer table, and helpers to tell which one a violation is about.
+ */
+public final class CustomerConstraints {
+
+    public static final String PHONE_NUMBER_UNIQUE = "UK_CUSTOMER_PHONE_NUMBER";
+
+    private CustomerConstraints() {
+        throw new UnsupportedOperationException("Instantiation of utility class is not allowed");
+    }
+
+    /**
+     * Checks whether the given violation was caused by inserting a phone number that is already taken.
+     * Works for violations raised through Hibernate as well as through plain JDBC.
+     */
+    public static boolean isPhoneNumberTaken(DataIntegrityViolationException exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException
+                    && mentionsPhoneNumberConstraint(((ConstraintViolationException) cause).getConstraintName())) {
+                return true;
+            }
+            if (mentionsPhoneNumberConstraint(cause.getMessage())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Same as {@link #isPhoneNumberTaken(DataIntegrityViolationException)}, for error signals of the reactive stack.
+     */
+    public static boolean isPhoneNumberTaken(Throwable error) {
+        return error instanceof DataIntegrityViolationException
+                && isPhoneNumberTaken((DataIntegrityViolationException) error);
+    }
+
+    private static boolean mentionsPhoneNumberConstraint(String text) {
+        return text != null && text.toUpperCase(Locale.ROOT).contains(PHONE_NUMBER_UNIQUE);
+    }
+}
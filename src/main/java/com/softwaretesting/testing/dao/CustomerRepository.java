@@ -1,15 +1,33 @@
 package com.softwaretesting.testing.dao;
 
+import com.softwaretesting.testing.dto.outbound.CustomerOutDTO;
 import com.softwaretesting.testing.model.Customer;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface CustomerRepository extends CrudRepository<Customer, Long> {
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+public interface CustomerRepository extends CrudRepository<Customer, Long>, CustomerBulkRepository {
     Optional<Customer> findByUserName(String userName);
 
+    /**
+     * Inserts (or merges) the customer and flushes right away, so a violated constraint surfaces here
+     * as a {@link org.springframework.dao.DataIntegrityViolationException}.
+     */
+    Customer saveAndFlush(Customer customer);
+
     @Query(
             value = "select id, user_name, name, phone_number " +
                     "from customer where phone_number = :phone_number",
@@ -18,4 +36,64 @@ public interface CustomerRepository extends CrudRepository<Customer, Long> {
     Optional<Customer> selectCustomerByPhoneNumber(
             @Param("phone_number") String phoneNumber);
 
+    /**
+     * All customers holding one of the given phone numbers, one index lookup per number.
+     */
+    List<Customer> findByPhoneNumberIn(Collection<String> phoneNumbers);
+
+    /**
+     * Keyset pagination: the next {@code pageable.getPageSize()} customers with an id greater than the given cursor.
+     * Walks the primary key index, so the cost of a page does not depend on how far into the table it is.
+     */
+    List<Customer> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Streams all customers in id order. Must be consumed (and closed) inside a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("select c from Customer c order by c.id")
+    Stream<Customer> streamAll();
+
+    /**
+     * Same page as {@link #findByIdGreaterThanOrderByIdAsc}, but the rows are mapped straight to the outbound shape.
+     * The DTOs are not managed, so the persistence context gets no entity or snapshot for them. Runs in a read-only
+     * transaction of its own, like the lookups inherited from {@link CrudRepository}.
+     */
+    @Transactional(readOnly = true)
+    @Query("select new com.softwaretesting.testing.dto.outbound.CustomerOutDTO(c.id, c.userName, c.name, c.phoneNumber) " +
+            "from Customer c where c.id > :id order by c.id")
+    List<CustomerOutDTO> findOutDTOsByIdGreaterThan(@Param("id") Long id, Pageable pageable);
+
+    /**
+     * Same rows as {@link #streamAll()}, mapped straight to the outbound shape. Must be consumed (and closed)
+     * inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.softwaretesting.testing.dto.outbound.CustomerOutDTO(c.id, c.userName, c.name, c.phoneNumber) " +
+            "from Customer c order by c.id")
+    Stream<CustomerOutDTO> streamAllOutDTOs();
+
+    /**
+     * Deletes the customer with a single statement, unlike {@link #deleteById} which loads the entity first.
+     *
+     * @return the number of deleted rows, 0 if there is no customer with the id
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from Customer c where c.id = :id")
+    int deleteCustomerById(@Param("id") Long id);
+
+    /**
+     * Deletes the customers with a single set-based statement. Ids without a customer are skipped.
+     *
+     * @return the number of deleted rows
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from Customer c where c.id in :ids")
+    int deleteCustomersByIds(@Param("ids") Collection<Long> ids);
+
 }
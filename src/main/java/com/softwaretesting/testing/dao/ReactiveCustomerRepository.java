@@ -0,0 +1,144 @@
+package com.softwaretesting.testing.dao;
+
+import com.softwaretesting.testing.model.Customer;
+import io.r2dbc.spi.Row;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Non-blocking access to the customer table for the reactive stack, written against the same schema as
+ * {@link CustomerRepository}. Constraint violations surface as
+ * {@link org.springframework.dao.DataIntegrityViolationException}, like they do through JPA.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCustomerRepository {
+
+    private static final String COLUMNS = "select id, user_name, name, phone_number from customer";
+
+    private final DatabaseClient databaseClient;
+
+    /**
+     * Ids of the blocks reserved from customer_seq that were not handed out yet.
+     */
+    private final Queue<Long> reservedIds = new ConcurrentLinkedQueue<>();
+
+    public ReactiveCustomerRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * All customers in id order. Rows are read as the subscriber requests them.
+     */
+    public Flux<Customer> findAll() {
+        return databaseClient.sql(COLUMNS + " order by id")
+                .map(ReactiveCustomerRepository::toCustomer)
+                .all();
+    }
+
+    /**
+     * Keyset pagination, see {@link CustomerRepository#findByIdGreaterThanOrderByIdAsc}.
+     */
+    public Flux<Customer> findPage(long afterId, int limit) {
+        return databaseClient.sql(COLUMNS + " where id > :after order by id limit :limit")
+                .bind("after", afterId)
+                .bind("limit", limit)
+                .map(ReactiveCustomerRepository::toCustomer)
+                .all();
+    }
+
+    public Mono<Customer> findById(long id) {
+        return databaseClient.sql(COLUMNS + " where id = :id")
+                .bind("id", id)
+                .map(ReactiveCustomerRepository::toCustomer)
+                .one();
+    }
+
+    public Mono<Customer> findByPhoneNumber(String phoneNumber) {
+        return databaseClient.sql(COLUMNS + " where phone_number = :phone_number")
+                .bind("phone_number", phoneNumber)
+                .map(ReactiveCustomerRepository::toCustomer)
+                .one();
+    }
+
+    public Flux<Customer> findByPhoneNumberIn(Collection<String> phoneNumbers) {
+        return databaseClient.sql(COLUMNS + " where phone_number in (:phone_numbers)")
+                .bind("phone_numbers", phoneNumbers)
+                .map(ReactiveCustomerRepository::toCustomer)
+                .all();
+    }
+
+    /**
+     * Inserts the customer with the next free id and sets that id on it.
+     */
+    public Mono<Customer> insert(Customer customer) {
+        return nextId().flatMap(id -> databaseClient
+                .sql("insert into customer (id, user_name, name, phone_number) values (:id, :user_name, :name, :phone_number)")
+                .bind("id", id)
+                .bind("user_name", customer.getUserName())
+                .bind("name", customer.getName())
+                .bind("phone_number", customer.getPhoneNumber())
+                .fetch()
+                .rowsUpdated()
+                .then(Mono.fromSupplier(() -> {
+                    customer.setId(id);
+                    return customer;
+                })));
+    }
+
+    /**
+     * Deletes the customer with a single statement and tells whether it existed.
+     */
+    public Mono<Boolean> deleteById(long id) {
+        return databaseClient.sql("delete from customer where id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated()
+                .map(rows -> rows > 0);
+    }
+
+    /**
+     * Ids come from customer_seq in blocks, like for Hibernate and {@link CustomerBulkRepositoryImpl}:
+     * every sequence value v reserves (v - 50, v], so the stacks never hand out the same id.
+     */
+    private Mono<Long> nextId() {
+        return Mono.defer(() -> {
+            Long id = reservedIds.poll();
+            return id != null ? Mono.just(id) : reserveIdBlock();
+        });
+    }
+
+    private Mono<Long> reserveIdBlock() {
+        return nextSequenceValue()
+                // the very first value of the sequence would reserve ids below 1
+                .flatMap(hi -> hi < CustomerBulkRepositoryImpl.ID_BLOCK_SIZE ? nextSequenceValue() : Mono.just(hi))
+                .map(hi -> {
+                    long first = hi - CustomerBulkRepositoryImpl.ID_BLOCK_SIZE + 1;
+                    for (long id = first + 1; id <= hi; id++) {
+                        reservedIds.offer(id);
+                    }
+                    return first;
+                });
+    }
+
+    private Mono<Long> nextSequenceValue() {
+        return databaseClient.sql("select next value for customer_seq")
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    private static Customer toCustomer(Row row) {
+        return new Customer(
+                row.get("id", Long.class),
+                row.get("user_name", String.class),
+                row.get("name", String.class),
+                row.get("phone_number", String.class));
+    }
+}
@@ -0,0 +1,37 @@
+/**
+ * Outgoing result of a bulk delete: how many distinct ids were given and how many customers were deleted.
+ *
+ *
+ */
+
+package com.softwaretesting.testing.dto.outbound;
+
+public class DeletionResultDTO {
+
+	private int requested;
+	private int deleted;
+
+	public DeletionResultDTO() {
+	}
+
+	public DeletionResultDTO(int requested, int deleted) {
+		this.requested = requested;
+		this.deleted = deleted;
+	}
+
+	public int getRequested() {
+		return requested;
+	}
+
+	public void setRequested(int requested) {
+		this.requested = requested;
+	}
+
+	public int getDeleted() {
+		return deleted;
+	}
+
+	public void setDeleted(int deleted) {
+		this.deleted = deleted;
+	}
+}
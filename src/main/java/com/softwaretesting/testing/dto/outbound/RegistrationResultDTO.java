@@ -0,0 +1,62 @@
+/**
+ * Outgoing result of one customer of a batch registration. The id is only set for registered customers.
+ *
+ *
+ */
+
+package com.softwaretesting.testing.dto.outbound;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.softwaretesting.testing.customerRegistration.service.RegistrationResult;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RegistrationResultDTO {
+
+	private int index;
+	private RegistrationResult.Status status;
+	private Long id;
+	private String message;
+
+	public RegistrationResultDTO() {
+	}
+
+	public RegistrationResultDTO(int index, RegistrationResult result) {
+		this.index = index;
+		this.status = result.getStatus();
+		// a customer rejected by the DB may still have been given an id by Hibernate
+		this.id = result.getStatus() == RegistrationResult.Status.REGISTERED ? result.getCustomer().getId() : null;
+		this.message = result.getMessage();
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public void setIndex(int index) {
+		this.index = index;
+	}
+
+	public RegistrationResult.Status getStatus() {
+		return status;
+	}
+
+	public void setStatus(RegistrationResult.Status status) {
+		this.status = status;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+}
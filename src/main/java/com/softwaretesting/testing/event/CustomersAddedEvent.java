@@ -0,0 +1,22 @@
+package com.softwaretesting.testing.event;
+
+import com.softwaretesting.testing.model.Customer;
+
+import java.util.Collection;
+
+/**
+ * Published by the service layer whenever customers have been inserted.
+ * Listeners that only care about committed data should use a {@code @TransactionalEventListener}.
+ */
+public class CustomersAddedEvent {
+
+    private final Collection<Customer> customers;
+
+    public CustomersAddedEvent(Collection<Customer> customers) {
+        this.customers = customers;
+    }
+
+    public Collection<Customer> getCustomers() {
+        return customers;
+    }
+}
@@ -0,0 +1,31 @@
+package com.softwaretesting.testing.event;
+
+import java.util.Collection;
+
+/**
+ * Published by the service layer whenever customers have been deleted.
+ */
+public class CustomersDeletedEvent {
+
+    private final Collection<Long> customerIds;
+    private final int deletedCount;
+
+    public CustomersDeletedEvent(Collection<Long> customerIds, int deletedCount) {
+        this.customerIds = customerIds;
+        this.deletedCount = deletedCount;
+    }
+
+    /**
+     * @return the ids that were requested to be deleted
+     */
+    public Collection<Long> getCustomerIds() {
+        return customerIds;
+    }
+
+    /**
+     * @return the number of rows that were actually deleted
+     */
+    public int getDeletedCount() {
+        return deletedCount;
+    }
+}
@@ -0,0 +1,11 @@
+package com.softwaretesting.testing.exception;
+
+/**
+ * A customer with the same name and phone number is registered already.
+ */
+public class CustomerAlreadyRegisteredException extends IllegalStateException {
+
+    public CustomerAlreadyRegisteredException() {
+        super("You are already registered");
+    }
+}
@@ -0,0 +1,11 @@
+package com.softwaretesting.testing.exception;
+
+/**
+ * The phone number of a new customer belongs to a different customer already.
+ */
+public class PhoneNumberTakenException extends BadRequestException {
+
+    public PhoneNumberTakenException(String phoneNumber) {
+        super("Phone Number " + phoneNumber + " taken");
+    }
+}
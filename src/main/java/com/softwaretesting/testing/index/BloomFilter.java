@@ -0,0 +1,113 @@
+package com.softwaretesting.testing.index;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over strings. {@link #mightContain} never answers false for a value that was put,
+ * but may answer true for a value that was not. Puts and lookups are safe to run concurrently.
+ * <p>
+ * The k bit positions of a value are derived from two 64-bit hashes (h1 + i * h2), so a value is hashed only once.
+ */
+public class BloomFilter {
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashFunctions;
+
+    private final AtomicLong setBits = new AtomicLong();
+
+    /**
+     * @param expectedInsertions       number of values the filter is sized for
+     * @param falsePositiveProbability false positive probability once that many values were put, in (0, 1)
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions must be positive");
+        }
+        if (!(falsePositiveProbability > 0 && falsePositiveProbability < 1)) {
+            throw new IllegalArgumentException("falsePositiveProbability must be between 0 and 1");
+        }
+
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability) / (LN2 * LN2));
+        int wordCount = (int) Math.min((bits + 63) >>> 6, Integer.MAX_VALUE - 8);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitSize = (long) wordCount << 6;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * LN2));
+    }
+
+    public void put(CharSequence value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 + 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            setBit((hash1 & Long.MAX_VALUE) % bitSize);
+            hash1 += hash2;
+        }
+    }
+
+    public boolean mightContain(CharSequence value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 + 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            if (!getBit((hash1 & Long.MAX_VALUE) % bitSize)) {
+                return false;
+            }
+            hash1 += hash2;
+        }
+        return true;
+    }
+
+    /**
+     * Probability that {@link #mightContain} answers true for a value that was never put,
+     * estimated from the share of bits set so far.
+     */
+    public double expectedFalsePositiveProbability() {
+        return Math.pow((double) setBits.get() / bitSize, hashFunctions);
+    }
+
+    public long bitSize() {
+        return bitSize;
+    }
+
+    public int hashFunctions() {
+        return hashFunctions;
+    }
+
+    private void setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        if ((words.get(word) & mask) != 0) {
+            return;
+        }
+        long previous = words.getAndAccumulate(word, mask, (current, bit) -> current | bit);
+        if ((previous & mask) == 0) {
+            setBits.incrementAndGet();
+        }
+    }
+
+    private boolean getBit(long index) {
+        return (words.get((int) (index >>> 6)) & (1L << index)) != 0;
+    }
+
+    /**
+     * FNV-1a over the chars, followed by the MurmurHash3 finalizer to spread the bits.
+     */
+    private static long hash(CharSequence value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
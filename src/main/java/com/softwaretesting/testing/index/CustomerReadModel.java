@@ -0,0 +1,332 @@
+package com.softwaretesting.testing.index;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.softwaretesting.testing.dao.CustomerRepository;
+import com.softwaretesting.testing.dto.outbound.CustomerOutDTO;
+import com.softwaretesting.testing.event.CustomersAddedEvent;
+import com.softwaretesting.testing.event.CustomersDeletedEvent;
+import com.softwaretesting.testing.model.Customer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Optional in-process read model of the customer table (customer.snapshot.enabled=true): a {@link CustomerSnapshot}
+ * outside the heap that answers the lookups by id, user name and phone number and the list endpoints without
+ * Hibernate or H2.
+ * <p>
+ * The snapshot is built from the DB once the application is ready and rebuilt every
+ * customer.snapshot.rebuild-interval, which also reclaims the space of deleted customers. In between it follows
+ * the customer events the services publish after their transactions committed. Until the first build, or when
+ * disabled, {@link #isAvailable()} is false and the callers read from the DB.
+ * <p>
+ * Reads share a {@link StampedLock}, events and the swap to a rebuilt snapshot take it exclusively. The list reads
+ * take it exclusively as well when customers were added out of id order since the last one, to sort the snapshot
+ * first. The streaming scan takes it for one batch of rows at a time, so a slow client does not hold up the
+ * writers.
+ */
+@Component
+public class CustomerReadModel {
+    final Logger logger = LoggerFactory.getLogger(CustomerReadModel.class);
+
+    static final int SCAN_BATCH_ROWS = 1024;
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString USER_NAME = new SerializedString("userName");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString PHONE_NUMBER = new SerializedString("phoneNumber");
+    private static final SerializableString LINE_SEPARATOR = new SerializedString("\n");
+
+    private final CustomerRepository customerRepository;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * Guarded by {@link #lock}.
+     */
+    private CustomerSnapshot snapshot;
+
+    /**
+     * Events received while {@link #rebuild()} reads the table, replayed on the new snapshot before it is swapped
+     * in. Null if no rebuild is running. Guarded by {@link #lock}.
+     */
+    private List<Consumer<CustomerSnapshot>> pendingEvents;
+
+    public CustomerReadModel(MeterRegistry meterRegistry,
+                             CustomerRepository customerRepository,
+                             ObjectMapper objectMapper,
+                             @Value("${customer.snapshot.enabled:false}") boolean enabled) {
+        this.customerRepository = customerRepository;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+
+        Gauge.builder("customer_snapshot_rows", this, model -> model.read(CustomerSnapshot::size)).
+                description("customers in the in-memory read model").
+                register(meterRegistry);
+        Gauge.builder("customer_snapshot_off_heap_bytes", this, model -> model.read(CustomerSnapshot::offHeapBytes)).
+                baseUnit("bytes").
+                description("direct memory allocated by the in-memory read model").
+                register(meterRegistry);
+    }
+
+    public boolean isAvailable() {
+        long stamp = lock.readLock();
+        try {
+            return snapshot != null;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public Optional<Customer> findById(long id) {
+        return find(current -> current.rowOfId(id));
+    }
+
+    public Optional<Customer> findByUserName(String userName) {
+        return find(current -> current.rowOfUserName(userName));
+    }
+
+    public Optional<Customer> findByPhoneNumber(String phoneNumber) {
+        return find(current -> current.rowOfPhoneNumber(phoneNumber));
+    }
+
+    /**
+     * Keyset pagination like {@link CustomerRepository#findOutDTOsByIdGreaterThan}.
+     *
+     * @return empty if the read model is not built yet
+     */
+    public Optional<List<CustomerOutDTO>> listPage(long afterId, int limit) {
+        long stamp = lockSorted(() -> snapshot);
+        try {
+            if (snapshot == null) {
+                return Optional.empty();
+            }
+            List<CustomerOutDTO> page = new ArrayList<>(Math.min(limit, snapshot.size()));
+            for (int row = snapshot.firstRowAfter(afterId); row < snapshot.rowCount() && page.size() < limit; row++) {
+                if (!snapshot.isDeleted(row)) {
+                    page.add(new CustomerOutDTO(snapshot.customer(row)));
+                }
+            }
+            return Optional.of(page);
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
+
+    /**
+     * Writes all customers in id order in the JSON shape of {@link CustomerOutDTO}, as an array or as newline
+     * delimited JSON. The fields are copied straight from the snapshot into the output, batch by batch, without
+     * objects per customer.
+     *
+     * @return false, having written nothing, if the read model is not built yet
+     */
+    public boolean writeAll(OutputStream outputStream, boolean ndjson) throws IOException {
+        CustomerSnapshot scanned;
+        long stamp = lock.readLock();
+        try {
+            if (snapshot == null) {
+                return false;
+            }
+            scanned = snapshot;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+
+        // a rebuild may swap in a new snapshot meanwhile, the scanned one is not changed anymore after that. Rows
+        // may be sorted between two batches, so every batch continues after the last id written.
+        ByteArrayOutputStream batch = new ByteArrayOutputStream(SCAN_BATCH_ROWS * 128);
+        byte[] scratch = new byte[CustomerSnapshot.MAX_STRING_BYTES];
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(batch)) {
+            if (ndjson) {
+                generator.setRootValueSeparator(LINE_SEPARATOR);
+            } else {
+                generator.writeStartArray();
+            }
+            long lastId = 0;
+            boolean done = false;
+            while (!done) {
+                stamp = lockSorted(() -> scanned);
+                try {
+                    int row = scanned.firstRowAfter(lastId);
+                    int end = Math.min(scanned.rowCount(), row + SCAN_BATCH_ROWS);
+                    for (; row < end; row++) {
+                        if (!scanned.isDeleted(row)) {
+                            writeRow(generator, scanned, row, scratch);
+                        }
+                        lastId = scanned.id(row);
+                    }
+                    done = row >= scanned.rowCount();
+                } finally {
+                    lock.unlock(stamp);
+                }
+                if (done && !ndjson) {
+                    generator.writeEndArray();
+                }
+                generator.flush();
+                batch.writeTo(outputStream);
+                batch.reset();
+            }
+        }
+        return true;
+    }
+
+    private static void writeRow(JsonGenerator generator, CustomerSnapshot snapshot, int row, byte[] scratch)
+            throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(ID);
+        generator.writeNumber(snapshot.id(row));
+        generator.writeFieldName(USER_NAME);
+        generator.writeUTF8String(scratch, 0, snapshot.copyString(row, CustomerSnapshot.USER_NAME, scratch));
+        generator.writeFieldName(NAME);
+        generator.writeUTF8String(scratch, 0, snapshot.copyString(row, CustomerSnapshot.NAME, scratch));
+        generator.writeFieldName(PHONE_NUMBER);
+        generator.writeUTF8String(scratch, 0, snapshot.copyString(row, CustomerSnapshot.PHONE_NUMBER, scratch));
+        generator.writeEndObject();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomersAdded(CustomersAddedEvent event) {
+        apply(target -> event.getCustomers().forEach(target::upsert));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomersDeleted(CustomersDeletedEvent event) {
+        apply(target -> event.getCustomerIds().forEach(target::delete));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${customer.snapshot.rebuild-interval:PT1H}",
+            fixedDelayString = "${customer.snapshot.rebuild-interval:PT1H}")
+    public void scheduledRebuild() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Builds a new snapshot from the table and swaps it in. Customer events that arrive while the table is read
+     * are applied to the current snapshot right away and replayed on the new one before the swap. If reading the
+     * table fails, the current snapshot is kept.
+     */
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        long stamp = lock.writeLock();
+        try {
+            pendingEvents = new ArrayList<>();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+
+        CustomerSnapshot rebuilt = null;
+        try {
+            long expectedRows = customerRepository.count();
+            CustomerSnapshot building = new CustomerSnapshot(
+                    (int) Math.min(Integer.MAX_VALUE / Long.BYTES, expectedRows + expectedRows / 8));
+            customerRepository.forEachCustomerRow(building::upsert);
+            rebuilt = building;
+        } finally {
+            stamp = lock.writeLock();
+            try {
+                if (rebuilt != null) {
+                    for (Consumer<CustomerSnapshot> event : pendingEvents) {
+                        event.accept(rebuilt);
+                    }
+                    snapshot = rebuilt;
+                }
+                pendingEvents = null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        logger.info("Customer snapshot rebuilt in {} ms, {} customers, {} bytes off-heap",
+                (System.nanoTime() - start) / 1_000_000, rebuilt.size(), rebuilt.offHeapBytes());
+    }
+
+    private void apply(Consumer<CustomerSnapshot> event) {
+        long stamp = lock.writeLock();
+        try {
+            if (snapshot != null) {
+                event.accept(snapshot);
+            }
+            if (pendingEvents != null) {
+                pendingEvents.add(event);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Takes the read lock, or the write lock if the snapshot has to be sorted first. Release it with
+     * {@link StampedLock#unlock}.
+     */
+    private long lockSorted(Supplier<CustomerSnapshot> target) {
+        long stamp = lock.readLock();
+        CustomerSnapshot current = target.get();
+        if (current != null && !current.isSorted()) {
+            long writeStamp = lock.tryConvertToWriteLock(stamp);
+            if (writeStamp == 0) {
+                lock.unlockRead(stamp);
+                writeStamp = lock.writeLock();
+                current = target.get();
+            }
+            stamp = writeStamp;
+            if (current != null) {
+                current.sort();
+            }
+        }
+        return stamp;
+    }
+
+    private Optional<Customer> find(ToIntFunction<CustomerSnapshot> lookup) {
+        long stamp = lock.readLock();
+        try {
+            if (snapshot == null) {
+                return Optional.empty();
+            }
+            int row = lookup.applyAsInt(snapshot);
+            return row < 0 ? Optional.empty() : Optional.of(snapshot.customer(row));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private long read(ToLongFunction<CustomerSnapshot> metric) {
+        long stamp = lock.readLock();
+        try {
+            return snapshot == null ? 0 : metric.applyAsLong(snapshot);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+}
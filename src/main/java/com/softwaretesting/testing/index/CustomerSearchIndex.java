@@ -0,0 +1,447 @@
+package com.softwaretesting.testing.index;
+
+import com.softwaretesting.testing.dao.CustomerRepository;
+import com.softwaretesting.testing.event.CustomersAddedEvent;
+import com.softwaretesting.testing.event.CustomersDeletedEvent;
+import com.softwaretesting.testing.model.Customer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory search over user names, names and phone numbers, for GET /api/v1/customers/search.
+ * <p>
+ * Values are compared normalized: lower case, without accents and with single spaces. Prefix search looks the
+ * query up in a {@link TermIndex} per field; names are also indexed word by word, so "mul" finds
+ * "Hans Müller". Fuzzy search compares every word of the query with the words of all names through a
+ * {@link TrigramIndex} and allows 1 edit for words of 3 to 5 characters and 2 for longer ones. Names are indexed
+ * by their pairs of words as well, so a query of several words takes a few lookups of word pairs instead of
+ * intersecting the customers of each word.
+ * <p>
+ * The index is optional (customer.search.enabled=true). It is built from the DB in the background once the
+ * application is ready and follows the customer events afterwards. Deleted customers are only remembered as
+ * deleted and skipped, their terms are dropped by the rebuild every customer.search.rebuild-interval; the same
+ * goes for the old values of customers changed through saveAll. The index keeps about 100 bytes per customer
+ * but its build peaks at about 500, and a rebuild keeps the current index until the new one is built. Until the first build, or when disabled, {@link #isAvailable()} is
+ * false.
+ */
+@Component
+public class CustomerSearchIndex {
+    final Logger logger = LoggerFactory.getLogger(CustomerSearchIndex.class);
+
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    public enum Field {
+        USER_NAME("userName"),
+        NAME("name"),
+        PHONE_NUMBER("phoneNumber");
+
+        private final String parameter;
+
+        Field(String parameter) {
+            this.parameter = parameter;
+        }
+
+        /**
+         * @param parameter the name of the field in the API, like "userName"
+         */
+        public static Optional<Field> fromParameter(String parameter) {
+            return Arrays.stream(values()).filter(field -> field.parameter.equals(parameter)).findFirst();
+        }
+    }
+
+    private final CustomerRepository customerRepository;
+    private final boolean enabled;
+
+    private final Object writeLock = new Object();
+
+    private volatile Indexes indexes;
+
+    /**
+     * Events received while {@link #rebuild()} reads the table, replayed on the new indexes before they are
+     * swapped in. Null if no rebuild is running. Guarded by {@link #writeLock}.
+     */
+    private List<Consumer<Indexes>> pendingEvents;
+
+    public CustomerSearchIndex(MeterRegistry meterRegistry,
+                               CustomerRepository customerRepository,
+                               @Value("${customer.search.enabled:false}") boolean enabled) {
+        this.customerRepository = customerRepository;
+        this.enabled = enabled;
+
+        Gauge.builder("customer_search_terms", this, CustomerSearchIndex::termCount).
+                description("distinct terms in the customer search index").
+                register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isAvailable() {
+        return indexes != null;
+    }
+
+    /**
+     * @return the ids of up to {@code limit} customers where the field, or a word of the name, starts with the
+     * query, in the order of the matched values. Without a field user names are searched first, then names, then
+     * phone numbers.
+     */
+    public List<Long> searchPrefix(String query, Field field, int limit) {
+        Indexes current = requireIndexes();
+        String prefix = normalize(query);
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Field searched : field == null ? Field.values() : new Field[]{field}) {
+            if (!current.byField(searched).forEachWithPrefix(prefix, id -> collect(current, ids, id, limit))) {
+                break;
+            }
+            if (searched == Field.NAME
+                    && !current.nameWords.forEachWithPrefix(prefix, id -> collect(current, ids, id, limit))) {
+                break;
+            }
+        }
+        return new ArrayList<>(ids);
+    }
+
+    /**
+     * @return the ids of up to {@code limit} customers whose name has a word similar to each word of the query,
+     * in any order. A single word is looked up in the words of the names, those with the closest word first. For
+     * more words, the two with the fewest customers are looked up together in the word pairs of the names, and the
+     * customers found are checked against the other words.
+     */
+    public List<Long> searchFuzzy(String query, int limit) {
+        Indexes current = requireIndexes();
+        String normalized = normalize(query);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        List<List<String>> similarWords = new ArrayList<>();
+        List<Long> counts = new ArrayList<>();
+        for (String word : words(normalized)) {
+            List<String> similar = current.nameDictionary.similarTerms(word, maxEdits(word));
+            if (similar.isEmpty()) {
+                return List.of();
+            }
+            long count = 0;
+            for (String term : similar) {
+                count += current.nameWords.count(term);
+            }
+            similarWords.add(similar);
+            counts.add(count);
+        }
+
+        Set<Long> ids = new LinkedHashSet<>();
+        if (similarWords.size() == 1) {
+            for (String word : similarWords.get(0)) {
+                if (!current.nameWords.forEachWithTerm(word, id -> collect(current, ids, id, limit))) {
+                    break;
+                }
+            }
+            return new ArrayList<>(ids);
+        }
+
+        List<String> first = similarWords.remove(indexOfMinimum(counts));
+        List<String> second = similarWords.remove(indexOfMinimum(counts));
+        search:
+        for (String firstWord : first) {
+            for (String secondWord : second) {
+                boolean more = current.nameWordPairs.forEachWithTerm(wordPair(firstWord, secondWord), id ->
+                        !hasAllWords(current, id, similarWords) || collect(current, ids, id, limit));
+                if (!more) {
+                    break search;
+                }
+            }
+        }
+        return new ArrayList<>(ids);
+    }
+
+    /**
+     * Removes the smallest count.
+     *
+     * @return its index
+     */
+    private static int indexOfMinimum(List<Long> counts) {
+        int minimum = 0;
+        for (int i = 1; i < counts.size(); i++) {
+            if (counts.get(i) < counts.get(minimum)) {
+                minimum = i;
+            }
+        }
+        counts.remove(minimum);
+        return minimum;
+    }
+
+    /**
+     * @return whether the name of the customer has one of the similar words for every word of the query
+     */
+    private static boolean hasAllWords(Indexes current, long id, List<List<String>> similarWords) {
+        for (List<String> similar : similarWords) {
+            if (!hasAnyWord(current, id, similar)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasAnyWord(Indexes current, long id, List<String> words) {
+        for (String word : words) {
+            if (current.nameWords.contains(word, id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomersAdded(CustomersAddedEvent event) {
+        apply(target -> event.getCustomers().forEach(target::add));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomersDeleted(CustomersDeletedEvent event) {
+        apply(target -> target.deletedIds.addAll(event.getCustomerIds()));
+    }
+
+    /**
+     * Starts the first build on a thread of its own, reading a large table takes a while and the application does
+     * not have to wait for it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        Thread builder = new Thread(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException | OutOfMemoryError e) {
+                logger.error("Building the customer search index failed, searches are answered with 503", e);
+            }
+        }, "customer-search-index-build");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    @Scheduled(initialDelayString = "${customer.search.rebuild-interval:PT1H}",
+            fixedDelayString = "${customer.search.rebuild-interval:PT1H}")
+    public void scheduledRebuild() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Builds new indexes from the table, dropping the terms of deleted customers. Customer events that arrive
+     * while the table is read are applied to the current indexes right away and replayed on the new ones before
+     * they are swapped in.
+     */
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        synchronized (writeLock) {
+            pendingEvents = new ArrayList<>();
+        }
+
+        Indexes rebuilt = null;
+        try {
+            IndexesBuilder builder = new IndexesBuilder();
+            customerRepository.forEachCustomerRow(builder::add);
+            rebuilt = builder.build();
+        } finally {
+            synchronized (writeLock) {
+                if (rebuilt != null) {
+                    for (Consumer<Indexes> event : pendingEvents) {
+                        event.accept(rebuilt);
+                    }
+                    indexes = rebuilt;
+                }
+                pendingEvents = null;
+            }
+        }
+        logger.info("Customer search index rebuilt in {} ms, {} terms",
+                (System.nanoTime() - start) / 1_000_000, termCount());
+    }
+
+    /**
+     * Lower case, without accents, trimmed and with single spaces.
+     */
+    static String normalize(String value) {
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        String withoutAccents = ACCENTS.matcher(decomposed).replaceAll("");
+        return WHITESPACE.matcher(withoutAccents.toLowerCase(Locale.ROOT).trim()).replaceAll(" ");
+    }
+
+    private static List<String> words(String normalized) {
+        return normalized.isEmpty() ? List.of() : Arrays.asList(normalized.split(" "));
+    }
+
+    /**
+     * The two words in alphabetical order, so a pair is found whatever order the words have in the name.
+     */
+    static String wordPair(String a, String b) {
+        return a.compareTo(b) <= 0 ? a + " " + b : b + " " + a;
+    }
+
+    /**
+     * Every pair of two words of the name, not only neighbouring ones.
+     */
+    private static List<String> wordPairs(List<String> words) {
+        List<String> pairs = new ArrayList<>();
+        for (int i = 0; i < words.size(); i++) {
+            for (int j = i + 1; j < words.size(); j++) {
+                pairs.add(wordPair(words.get(i), words.get(j)));
+            }
+        }
+        return pairs;
+    }
+
+    static int maxEdits(String word) {
+        if (word.length() < 3) {
+            return 0;
+        }
+        return word.length() <= 5 ? 1 : 2;
+    }
+
+    private static boolean collect(Indexes current, Set<Long> ids, long id, int limit) {
+        if (!current.deletedIds.contains(id)) {
+            ids.add(id);
+        }
+        return ids.size() < limit;
+    }
+
+    private void apply(Consumer<Indexes> event) {
+        synchronized (writeLock) {
+            Indexes current = indexes;
+            if (current != null) {
+                event.accept(current);
+            }
+            if (pendingEvents != null) {
+                pendingEvents.add(event);
+            }
+        }
+    }
+
+    private Indexes requireIndexes() {
+        Indexes current = indexes;
+        if (current == null) {
+            throw new IllegalStateException("The customer search index is not built yet");
+        }
+        return current;
+    }
+
+    private long termCount() {
+        Indexes current = indexes;
+        return current == null ? 0 : current.termCount();
+    }
+
+    private static final class Indexes {
+        private final TermIndex userNames;
+        private final TermIndex names;
+        private final TermIndex nameWords;
+        private final TermIndex nameWordPairs;
+        private final TermIndex phoneNumbers;
+        private final TrigramIndex nameDictionary = new TrigramIndex();
+
+        /**
+         * Deleted since the indexes were built, their terms are still in the indexes.
+         */
+        private final Set<Long> deletedIds = ConcurrentHashMap.newKeySet();
+
+        private Indexes(TermIndex userNames, TermIndex names, TermIndex nameWords, TermIndex nameWordPairs,
+                        TermIndex phoneNumbers) {
+            this.userNames = userNames;
+            this.names = names;
+            this.nameWords = nameWords;
+            this.nameWordPairs = nameWordPairs;
+            this.phoneNumbers = phoneNumbers;
+            nameWords.forEachTerm(nameDictionary::add);
+        }
+
+        private void add(Customer customer) {
+            long id = customer.getId();
+            deletedIds.remove(id);
+            userNames.add(normalize(customer.getUserName()), id);
+            phoneNumbers.add(normalize(customer.getPhoneNumber()), id);
+            String name = normalize(customer.getName());
+            names.add(name, id);
+            List<String> words = words(name);
+            for (String word : words) {
+                if (nameWords.add(word, id)) {
+                    nameDictionary.add(word);
+                }
+            }
+            for (String pair : wordPairs(words)) {
+                nameWordPairs.add(pair, id);
+            }
+        }
+
+        private TermIndex byField(Field field) {
+            switch (field) {
+                case USER_NAME:
+                    return userNames;
+                case NAME:
+                    return names;
+                default:
+                    return phoneNumbers;
+            }
+        }
+
+        private long termCount() {
+            return (long) userNames.termCount() + names.termCount() + nameWords.termCount()
+                    + nameWordPairs.termCount() + phoneNumbers.termCount();
+        }
+    }
+
+    /**
+     * Collects the terms of all customers of the table for new {@link Indexes}.
+     */
+    private static final class IndexesBuilder {
+        private final TermIndex.Builder userNames = TermIndex.builder();
+        private final TermIndex.Builder names = TermIndex.builder();
+        private final TermIndex.Builder nameWords = TermIndex.builder();
+        private final TermIndex.Builder nameWordPairs = TermIndex.builder();
+        private final TermIndex.Builder phoneNumbers = TermIndex.builder();
+
+        private void add(Customer customer) {
+            long id = customer.getId();
+            userNames.add(normalize(customer.getUserName()), id);
+            phoneNumbers.add(normalize(customer.getPhoneNumber()), id);
+            String name = normalize(customer.getName());
+            names.add(name, id);
+            List<String> words = words(name);
+            for (String word : words) {
+                nameWords.add(word, id);
+            }
+            for (String pair : wordPairs(words)) {
+                nameWordPairs.add(pair, id);
+            }
+        }
+
+        private Indexes build() {
+            return new Indexes(userNames.build(), names.build(), nameWords.build(), nameWordPairs.build(),
+                    phoneNumbers.build());
+        }
+    }
+}
@@ -0,0 +1,478 @@
+package com.softwaretesting.testing.index;
+
+import com.softwaretesting.testing.model.Customer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Columnar copy of the customer table, stored outside the Java heap in direct buffers.
+ * <p>
+ * Every row has its id in a long column and the offsets of its user name, name and phone number in three int
+ * columns. The strings live in one shared area, each as a 2 byte length followed by its UTF-8 bytes. Three
+ * open-addressing hash tables (linear probing, int slots holding row + 1) index the rows by id, user name and
+ * phone number. They compare keys against the string area directly, so neither lookups nor scans create
+ * objects per row.
+ * <p>
+ * Deleting a row negates its id and leaves its strings in place, a changed customer is deleted and appended
+ * again. That space is only reclaimed by building a new snapshot. Rows stay in the order they were appended,
+ * which is id order as long as ids were appended in increasing order, see {@link #isSorted()}. Otherwise
+ * {@link #sort()} puts them back in id order and drops the deleted rows, keeping their strings.
+ * <p>
+ * Not thread-safe, {@link CustomerReadModel} guards it with a lock.
+ */
+public class CustomerSnapshot {
+
+    public static final int USER_NAME = 0;
+    public static final int NAME = 1;
+    public static final int PHONE_NUMBER = 2;
+
+    /**
+     * Longest string that can be stored, in UTF-8 bytes.
+     */
+    public static final int MAX_STRING_BYTES = 0xFFFF;
+
+    private static final int FREE = 0;
+    private static final int REMOVED = -1;
+    private static final int NOT_FOUND = -1;
+
+    private LongBuffer ids;
+    private final IntBuffer[] stringOffsets = new IntBuffer[3];
+    private ByteBuffer strings;
+
+    private IntBuffer idIndex;
+    private IntBuffer userNameIndex;
+    private IntBuffer phoneNumberIndex;
+
+    private int rowCount;
+    private int liveRows;
+    private int stringsSize;
+
+    /**
+     * Slots of each index that are not {@link #FREE}. Removed slots are only freed by a rehash.
+     */
+    private int usedSlots;
+
+    private long lastId;
+    private boolean sorted = true;
+
+    /**
+     * @param expectedRows number of rows to allocate space for, the snapshot grows beyond it if needed
+     */
+    public CustomerSnapshot(int expectedRows) {
+        if (expectedRows < 0) {
+            throw new IllegalArgumentException("expectedRows must not be negative");
+        }
+        int capacity = Math.max(16, expectedRows);
+        ids = allocate((long) capacity * Long.BYTES).asLongBuffer();
+        for (int column = 0; column < stringOffsets.length; column++) {
+            stringOffsets[column] = allocate((long) capacity * Integer.BYTES).asIntBuffer();
+        }
+        strings = allocate(Math.max(1024L, (long) capacity * 32));
+        allocateIndexes(indexCapacityFor(capacity));
+    }
+
+    /**
+     * Adds the customer, or replaces the row of a customer with the same id whose fields differ.
+     */
+    public void upsert(long id, String userName, String name, String phoneNumber) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("id must be positive");
+        }
+        int existing = rowOfId(id);
+        if (existing != NOT_FOUND) {
+            if (stringEquals(existing, USER_NAME, userName) && stringEquals(existing, NAME, name)
+                    && stringEquals(existing, PHONE_NUMBER, phoneNumber)) {
+                return;
+            }
+            deleteRow(existing);
+        }
+        appendRow(id, userName, name, phoneNumber);
+    }
+
+    public void upsert(Customer customer) {
+        upsert(customer.getId(), customer.getUserName(), customer.getName(), customer.getPhoneNumber());
+    }
+
+    /**
+     * @return whether a customer with the id was present
+     */
+    public boolean delete(long id) {
+        int row = rowOfId(id);
+        if (row == NOT_FOUND) {
+            return false;
+        }
+        deleteRow(row);
+        return true;
+    }
+
+    /**
+     * @return the row of the customer with the id, or -1
+     */
+    public int rowOfId(long id) {
+        int mask = idIndex.capacity() - 1;
+        for (int slot = (int) mix(id) & mask; ; slot = (slot + 1) & mask) {
+            int entry = idIndex.get(slot);
+            if (entry == FREE) {
+                return NOT_FOUND;
+            }
+            if (entry != REMOVED && ids.get(entry - 1) == id) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /**
+     * @return the row of a customer with the user name, or -1. User names are not unique, this is the first
+     * customer found with it.
+     */
+    public int rowOfUserName(String userName) {
+        return rowOfString(userNameIndex, USER_NAME, userName);
+    }
+
+    /**
+     * @return the row of the customer with the phone number, or -1
+     */
+    public int rowOfPhoneNumber(String phoneNumber) {
+        return rowOfString(phoneNumberIndex, PHONE_NUMBER, phoneNumber);
+    }
+
+    /**
+     * @return a new customer with the fields of the row
+     */
+    public Customer customer(int row) {
+        return new Customer(id(row), string(row, USER_NAME), string(row, NAME), string(row, PHONE_NUMBER));
+    }
+
+    /**
+     * Number of rows, including deleted ones. Valid rows are 0 until this, exclusive.
+     */
+    public int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Number of customers.
+     */
+    public int size() {
+        return liveRows;
+    }
+
+    public boolean isDeleted(int row) {
+        return ids.get(row) < 0;
+    }
+
+    public long id(int row) {
+        return Math.abs(ids.get(row));
+    }
+
+    public String string(int row, int column) {
+        int offset = stringOffsets[column].get(row);
+        byte[] bytes = new byte[length(offset)];
+        strings.get(offset + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Copies the UTF-8 bytes of a string of the row into the target, which must hold {@link #MAX_STRING_BYTES}.
+     *
+     * @return the number of bytes copied
+     */
+    public int copyString(int row, int column, byte[] target) {
+        int offset = stringOffsets[column].get(row);
+        int length = length(offset);
+        strings.get(offset + 2, target, 0, length);
+        return length;
+    }
+
+    /**
+     * Whether the rows are in increasing id order. Only then {@link #firstRowAfter} can be used.
+     */
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    /**
+     * Puts the rows in increasing id order, without the deleted ones. Changes the rows of the customers.
+     */
+    public void sort() {
+        if (sorted) {
+            return;
+        }
+        long[] sortedIds = new long[liveRows];
+        int live = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (!isDeleted(row)) {
+                sortedIds[live++] = ids.get(row);
+            }
+        }
+        Arrays.sort(sortedIds);
+
+        int[][] sortedOffsets = new int[stringOffsets.length][liveRows];
+        for (int i = 0; i < liveRows; i++) {
+            int row = rowOfId(sortedIds[i]);
+            for (int column = 0; column < stringOffsets.length; column++) {
+                sortedOffsets[column][i] = stringOffsets[column].get(row);
+            }
+        }
+        ids.put(0, sortedIds);
+        for (int column = 0; column < stringOffsets.length; column++) {
+            stringOffsets[column].put(0, sortedOffsets[column]);
+        }
+        rowCount = liveRows;
+        lastId = liveRows == 0 ? 0 : sortedIds[liveRows - 1];
+        sorted = true;
+        rehash();
+    }
+
+    /**
+     * Keyset pagination: the first row (deleted or not) with an id greater than the given one, or
+     * {@link #rowCount()} if there is none. Requires {@link #isSorted()}.
+     */
+    public int firstRowAfter(long afterId) {
+        if (!sorted) {
+            throw new IllegalStateException("Rows are not in id order");
+        }
+        int low = 0;
+        int high = rowCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (id(middle) <= afterId) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Bytes allocated outside the heap by the columns, the string area and the indexes.
+     */
+    public long offHeapBytes() {
+        return (long) ids.capacity() * Long.BYTES
+                + 3L * stringOffsets[0].capacity() * Integer.BYTES
+                + strings.capacity()
+                + 3L * idIndex.capacity() * Integer.BYTES;
+    }
+
+    private void appendRow(long id, String userName, String name, String phoneNumber) {
+        if (rowCount == ids.capacity()) {
+            growRows();
+        }
+        if ((usedSlots + 1) * 2L > idIndex.capacity()) {
+            rehash();
+        }
+
+        int row = rowCount++;
+        ids.put(row, id);
+        stringOffsets[USER_NAME].put(row, appendString(userName));
+        stringOffsets[NAME].put(row, appendString(name));
+        stringOffsets[PHONE_NUMBER].put(row, appendString(phoneNumber));
+        liveRows++;
+        if (id <= lastId) {
+            sorted = false;
+        }
+        lastId = Math.max(lastId, id);
+
+        indexRow(row);
+        usedSlots++;
+    }
+
+    private void deleteRow(int row) {
+        removeFromIndex(idIndex, (int) mix(id(row)), row);
+        removeFromIndex(userNameIndex, hashString(row, USER_NAME), row);
+        removeFromIndex(phoneNumberIndex, hashString(row, PHONE_NUMBER), row);
+        ids.put(row, -id(row));
+        liveRows--;
+    }
+
+    private void indexRow(int row) {
+        insertIntoIndex(idIndex, (int) mix(id(row)), row);
+        insertIntoIndex(userNameIndex, hashString(row, USER_NAME), row);
+        insertIntoIndex(phoneNumberIndex, hashString(row, PHONE_NUMBER), row);
+    }
+
+    private static void insertIntoIndex(IntBuffer index, int hash, int row) {
+        int mask = index.capacity() - 1;
+        int slot = hash & mask;
+        while (index.get(slot) != FREE) {
+            slot = (slot + 1) & mask;
+        }
+        index.put(slot, row + 1);
+    }
+
+    private static void removeFromIndex(IntBuffer index, int hash, int row) {
+        int mask = index.capacity() - 1;
+        for (int slot = hash & mask; index.get(slot) != FREE; slot = (slot + 1) & mask) {
+            if (index.get(slot) == row + 1) {
+                index.put(slot, REMOVED);
+                return;
+            }
+        }
+    }
+
+    private int rowOfString(IntBuffer index, int column, String value) {
+        if (value == null) {
+            return NOT_FOUND;
+        }
+        byte[] key = value.getBytes(StandardCharsets.UTF_8);
+        int mask = index.capacity() - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            int entry = index.get(slot);
+            if (entry == FREE) {
+                return NOT_FOUND;
+            }
+            if (entry != REMOVED && bytesEqual(stringOffsets[column].get(entry - 1), key)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private boolean stringEquals(int row, int column, String value) {
+        return value != null && bytesEqual(stringOffsets[column].get(row), value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private boolean bytesEqual(int offset, byte[] key) {
+        if (length(offset) != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (strings.get(offset + 2 + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int length(int offset) {
+        return strings.getShort(offset) & 0xFFFF;
+    }
+
+    private int appendString(String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Customer fields must not be null");
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("String of " + bytes.length + " bytes is too long");
+        }
+        long required = (long) stringsSize + 2 + bytes.length;
+        if (required > strings.capacity()) {
+            growStrings(required);
+        }
+        int offset = stringsSize;
+        strings.putShort(offset, (short) bytes.length);
+        strings.put(offset + 2, bytes);
+        stringsSize += 2 + bytes.length;
+        return offset;
+    }
+
+    private void growRows() {
+        int capacity = grownCapacity(ids.capacity(), Integer.MAX_VALUE / Long.BYTES);
+        LongBuffer grownIds = allocate((long) capacity * Long.BYTES).asLongBuffer();
+        grownIds.put(0, ids, 0, rowCount);
+        ids = grownIds;
+        for (int column = 0; column < stringOffsets.length; column++) {
+            IntBuffer grownOffsets = allocate((long) capacity * Integer.BYTES).asIntBuffer();
+            grownOffsets.put(0, stringOffsets[column], 0, rowCount);
+            stringOffsets[column] = grownOffsets;
+        }
+    }
+
+    private void growStrings(long required) {
+        long capacity = strings.capacity();
+        while (capacity < required) {
+            capacity = grownCapacity((int) capacity, Integer.MAX_VALUE);
+        }
+        ByteBuffer grown = allocate(capacity);
+        grown.put(0, strings, 0, stringsSize);
+        strings = grown;
+    }
+
+    /**
+     * Rebuilds the indexes without the removed slots. They keep their size if that leaves them at most
+     * a quarter full, so removed slots piling up do not cause a rehash after every few inserts.
+     */
+    private void rehash() {
+        int capacity = indexCapacityFor(liveRows + 1);
+        if (capacity <= idIndex.capacity() && (liveRows + 1) * 4L > idIndex.capacity()) {
+            capacity = idIndex.capacity() * 2;
+        }
+        allocateIndexes(capacity);
+        usedSlots = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (!isDeleted(row)) {
+                indexRow(row);
+                usedSlots++;
+            }
+        }
+    }
+
+    private void allocateIndexes(int capacity) {
+        idIndex = allocate((long) capacity * Integer.BYTES).asIntBuffer();
+        userNameIndex = allocate((long) capacity * Integer.BYTES).asIntBuffer();
+        phoneNumberIndex = allocate((long) capacity * Integer.BYTES).asIntBuffer();
+    }
+
+    /**
+     * Power of two with room for the rows at a load factor of at most 1/2.
+     */
+    private static int indexCapacityFor(int rows) {
+        long required = Math.max(16L, (long) rows * 2);
+        if (required > 1 << 30) {
+            throw new IllegalStateException("Too many rows for the snapshot indexes: " + rows);
+        }
+        return Integer.highestOneBit((int) required - 1) << 1;
+    }
+
+    private static int grownCapacity(int capacity, int maximum) {
+        if (capacity >= maximum) {
+            throw new IllegalStateException("Snapshot is full");
+        }
+        return (int) Math.min((long) capacity * 2, maximum);
+    }
+
+    private static ByteBuffer allocate(long bytes) {
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Snapshot column of " + bytes + " bytes is too large");
+        }
+        return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+    }
+
+    private int hashString(int row, int column) {
+        int offset = stringOffsets[column].get(row);
+        int length = length(offset);
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < length; i++) {
+            hash ^= strings.get(offset + 2 + i) & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        return (int) mix(hash);
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes followed by the MurmurHash3 finalizer, like {@link BloomFilter}.
+     */
+    private static int hash(byte[] bytes) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        return (int) mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
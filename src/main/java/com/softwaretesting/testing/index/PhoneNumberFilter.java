@@ -0,0 +1,151 @@
+package com.softwaretesting.testing.index;
+
+import com.softwaretesting.testing.dao.CustomerRepository;
+import com.softwaretesting.testing.event.CustomersAddedEvent;
+import com.softwaretesting.testing.model.Customer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Bloom filter over the phone numbers of all customers, so a lookup of a number nobody registered
+ * can be answered without a DB query.
+ * <p>
+ * The filter is built from the DB once the application is ready (after the seed data was inserted)
+ * and afterwards on every customer.phone-filter.rebuild-interval. Until the first build every number
+ * might be present. Added customers are put right away; deleted ones stay in the filter as false positives
+ * until the next rebuild.
+ */
+@Component
+public class PhoneNumberFilter {
+    final Logger logger = LoggerFactory.getLogger(PhoneNumberFilter.class);
+
+    private final CustomerRepository customerRepository;
+
+    private final long expectedInsertions;
+    private final double falsePositiveProbability;
+
+    private final Counter absentLookups;
+    private final Counter presentLookups;
+
+    private volatile BloomFilter filter;
+
+    /**
+     * The filter being built by {@link #rebuild()}, null otherwise. Customers added during a rebuild
+     * are put into both filters, the scan of the table might not see them.
+     */
+    private volatile BloomFilter nextFilter;
+
+    public PhoneNumberFilter(MeterRegistry meterRegistry,
+                             CustomerRepository customerRepository,
+                             @Value("${customer.phone-filter.expected-insertions:1000000}") long expectedInsertions,
+                             @Value("${customer.phone-filter.fpp:0.01}") double falsePositiveProbability) {
+        this.customerRepository = customerRepository;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveProbability = falsePositiveProbability;
+
+        Gauge.builder("customer_phone_filter_false_positive_rate", this, PhoneNumberFilter::getFalsePositiveRate).
+                description("estimated probability that the phone number filter lets the lookup of an unknown number through to the DB").
+                register(meterRegistry);
+        absentLookups = Counter.builder("customer_phone_filter_lookups").
+                description("phone number lookups checked against the filter").
+                tag("result", "absent").
+                register(meterRegistry);
+        presentLookups = Counter.builder("customer_phone_filter_lookups").
+                description("phone number lookups checked against the filter").
+                tag("result", "maybe_present").
+                register(meterRegistry);
+    }
+
+    /**
+     * @return false only if no customer has the phone number
+     */
+    public boolean mightContain(String phoneNumber) {
+        BloomFilter current = filter;
+        if (current == null) {
+            return true;
+        }
+        if (current.mightContain(phoneNumber)) {
+            presentLookups.increment();
+            return true;
+        }
+        absentLookups.increment();
+        return false;
+    }
+
+    public double getFalsePositiveRate() {
+        BloomFilter current = filter;
+        return current == null ? 1.0 : current.expectedFalsePositiveProbability();
+    }
+
+    /**
+     * Puts the numbers as soon as the customers are inserted, before their transaction commits,
+     * so a number is never reported absent once its customer is visible.
+     */
+    @EventListener
+    public void onCustomersInserted(CustomersAddedEvent event) {
+        put(filter, event);
+    }
+
+    /**
+     * Puts the numbers again after the commit, into the filter that is current by then and into the one
+     * being rebuilt. Covers a rebuild that started or finished while the inserting transaction was open.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomersAdded(CustomersAddedEvent event) {
+        put(nextFilter, event);
+        put(filter, event);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Replaces the filter with one built from the current table, dropping the numbers of deleted customers.
+     * It is sized for at least twice the current number of customers, so it grows with the table.
+     */
+    @Scheduled(initialDelayString = "${customer.phone-filter.rebuild-interval:PT1H}",
+            fixedDelayString = "${customer.phone-filter.rebuild-interval:PT1H}")
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        BloomFilter rebuilt = new BloomFilter(
+                Math.max(expectedInsertions, 2 * customerRepository.count()),
+                falsePositiveProbability);
+        nextFilter = rebuilt;
+        try {
+            customerRepository.forEachPhoneNumber(phoneNumber -> {
+                if (phoneNumber != null) {
+                    rebuilt.put(phoneNumber);
+                }
+            });
+            filter = rebuilt;
+        } finally {
+            nextFilter = null;
+        }
+        logger.info("Phone number filter rebuilt in {} ms, {} bits, estimated false positive rate {}",
+                (System.nanoTime() - start) / 1_000_000,
+                rebuilt.bitSize(),
+                rebuilt.expectedFalsePositiveProbability());
+    }
+
+    private static void put(BloomFilter target, CustomersAddedEvent event) {
+        if (target == null) {
+            return;
+        }
+        for (Customer customer : event.getCustomers()) {
+            if (customer.getPhoneNumber() != null) {
+                target.put(customer.getPhoneNumber());
+            }
+        }
+    }
+}
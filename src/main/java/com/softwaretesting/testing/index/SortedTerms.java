@@ -0,0 +1,476 @@
+package com.softwaretesting.testing.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+/**
+ * Immutable sorted terms with the ids of every term, packed into four arrays instead of a String, a map entry and
+ * a boxed id per term. The terms are front coded: each is stored as the number of leading chars it shares with the
+ * previous term, the number of chars that follow and those chars. Every {@link #BLOCK_SIZE}th term starts a block
+ * and is stored in full, so a lookup binary searches the first terms of the blocks and decodes at most one block.
+ * The ids of all terms are in one array, ascending per term.
+ * <p>
+ * Term order is that of {@link String#compareTo}. Built once by a {@link Builder}, then safe to read from any
+ * number of threads, each with its own {@link Cursor}.
+ */
+final class SortedTerms {
+
+    static final int BLOCK_SIZE = 16;
+
+    static final SortedTerms EMPTY = new Builder().build();
+
+    private final char[] chars;
+
+    /**
+     * Index in {@link #chars} of the first term of every block.
+     */
+    private final int[] blockOffsets;
+
+    /**
+     * The ids of term i are {@code ids[idOffsets[i]]} up to {@code ids[idOffsets[i + 1]]}, exclusive.
+     */
+    private final int[] idOffsets;
+
+    private final long[] ids;
+
+    private final int termCount;
+
+    private final int maxTermLength;
+
+    private SortedTerms(char[] chars, int[] blockOffsets, int[] idOffsets, long[] ids, int termCount, int maxTermLength) {
+        this.chars = chars;
+        this.blockOffsets = blockOffsets;
+        this.idOffsets = idOffsets;
+        this.ids = ids;
+        this.termCount = termCount;
+        this.maxTermLength = maxTermLength;
+    }
+
+    int termCount() {
+        return termCount;
+    }
+
+    /**
+     * @return a cursor on the first term that is not smaller than {@code term}, invalid if there is none
+     */
+    Cursor seek(String term) {
+        // the last block whose first term is smaller, the term can only be in it or be the first of the next one
+        int low = 0;
+        int high = blockOffsets.length - 1;
+        int block = 0;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (compareFirstTerm(middle, term) < 0) {
+                block = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        Cursor cursor = new Cursor(block);
+        while (cursor.isValid() && cursor.compareTo(term) < 0) {
+            cursor.next();
+        }
+        return cursor;
+    }
+
+    /**
+     * @return the position of the term in the sorted terms, or -1 if it is not one of them
+     */
+    int ordinalOf(String term) {
+        Cursor cursor = seek(term);
+        return cursor.isValid() && cursor.compareTo(term) == 0 ? cursor.ordinal : -1;
+    }
+
+    int idCount(int ordinal) {
+        return idOffsets[ordinal + 1] - idOffsets[ordinal];
+    }
+
+    boolean containsId(int ordinal, long id) {
+        return Arrays.binarySearch(ids, idOffsets[ordinal], idOffsets[ordinal + 1], id) >= 0;
+    }
+
+    /**
+     * Hands the ids of the term to the visitor, ascending, until it returns false.
+     *
+     * @return false if the visitor stopped the iteration
+     */
+    boolean forEachId(int ordinal, LongPredicate visitor) {
+        for (int i = idOffsets[ordinal]; i < idOffsets[ordinal + 1]; i++) {
+            if (!visitor.test(ids[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void forEachTerm(Consumer<String> action) {
+        for (Cursor cursor = new Cursor(0); cursor.isValid(); cursor.next()) {
+            action.accept(cursor.term());
+        }
+    }
+
+    private int compareFirstTerm(int block, String term) {
+        int offset = blockOffsets[block];
+        return compare(chars, offset + 2, chars[offset + 1], term);
+    }
+
+    private static int compare(char[] chars, int offset, int length, String term) {
+        int common = Math.min(length, term.length());
+        for (int i = 0; i < common; i++) {
+            char c = chars[offset + i];
+            char other = term.charAt(i);
+            if (c != other) {
+                return c - other;
+            }
+        }
+        return length - term.length();
+    }
+
+    private static int compare(char[] a, int aOffset, int aLength, char[] b, int bOffset, int bLength) {
+        int shared = sharedPrefix(a, aOffset, aLength, b, bOffset, bLength);
+        if (shared < aLength && shared < bLength) {
+            return a[aOffset + shared] - b[bOffset + shared];
+        }
+        return aLength - bLength;
+    }
+
+    private static int sharedPrefix(char[] a, int aOffset, int aLength, char[] b, int bOffset, int bLength) {
+        int common = Math.min(aLength, bLength);
+        for (int i = 0; i < common; i++) {
+            if (a[aOffset + i] != b[bOffset + i]) {
+                return i;
+            }
+        }
+        return common;
+    }
+
+    /**
+     * Walks the terms in order, decoding one at a time into its own buffer.
+     */
+    final class Cursor {
+        private final char[] term = new char[maxTermLength];
+        private int length;
+        private int ordinal;
+
+        /**
+         * Index in {@link #chars} of the next term.
+         */
+        private int offset;
+
+        private Cursor(int block) {
+            ordinal = block * BLOCK_SIZE - 1;
+            offset = blockOffsets.length == 0 ? 0 : blockOffsets[block];
+            next();
+        }
+
+        boolean isValid() {
+            return ordinal < termCount;
+        }
+
+        int ordinal() {
+            return ordinal;
+        }
+
+        void next() {
+            ordinal++;
+            if (ordinal >= termCount) {
+                return;
+            }
+            int shared = chars[offset];
+            int suffix = chars[offset + 1];
+            System.arraycopy(chars, offset + 2, term, shared, suffix);
+            length = shared + suffix;
+            offset += 2 + suffix;
+        }
+
+        int compareTo(String other) {
+            return compare(term, 0, length, other);
+        }
+
+        private int compareTo(Cursor other) {
+            return compare(term, 0, length, other.term, 0, other.length);
+        }
+
+        boolean startsWith(String prefix) {
+            return length >= prefix.length() && compare(term, 0, prefix.length(), prefix) == 0;
+        }
+
+        String term() {
+            return new String(term, 0, length);
+        }
+
+        private SortedTerms terms() {
+            return SortedTerms.this;
+        }
+    }
+
+    /**
+     * Collects (term, id) pairs in any order and sorts them. Every {@code segmentPairs} pairs are sorted and packed
+     * into a SortedTerms of their own, which are merged at the end, so the pairs are never all held unpacked.
+     * Duplicate pairs are kept only once.
+     */
+    static final class Builder {
+        static final int SEGMENT_PAIRS = 1 << 20;
+
+        private final int segmentPairs;
+
+        private final List<SortedTerms> segments = new ArrayList<>();
+
+        private char[] chars = new char[256];
+        private int charCount;
+
+        /**
+         * Index in {@link #chars} of every pair's term, the term ends where the next one starts.
+         */
+        private int[] offsets = new int[16];
+        private long[] ids = new long[16];
+        private int size;
+
+        Builder() {
+            this(SEGMENT_PAIRS);
+        }
+
+        Builder(int segmentPairs) {
+            this.segmentPairs = segmentPairs;
+        }
+
+        void add(String term, long id) {
+            if (term.length() > Character.MAX_VALUE) {
+                throw new IllegalArgumentException("Terms are limited to " + (int) Character.MAX_VALUE + " chars");
+            }
+            if (size + 1 >= offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length + (offsets.length >> 1));
+                ids = Arrays.copyOf(ids, offsets.length);
+            }
+            if (charCount + term.length() > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(charCount + term.length(), chars.length + (chars.length >> 1)));
+            }
+            term.getChars(0, term.length(), chars, charCount);
+            offsets[size] = charCount;
+            ids[size] = id;
+            charCount += term.length();
+            size++;
+            if (size == segmentPairs) {
+                flush();
+            }
+        }
+
+        SortedTerms build() {
+            if (size > 0 || segments.isEmpty()) {
+                flush();
+            }
+            SortedTerms built = segments.size() == 1 ? segments.get(0) : merge(segments);
+            segments.clear();
+            return built;
+        }
+
+        /**
+         * Sorts the pairs collected since the last flush into a new segment.
+         */
+        private void flush() {
+            offsets[size] = charCount;
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            mergeSort(order, new int[size], 0, size);
+
+            Writer writer = new Writer(size, size, charCount);
+            for (int pair : order) {
+                writer.add(chars, offsets[pair], length(pair), ids[pair]);
+            }
+            segments.add(writer.build());
+            size = 0;
+            charCount = 0;
+        }
+
+        private static SortedTerms merge(List<SortedTerms> segments) {
+            List<Cursor> cursors = new ArrayList<>();
+            int termCount = 0;
+            int idCount = 0;
+            int charCount = 0;
+            for (SortedTerms segment : segments) {
+                Cursor cursor = segment.new Cursor(0);
+                if (cursor.isValid()) {
+                    cursors.add(cursor);
+                }
+                termCount += segment.termCount;
+                idCount += segment.ids.length;
+                charCount += segment.chars.length;
+            }
+
+            Writer writer = new Writer(termCount, idCount, charCount);
+            char[] term = new char[16];
+            long[] termIds = new long[16];
+            while (!cursors.isEmpty()) {
+                Cursor smallest = cursors.get(0);
+                for (Cursor cursor : cursors) {
+                    if (cursor.compareTo(smallest) < 0) {
+                        smallest = cursor;
+                    }
+                }
+                int length = smallest.length;
+                if (term.length < length) {
+                    term = new char[length];
+                }
+                System.arraycopy(smallest.term, 0, term, 0, length);
+
+                // the ids of the term in all segments, sorted, the writer drops the duplicates
+                int termIdCount = 0;
+                for (Iterator<Cursor> iterator = cursors.iterator(); iterator.hasNext(); ) {
+                    Cursor cursor = iterator.next();
+                    if (SortedTerms.compare(cursor.term, 0, cursor.length, term, 0, length) != 0) {
+                        continue;
+                    }
+                    SortedTerms segment = cursor.terms();
+                    int from = segment.idOffsets[cursor.ordinal];
+                    int count = segment.idCount(cursor.ordinal);
+                    if (termIdCount + count > termIds.length) {
+                        termIds = Arrays.copyOf(termIds, Math.max(termIdCount + count, termIds.length * 2));
+                    }
+                    System.arraycopy(segment.ids, from, termIds, termIdCount, count);
+                    termIdCount += count;
+                    cursor.next();
+                    if (!cursor.isValid()) {
+                        iterator.remove();
+                    }
+                }
+                Arrays.sort(termIds, 0, termIdCount);
+                for (int i = 0; i < termIdCount; i++) {
+                    writer.add(term, 0, length, termIds[i]);
+                }
+            }
+            return writer.build();
+        }
+
+        private int length(int pair) {
+            return offsets[pair + 1] - offsets[pair];
+        }
+
+        /**
+         * Orders pairs by term, then by id.
+         */
+        private int compare(int a, int b) {
+            int order = SortedTerms.compare(chars, offsets[a], length(a), chars, offsets[b], length(b));
+            return order != 0 ? order : Long.compare(ids[a], ids[b]);
+        }
+
+        private void mergeSort(int[] order, int[] buffer, int from, int to) {
+            if (to - from <= 16) {
+                for (int i = from + 1; i < to; i++) {
+                    int pair = order[i];
+                    int j = i - 1;
+                    while (j >= from && compare(order[j], pair) > 0) {
+                        order[j + 1] = order[j];
+                        j--;
+                    }
+                    order[j + 1] = pair;
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            mergeSort(order, buffer, from, middle);
+            mergeSort(order, buffer, middle, to);
+            if (compare(order[middle - 1], order[middle]) <= 0) {
+                return;
+            }
+            System.arraycopy(order, from, buffer, from, to - from);
+            int left = from;
+            int right = middle;
+            for (int i = from; i < to; i++) {
+                if (right >= to || (left < middle && compare(buffer[left], buffer[right]) <= 0)) {
+                    order[i] = buffer[left++];
+                } else {
+                    order[i] = buffer[right++];
+                }
+            }
+        }
+    }
+
+    /**
+     * Packs (term, id) pairs that come in ascending order into a SortedTerms.
+     */
+    private static final class Writer {
+        private char[] chars;
+        private int charCount;
+        private int[] blockOffsets;
+        private int[] idOffsets;
+        private long[] ids;
+        private int idCount;
+        private int termCount;
+        private int maxTermLength;
+
+        private char[] previous = new char[16];
+        private int previousLength;
+
+        /**
+         * The expected sizes, the arrays grow if they are exceeded.
+         */
+        private Writer(int terms, int ids, int chars) {
+            this.chars = new char[Math.max(16, chars)];
+            this.blockOffsets = new int[terms / BLOCK_SIZE + 1];
+            this.idOffsets = new int[terms + 1];
+            this.ids = new long[Math.max(1, ids)];
+        }
+
+        private void add(char[] term, int offset, int length, long id) {
+            if (termCount > 0 && compare(previous, 0, previousLength, term, offset, length) == 0) {
+                if (ids[idCount - 1] != id) {
+                    appendId(id);
+                }
+                return;
+            }
+
+            int shared;
+            if (termCount % BLOCK_SIZE == 0) {
+                if (termCount / BLOCK_SIZE == blockOffsets.length) {
+                    blockOffsets = Arrays.copyOf(blockOffsets, blockOffsets.length * 2);
+                }
+                blockOffsets[termCount / BLOCK_SIZE] = charCount;
+                shared = 0;
+            } else {
+                shared = sharedPrefix(previous, 0, previousLength, term, offset, length);
+            }
+            int suffix = length - shared;
+            if (charCount + 2 + suffix > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(charCount + 2 + suffix, chars.length + (chars.length >> 1)));
+            }
+            chars[charCount++] = (char) shared;
+            chars[charCount++] = (char) suffix;
+            System.arraycopy(term, offset + shared, chars, charCount, suffix);
+            charCount += suffix;
+
+            if (previous.length < length) {
+                previous = Arrays.copyOf(previous, Math.max(length, previous.length * 2));
+            }
+            System.arraycopy(term, offset, previous, 0, length);
+            previousLength = length;
+            maxTermLength = Math.max(maxTermLength, length);
+
+            if (termCount + 1 >= idOffsets.length) {
+                idOffsets = Arrays.copyOf(idOffsets, idOffsets.length * 2);
+            }
+            idOffsets[termCount++] = idCount;
+            appendId(id);
+        }
+
+        private void appendId(long id) {
+            if (idCount == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length + (ids.length >> 1) + 1);
+            }
+            ids[idCount++] = id;
+        }
+
+        private SortedTerms build() {
+            idOffsets[termCount] = idCount;
+            int blocks = (termCount + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            return new SortedTerms(Arrays.copyOf(chars, charCount), Arrays.copyOf(blockOffsets, blocks),
+                    Arrays.copyOf(idOffsets, termCount + 1), Arrays.copyOf(ids, idCount), termCount, maxTermLength);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.softwaretesting.testing.index;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+/**
+ * Sorted terms, each with the ids of the customers that have it. Terms starting with a prefix are a range of the
+ * sorted terms, so prefix lookups take O(log terms) plus the matches visited.
+ * <p>
+ * The terms the index was built with are packed into {@link SortedTerms}, which takes a fraction of the memory of a
+ * map with a String and an entry per term. Terms and ids added afterwards go into a
+ * {@link ConcurrentSkipListMap} next to it, until the owner builds a new index. Ids are never removed, the owner
+ * skips the ids of deleted customers instead.
+ * <p>
+ * In the added map the ids of a term are a {@link Long} while there is only one, afterwards a {@link Postings}.
+ * Postings are never changed once they are in the map: appending writes the id behind the end of the shared array
+ * and puts a new, longer Postings, anything else copies the array. So readers need no lock, while there must only
+ * be one writer at a time.
+ */
+public class TermIndex {
+
+    private final SortedTerms built;
+
+    private final ConcurrentSkipListMap<String, Object> added = new ConcurrentSkipListMap<>();
+
+    /**
+     * Terms in {@link #added} that are not in {@link #built}. Only changed by the one writer.
+     */
+    private volatile int addedTerms;
+
+    public TermIndex() {
+        this(SortedTerms.EMPTY);
+    }
+
+    private TermIndex(SortedTerms built) {
+        this.built = built;
+    }
+
+    /**
+     * @return whether the term was not in the index before
+     */
+    public boolean add(String term, long id) {
+        int ordinal = built.ordinalOf(term);
+        if (ordinal >= 0 && built.containsId(ordinal, id)) {
+            return false;
+        }
+        Object ids = added.get(term);
+        if (ids == null) {
+            added.put(term, id);
+            if (ordinal < 0) {
+                addedTerms++;
+                return true;
+            }
+            return false;
+        }
+        if (ids instanceof Long) {
+            long single = (Long) ids;
+            if (single != id) {
+                added.put(term, new Postings(new long[]{Math.min(single, id), Math.max(single, id), 0, 0}, 2));
+            }
+            return false;
+        }
+        Postings postings = ((Postings) ids).add(id);
+        if (postings != ids) {
+            added.put(term, postings);
+        }
+        return false;
+    }
+
+    /**
+     * Hands the ids of every term starting with the prefix to the visitor, term by term in ascending order, until
+     * the visitor returns false. The ids of a term come ascending, first those the index was built with, then those
+     * added since.
+     *
+     * @return false if the visitor stopped the iteration
+     */
+    public boolean forEachWithPrefix(String prefix, LongPredicate visitor) {
+        SortedTerms.Cursor cursor = built.seek(prefix);
+        Iterator<Map.Entry<String, Object>> addedEntries = added.tailMap(prefix).entrySet().iterator();
+        Map.Entry<String, Object> addedTerm = nextWithPrefix(addedEntries, prefix);
+        while (true) {
+            boolean builtMatches = cursor.isValid() && cursor.startsWith(prefix);
+            if (!builtMatches && addedTerm == null) {
+                return true;
+            }
+            int order = !builtMatches ? 1 : addedTerm == null ? -1 : cursor.compareTo(addedTerm.getKey());
+            if (order <= 0) {
+                if (!built.forEachId(cursor.ordinal(), visitor)) {
+                    return false;
+                }
+                cursor.next();
+            }
+            if (order >= 0) {
+                if (!forEach(addedTerm.getValue(), visitor)) {
+                    return false;
+                }
+                addedTerm = nextWithPrefix(addedEntries, prefix);
+            }
+        }
+    }
+
+    /**
+     * Like {@link #forEachWithPrefix} for the one term.
+     */
+    public boolean forEachWithTerm(String term, LongPredicate visitor) {
+        int ordinal = built.ordinalOf(term);
+        if (ordinal >= 0 && !built.forEachId(ordinal, visitor)) {
+            return false;
+        }
+        Object ids = added.get(term);
+        return ids == null || forEach(ids, visitor);
+    }
+
+    public boolean contains(String term, long id) {
+        int ordinal = built.ordinalOf(term);
+        if (ordinal >= 0 && built.containsId(ordinal, id)) {
+            return true;
+        }
+        Object ids = added.get(term);
+        if (ids instanceof Long) {
+            return (Long) ids == id;
+        }
+        return ids != null && ((Postings) ids).indexOf(id) >= 0;
+    }
+
+    /**
+     * Number of ids the term has.
+     */
+    public int count(String term) {
+        int ordinal = built.ordinalOf(term);
+        int count = ordinal >= 0 ? built.idCount(ordinal) : 0;
+        Object ids = added.get(term);
+        if (ids != null) {
+            count += ids instanceof Long ? 1 : ((Postings) ids).size;
+        }
+        return count;
+    }
+
+    public int termCount() {
+        return built.termCount() + addedTerms;
+    }
+
+    /**
+     * Hands every term to the action once, those the index was built with first.
+     */
+    public void forEachTerm(Consumer<String> action) {
+        built.forEachTerm(action);
+        for (String term : added.keySet()) {
+            if (built.ordinalOf(term) < 0) {
+                action.accept(term);
+            }
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private static Map.Entry<String, Object> nextWithPrefix(Iterator<Map.Entry<String, Object>> terms, String prefix) {
+        if (!terms.hasNext()) {
+            return null;
+        }
+        Map.Entry<String, Object> next = terms.next();
+        return next.getKey().startsWith(prefix) ? next : null;
+    }
+
+    private static boolean forEach(Object ids, LongPredicate visitor) {
+        if (ids instanceof Long) {
+            return visitor.test((Long) ids);
+        }
+        Postings postings = (Postings) ids;
+        for (int i = 0; i < postings.size; i++) {
+            if (!visitor.test(postings.ids[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The first {@code size} entries of {@code ids}, ascending. Entries behind them may be written by a later
+     * {@link #add}, but those are never read through this instance.
+     */
+    private static final class Postings {
+        private final long[] ids;
+        private final int size;
+
+        private Postings(long[] ids, int size) {
+            this.ids = ids;
+            this.size = size;
+        }
+
+        private int indexOf(long id) {
+            return Arrays.binarySearch(ids, 0, size, id);
+        }
+
+        private Postings add(long id) {
+            if (id > ids[size - 1]) {
+                if (size < ids.length) {
+                    ids[size] = id;
+                    return new Postings(ids, size + 1);
+                }
+                long[] grown = Arrays.copyOf(ids, size * 2);
+                grown[size] = id;
+                return new Postings(grown, size + 1);
+            }
+            int index = indexOf(id);
+            if (index >= 0) {
+                return this;
+            }
+            int insertAt = -index - 1;
+            long[] copy = new long[Math.max(ids.length, size + 1)];
+            System.arraycopy(ids, 0, copy, 0, insertAt);
+            copy[insertAt] = id;
+            System.arraycopy(ids, insertAt, copy, insertAt + 1, size - insertAt);
+            return new Postings(copy, size + 1);
+        }
+    }
+
+    /**
+     * Collects the terms of a new index, see {@link SortedTerms.Builder}.
+     */
+    public static final class Builder {
+        private final SortedTerms.Builder terms = new SortedTerms.Builder();
+
+        public void add(String term, long id) {
+            terms.add(term, id);
+        }
+
+        public TermIndex build() {
+            return new TermIndex(terms.build());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.softwaretesting.testing.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary of terms for typo-tolerant lookups: every term is indexed by its trigrams, taken with a boundary
+ * marker at both ends ("$ab$" for "ab"). An edit changes at most 3 trigrams, so a term within k edits of a word
+ * lacks at most 3k of the word's distinct trigrams and has at least one of any 3k + 1 of them. Only the terms of
+ * the 3k + 1 trigrams with the fewest terms need their edit distance computed, common trigrams like "er$" are not
+ * looked at. Words with no more than 3k distinct trigrams (short words) are compared with all terms instead.
+ * <p>
+ * Thread-safe for concurrent readers and one writer; a term added or removed during a lookup may or may not be
+ * found by it.
+ */
+public class TrigramIndex {
+
+    private static final char BOUNDARY = '$';
+
+    private final Map<String, Set<String>> termsByTrigram = new ConcurrentHashMap<>();
+
+    private final Set<String> terms = ConcurrentHashMap.newKeySet();
+
+    public void add(String term) {
+        if (terms.add(term)) {
+            for (String trigram : trigrams(term)) {
+                termsByTrigram.computeIfAbsent(trigram, key -> ConcurrentHashMap.newKeySet()).add(term);
+            }
+        }
+    }
+
+    public void remove(String term) {
+        if (terms.remove(term)) {
+            for (String trigram : trigrams(term)) {
+                Set<String> trigramTerms = termsByTrigram.get(trigram);
+                if (trigramTerms != null) {
+                    trigramTerms.remove(term);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return terms.size();
+    }
+
+    /**
+     * @return the terms within {@code maxEdits} edits (insertions, deletions, substitutions) of the word, closest
+     * first, then in alphabetical order
+     */
+    public List<String> similarTerms(String word, int maxEdits) {
+        List<Set<String>> trigramTerms = new ArrayList<>();
+        for (String trigram : new HashSet<>(trigrams(word))) {
+            trigramTerms.add(termsByTrigram.getOrDefault(trigram, Set.of()));
+        }
+
+        Collection<String> candidates;
+        if (trigramTerms.size() > 3 * maxEdits) {
+            trigramTerms.sort(Comparator.comparingInt(Set::size));
+            candidates = new HashSet<>();
+            for (Set<String> rare : trigramTerms.subList(0, 3 * maxEdits + 1)) {
+                candidates.addAll(rare);
+            }
+        } else {
+            candidates = terms;
+        }
+
+        Map<String, Integer> distances = new HashMap<>();
+        for (String term : candidates) {
+            int distance = editDistance(word, term, maxEdits);
+            if (distance <= maxEdits) {
+                distances.put(term, distance);
+            }
+        }
+        List<String> matches = new ArrayList<>(distances.keySet());
+        matches.sort(Comparator.<String>comparingInt(distances::get).thenComparing(Comparator.naturalOrder()));
+        return matches;
+    }
+
+    /**
+     * Levenshtein distance, computed with two rows and given up once every entry of a row exceeds the maximum.
+     *
+     * @return the distance, or {@code max + 1} if it is larger than {@code max}
+     */
+    static int editDistance(CharSequence a, CharSequence b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMinimum = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                rowMinimum = Math.min(rowMinimum, current[j]);
+            }
+            if (rowMinimum > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+
+    private static List<String> trigrams(String term) {
+        String padded = BOUNDARY + term + BOUNDARY;
+        List<String> trigrams = new ArrayList<>(Math.max(1, padded.length() - 2));
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        if (trigrams.isEmpty()) {
+            trigrams.add(padded);
+        }
+        return trigrams;
+    }
+}
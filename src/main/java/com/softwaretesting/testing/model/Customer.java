@@ -1,6 +1,7 @@
 package com.softwaretesting.testing.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.softwaretesting.testing.dao.CustomerConstraints;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
@@ -8,12 +9,16 @@ import javax.validation.constraints.NotBlank;
 import java.util.Objects;
 
 @Entity
-@Table(name = "CUSTOMER")
+@Table(name = "CUSTOMER",
+        // the unique constraint is backed by an index, so lookups by phone number do not need one of their own
+        uniqueConstraints = @UniqueConstraint(name = CustomerConstraints.PHONE_NUMBER_UNIQUE, columnNames = "PHONE_NUMBER"),
+        indexes = @Index(name = "IDX_CUSTOMER_USER_NAME", columnList = "USER_NAME"))
 @JsonIgnoreProperties(allowGetters = true)
 public class Customer {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_seq")
+    @SequenceGenerator(name = "customer_seq", sequenceName = "CUSTOMER_SEQ", allocationSize = 50)
     @Column(name = "ID", updatable = false, nullable = false)
     private Long id;
 
@@ -26,7 +31,7 @@ public class Customer {
     private String name;
 
     @NotBlank
-    @Column(name = "PHONE_NUMBER", nullable = false, unique = true)
+    @Column(name = "PHONE_NUMBER", nullable = false)
     private String phoneNumber;
 
     public Customer(Long id, String userName, String name, String phoneNumber) {
@@ -0,0 +1,62 @@
+package com.softwaretesting.testing.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the values of a Flux as a JSON array or as newline delimited JSON, one buffer per value.
+ * <p>
+ * The Jackson encoder of WebFlux collects a Flux into a list before it writes a JSON array; this writes every
+ * value as soon as it is emitted, so the values are only requested as fast as the client reads them.
+ */
+public final class JsonSequences {
+
+    private static final byte[] ARRAY_START = "[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ARRAY_SEPARATOR = ",".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ARRAY_END = "]".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] LINE_SEPARATOR = "\n".getBytes(StandardCharsets.UTF_8);
+
+    private JsonSequences() {
+        throw new UnsupportedOperationException("Instantiation of utility class is not allowed");
+    }
+
+    public static <T> Flux<DataBuffer> write(Flux<T> values, ObjectWriter writer, boolean ndjson) {
+        byte[] separator = ndjson ? LINE_SEPARATOR : ARRAY_SEPARATOR;
+        Flux<DataBuffer> buffers = values
+                .index()
+                .map(value -> {
+                    byte[] json = toJson(writer, value.getT2());
+                    if (value.getT1() == 0) {
+                        return wrap(json);
+                    }
+                    DataBuffer buffer = DefaultDataBufferFactory.sharedInstance.allocateBuffer(separator.length + json.length);
+                    return buffer.write(separator).write(json);
+                });
+
+        if (ndjson) {
+            return buffers;
+        }
+        return Flux.concat(
+                Flux.defer(() -> Flux.just(wrap(ARRAY_START))),
+                buffers,
+                Flux.defer(() -> Flux.just(wrap(ARRAY_END))));
+    }
+
+    private static byte[] toJson(ObjectWriter writer, Object value) {
+        try {
+            return writer.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static DataBuffer wrap(byte[] bytes) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(bytes);
+    }
+}
@@ -2,16 +2,48 @@ package com.softwaretesting.testing.validator;
 
 import org.springframework.stereotype.Service;
 
-import java.util.regex.Pattern;
-
+/**
+ * Accepts E.164 numbers: "+", a first digit 1-9 and 6 to 14 more digits, i.e. {@code ^\+[1-9][0-9]{6,14}$}.
+ * The number is checked with a plain scan over its chars, without a regex and without allocating.
+ */
 @Service
 public class PhoneNumberValidator {
-    public boolean validate(final String phoneNumber) {
+    private static final int MIN_DIGITS = 7;
+    private static final int MAX_DIGITS = 15;
+
+    public boolean validate(final CharSequence phoneNumber) {
         if (phoneNumber == null) {
             throw new IllegalArgumentException("Number must not be null");
         }
 
-        final Pattern validPhoneNumberRegex = Pattern.compile("^\\+[1-9][0-9]{6,14}$");
-        return validPhoneNumberRegex.matcher(phoneNumber).find();
+        final int length = phoneNumber.length();
+        if (length < MIN_DIGITS + 1 || length > MAX_DIGITS + 1) {
+            return false;
+        }
+        if (phoneNumber.charAt(0) != '+') {
+            return false;
+        }
+        final char first = phoneNumber.charAt(1);
+        if (first < '1' || first > '9') {
+            return false;
+        }
+        for (int i = 2; i < length; i++) {
+            final char c = phoneNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Validates every number of the array, the result at index i belongs to the number at index i.
+     */
+    public boolean[] validateAll(final CharSequence[] phoneNumbers) {
+        final boolean[] valid = new boolean[phoneNumbers.length];
+        for (int i = 0; i < phoneNumbers.length; i++) {
+            valid[i] = validate(phoneNumbers[i]);
+        }
+        return valid;
     }
 }
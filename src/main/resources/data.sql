@@ -1,8 +1,14 @@
-DROP TABLE IF EXISTS customer;
+-- Only creates what is missing: reset.sql drops the in-memory schema first, the durable mode
+-- (application-h2file.properties) keeps the table across restarts
+-- ids are handed out in blocks of 50 (pooled optimizer), matching hibernate.jdbc.batch_size
+CREATE SEQUENCE IF NOT EXISTS customer_seq START WITH 1 INCREMENT BY 50;
 
-CREATE TABLE customer (
-  id INT AUTO_INCREMENT PRIMARY KEY,
+CREATE TABLE IF NOT EXISTS customer (
+  id BIGINT PRIMARY KEY,
   user_name VARCHAR(250) NOT NULL,
   name VARCHAR(250) NOT NULL,
-  phone_number VARCHAR(250) NOT NULL
-);
\ No newline at end of file
+  phone_number VARCHAR(250) NOT NULL,
+  CONSTRAINT uk_customer_phone_number UNIQUE (phone_number)
+);
+
+CREATE INDEX IF NOT EXISTS idx_customer_user_name ON customer (user_name);
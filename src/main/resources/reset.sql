@@ -0,0 +1,3 @@
+-- The in-memory database starts empty for every application context sharing it, data.sql creates the schema again
+DROP TABLE IF EXISTS customer;
+DROP SEQUENCE IF EXISTS customer_seq;
@@ -0,0 +1,81 @@
+package com.softwaretesting.testing;
+
+import com.softwaretesting.testing.dao.CustomerRepository;
+import com.softwaretesting.testing.event.CustomersAddedEvent;
+import com.softwaretesting.testing.event.CustomersDeletedEvent;
+import com.softwaretesting.testing.model.Customer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class CustomerCountGaugeMeterTest {
+    @Mock
+    private CustomerRepository customerRepository;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    private double scrape() {
+        return meterRegistry.get("customer_count").gauge().value();
+    }
+
+    @Test
+    @DisplayName("The count is seeded once from the DB and scrapes do not query it again")
+    void seedFromDatabaseTest() {
+        when(customerRepository.count()).thenReturn(20L);
+
+        new CustomerCountGaugeMeter(meterRegistry, customerRepository);
+
+        assertEquals(20, scrape());
+        assertEquals(20, scrape());
+        verify(customerRepository, times(1)).count();
+    }
+
+    @Test
+    @DisplayName("Added and deleted customers are applied incrementally")
+    void incrementalUpdateTest() {
+        when(customerRepository.count()).thenReturn(2L);
+        final CustomerCountGaugeMeter gaugeMeter = new CustomerCountGaugeMeter(meterRegistry, customerRepository);
+
+        gaugeMeter.onCustomersAdded(new CustomersAddedEvent(List.of(new Customer(), new Customer(), new Customer())));
+        assertEquals(5, scrape());
+
+        gaugeMeter.onCustomersDeleted(new CustomersDeletedEvent(List.of(1L, 2L), 2));
+        assertEquals(3, scrape());
+        verify(customerRepository, times(1)).count();
+    }
+
+    @Test
+    @DisplayName("Reconciling replaces a drifted count with the one from the DB")
+    void reconcileTest() {
+        when(customerRepository.count()).thenReturn(2L, 7L);
+        final CustomerCountGaugeMeter gaugeMeter = new CustomerCountGaugeMeter(meterRegistry, customerRepository);
+        gaugeMeter.onCustomersAdded(new CustomersAddedEvent(List.of(new Customer())));
+
+        gaugeMeter.reconcile();
+
+        assertEquals(7, gaugeMeter.getCustomerCount());
+        assertEquals(7, scrape());
+    }
+}
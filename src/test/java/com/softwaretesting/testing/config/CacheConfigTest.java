@@ -0,0 +1,110 @@
+package com.softwaretesting.testing.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CacheConfigTest {
+
+    private final Cache cache = new CacheConfig().cacheManager("maximumSize=100").getCache(CacheConfig.CUSTOMERS_BY_ID);
+
+    /**
+     * Waits until the thread is done or waits itself, e.g. for the load of the key it evicts.
+     */
+    private static void awaitWaitingOrDone(Thread thread) throws InterruptedException {
+        while (thread.getState() == Thread.State.NEW || thread.getState() == Thread.State.RUNNABLE) {
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    @DisplayName("A lookup keeps its value in the cache")
+    void lookupIsCachedTest() {
+        assertEquals("customer", cache.get(1L, () -> "customer"));
+
+        assertNotNull(cache.get(1L));
+        assertEquals("customer", cache.get(1L, () -> "other"));
+    }
+
+    @Test
+    @DisplayName("A lookup that read before an eviction does not put the evicted value back")
+    void lookupRacingWithEvictionIsNotCachedTest() throws InterruptedException {
+        final Thread delete = new Thread(() -> cache.evict(1L));
+        final String value = cache.get(1L, () -> {
+            // the delete commits and evicts while the lookup holds the row it read before
+            delete.start();
+            awaitWaitingOrDone(delete);
+            return "deleted customer";
+        });
+        delete.join();
+
+        assertEquals("deleted customer", value);
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    @DisplayName("A lookup that read before the region was cleared does not put its value back")
+    void lookupRacingWithClearIsNotCachedTest() throws InterruptedException {
+        final Thread deleteAll = new Thread(cache::clear);
+        final String value = cache.get("f1", () -> {
+            deleteAll.start();
+            awaitWaitingOrDone(deleteAll);
+            return "deleted customer";
+        });
+        deleteAll.join();
+
+        assertEquals("deleted customer", value);
+        assertNull(cache.get("f1"));
+    }
+
+    @Test
+    @DisplayName("Concurrent lookups of a missing key wait for a single load")
+    void concurrentLookupsLoadOnceTest() throws InterruptedException {
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Thread first = new Thread(() -> cache.get(1L, () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            release.await();
+            return "customer";
+        }));
+        final AtomicReference<String> secondValue = new AtomicReference<>();
+        final Thread second = new Thread(() -> secondValue.set(cache.get(1L, () -> {
+            loads.incrementAndGet();
+            return "other";
+        })));
+
+        first.start();
+        loading.await();
+        second.start();
+        awaitWaitingOrDone(second);
+        release.countDown();
+        first.join();
+        second.join();
+
+        assertEquals(1, loads.get());
+        assertEquals("customer", secondValue.get());
+    }
+
+    @Test
+    @DisplayName("A failing lookup caches nothing and its exception reaches the caller")
+    void failingLookupTest() {
+        final Cache.ValueRetrievalException e = assertThrows(Cache.ValueRetrievalException.class,
+                () -> cache.get(1L, () -> {
+                    throw new IllegalStateException("not found");
+                }));
+
+        assertEquals("not found", e.getCause().getMessage());
+        assertNull(cache.get(1L));
+    }
+}
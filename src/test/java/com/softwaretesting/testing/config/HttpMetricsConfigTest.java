@@ -0,0 +1,80 @@
+package com.softwaretesting.testing.config;
+
+import com.softwaretesting.testing.exception.BadRequestException;
+import com.softwaretesting.testing.exception.CustomerAlreadyRegisteredException;
+import com.softwaretesting.testing.exception.CustomerNotFoundException;
+import com.softwaretesting.testing.exception.PhoneNumberTakenException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class HttpMetricsConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("Requests of the customer endpoints are tagged with their outcome and publish a histogram with the SLO buckets")
+    void customerEndpointTest() throws Exception {
+        mockMvc.perform(get("/api/v1/customers/-1")).andExpect(status().isNotFound());
+
+        final Timer timer = meterRegistry.find(HttpMetricsConfig.HTTP_SERVER_REQUESTS)
+                .tags("uri", "/api/v1/customers/{cid}", HttpMetricsConfig.OUTCOME_TAG, HttpMetricsConfig.MISS)
+                .timer();
+        assertNotNull(timer);
+        // the registry of the tests only keeps the SLO buckets, Prometheus adds the percentile histogram ones
+        final CountAtBucket[] buckets = timer.takeSnapshot().histogramCounts();
+        assertEquals(HttpMetricsConfig.SLO_BUCKETS.length, buckets.length);
+        assertTrue(Arrays.stream(buckets).anyMatch(bucket -> bucket.bucket() == 250_000_000));
+    }
+
+    @Test
+    @DisplayName("Other requests keep the plain timer")
+    void otherEndpointTest() throws Exception {
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+
+        final Timer timer = meterRegistry.find(HttpMetricsConfig.HTTP_SERVER_REQUESTS)
+                .tags("uri", "/actuator/health", HttpMetricsConfig.OUTCOME_TAG, HttpMetricsConfig.NONE)
+                .timer();
+        assertNotNull(timer);
+        assertEquals(0, timer.takeSnapshot().histogramCounts().length);
+    }
+
+    @Test
+    void outcomeTest() {
+        assertEquals(HttpMetricsConfig.HIT, HttpMetricsConfig.outcome("GET", 200, null));
+        assertEquals(HttpMetricsConfig.SUCCESS, HttpMetricsConfig.outcome("POST", 200, null));
+        assertEquals(HttpMetricsConfig.MISS, HttpMetricsConfig.outcome("GET", 404, null));
+        assertEquals(HttpMetricsConfig.MISS, HttpMetricsConfig.outcome("DELETE", 200, new CustomerNotFoundException("gone")));
+        assertEquals(HttpMetricsConfig.MISS, HttpMetricsConfig.outcome("GET", 200,
+                new ResponseStatusException(HttpStatus.NOT_FOUND)));
+        assertEquals(HttpMetricsConfig.DUPLICATE, HttpMetricsConfig.outcome("POST", 400,
+                new PhoneNumberTakenException("+4915100000000")));
+        assertEquals(HttpMetricsConfig.DUPLICATE, HttpMetricsConfig.outcome("POST", 500,
+                new CustomerAlreadyRegisteredException()));
+        assertEquals(HttpMetricsConfig.VALIDATION_FAILURE, HttpMetricsConfig.outcome("GET", 400,
+                new BadRequestException("q must not be blank")));
+        assertEquals(HttpMetricsConfig.VALIDATION_FAILURE, HttpMetricsConfig.outcome("PUT", 405, null));
+        assertEquals(HttpMetricsConfig.ERROR, HttpMetricsConfig.outcome("GET", 200, new IllegalStateException()));
+        assertEquals(HttpMetricsConfig.ERROR, HttpMetricsConfig.outcome("POST", 503, null));
+    }
+}
@@ -0,0 +1,90 @@
+package com.softwaretesting.testing.config;
+
+import com.softwaretesting.testing.customerManagement.service.CustomerManagementService;
+import com.softwaretesting.testing.dao.CustomerRepository;
+import com.softwaretesting.testing.model.Customer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class PopulateDatabaseTest {
+    @Mock
+    private CustomerManagementService customerManagementService;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    private PopulateDatabase populateDatabase;
+
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        populateDatabase = new PopulateDatabase(customerManagementService, customerRepository);
+        ReflectionTestUtils.setField(populateDatabase, "seedSize", 5);
+        ReflectionTestUtils.setField(populateDatabase, "chunkSize", 2);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    @Test
+    @DisplayName("An empty table is seeded in chunks")
+    void seedEmptyTableTest() throws Exception {
+        when(customerRepository.count()).thenReturn(0L);
+        // the list is reused for the next chunk, so its sizes are taken when saveAll is called
+        List<Integer> chunkSizes = new ArrayList<>();
+        when(customerManagementService.saveAll(anyList())).thenAnswer(invocation -> {
+            chunkSizes.add(invocation.<List<Customer>>getArgument(0).size());
+            return List.of();
+        });
+
+        populateDatabase.run(new DefaultApplicationArguments());
+
+        assertEquals(List.of(2, 2, 1), chunkSizes);
+    }
+
+    @Test
+    @DisplayName("A seed that stopped part way is resumed after the chunks committed before")
+    void resumeSeedTest() throws Exception {
+        when(customerRepository.count()).thenReturn(2L);
+        when(customerRepository.selectCustomerByPhoneNumber(anyString())).thenReturn(Optional.empty());
+        when(customerRepository.selectCustomerByPhoneNumber("+490001")).thenReturn(Optional.of(new Customer()));
+        List<String> firstUserNames = new ArrayList<>();
+        when(customerManagementService.saveAll(anyList())).thenAnswer(invocation -> {
+            firstUserNames.add(invocation.<List<Customer>>getArgument(0).get(0).getUserName());
+            return List.of();
+        });
+
+        populateDatabase.run(new DefaultApplicationArguments());
+
+        assertEquals(List.of("f3", "f5"), firstUserNames);
+    }
+
+    @Test
+    @DisplayName("A table that holds customers already is not seeded again")
+    void skipSeedTest() throws Exception {
+        when(customerRepository.count()).thenReturn(1_000_000L);
+
+        populateDatabase.run(new DefaultApplicationArguments());
+
+        verify(customerManagementService, never()).saveAll(anyList());
+    }
+}
@@ -0,0 +1,79 @@
+package com.softwaretesting.testing.config;
+
+import com.softwaretesting.testing.customerManagement.service.CustomerManagementService;
+import com.softwaretesting.testing.exception.CustomerNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class TransactionMetricsConfigTest {
+
+    @Autowired
+    private CustomerManagementService customerManagementService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private long count(String name, String... tags) {
+        Timer timer = meterRegistry.find(name).tags(tags).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    @Test
+    @DisplayName("A committed transaction is timed as a whole and its commit on its own, tagged with the service method")
+    void committedTransactionTest() {
+        final String[] tags = {"method", "CustomerManagementServiceImp.listPage"};
+        final long transactions = count(TransactionMetricsConfig.TRANSACTION_DURATION, tags);
+        final long commits = count(TransactionMetricsConfig.COMMIT_DURATION, tags);
+
+        customerManagementService.listPage(0L, 1);
+
+        assertEquals(transactions + 1, count(TransactionMetricsConfig.TRANSACTION_DURATION, "method",
+                "CustomerManagementServiceImp.listPage", "exception", "None"));
+        assertEquals(commits + 1, count(TransactionMetricsConfig.COMMIT_DURATION, tags));
+    }
+
+    @Test
+    @DisplayName("A rolled back transaction is tagged with the exception, the repository calls are timed per method")
+    void rolledBackTransactionTest() {
+        final String[] tags = {"method", "CustomerManagementServiceImp.delete", "exception", "CustomerNotFoundException"};
+        final long transactions = count(TransactionMetricsConfig.TRANSACTION_DURATION, tags);
+        final long deleteCalls = count("spring.data.repository.invocations", "method", "deleteCustomerById");
+
+        assertThrows(CustomerNotFoundException.class, () -> customerManagementService.delete(-1L));
+
+        assertEquals(transactions + 1, count(TransactionMetricsConfig.TRANSACTION_DURATION, tags));
+        assertEquals(deleteCalls + 1, count("spring.data.repository.invocations", "method", "deleteCustomerById"));
+        assertNotNull(meterRegistry.find("hikaricp.connections.acquire").timer());
+    }
+
+    @Test
+    @DisplayName("A page of DTOs starts no transaction of the service, its query commits the one of the repository")
+    void listOutDTOPageTest() {
+        final long transactions = count(TransactionMetricsConfig.TRANSACTION_DURATION,
+                "method", "CustomerManagementServiceImp.listOutDTOPage");
+        final long commits = count(TransactionMetricsConfig.COMMIT_DURATION,
+                "method", "SimpleJpaRepository.findOutDTOsByIdGreaterThan");
+
+        customerManagementService.listOutDTOPage(0L, 1);
+
+        assertEquals(transactions, count(TransactionMetricsConfig.TRANSACTION_DURATION,
+                "method", "CustomerManagementServiceImp.listOutDTOPage"));
+        assertEquals(commits + 1, count(TransactionMetricsConfig.COMMIT_DURATION,
+                "method", "SimpleJpaRepository.findOutDTOsByIdGreaterThan"));
+    }
+
+    @Test
+    void methodTagTest() {
+        assertEquals("CustomerManagementServiceImp.delete", TransactionMetricsConfig.methodTag(
+                "com.softwaretesting.testing.customerManagement.service.CustomerManagementServiceImp.delete"));
+        assertEquals("CustomerInsertQueue.commit", TransactionMetricsConfig.methodTag("CustomerInsertQueue.commit"));
+        assertEquals("unnamed", TransactionMetricsConfig.methodTag(null));
+    }
+}
@@ -0,0 +1,38 @@
+package com.softwaretesting.testing.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VirtualThreadsConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(VirtualThreadsConfig.class);
+
+    @Test
+    @DisplayName("Requests stay on platform threads unless virtual threads are enabled")
+    void disabledByDefaultTest() {
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(ExecutorService.class));
+    }
+
+    @Test
+    @DisplayName("Enabling virtual threads replaces the Tomcat executor, or fails fast if the JVM has none")
+    void enabledTest() {
+        contextRunner.withPropertyValues("spring.threads.virtual.enabled=true").run(context -> {
+            if (Runtime.version().feature() >= 21) {
+                assertThat(context).hasSingleBean(TomcatProtocolHandlerCustomizer.class);
+                assertThat(context.getBean(ExecutorService.class).submit(() -> Thread.currentThread().toString()).get())
+                        .contains("VirtualThread");
+            } else {
+                assertThat(context).hasFailed();
+                assertThat(context).getFailure()
+                        .hasStackTraceContaining("spring.threads.virtual.enabled is set, but Java");
+            }
+        });
+    }
+}
@@ -1,5 +1,6 @@
 package com.softwaretesting.testing.customerManagement.controller;
 
+import com.softwaretesting.testing.index.CustomerSearchIndex;
 import com.softwaretesting.testing.model.Customer;
 import net.datafaker.Faker;
 import org.junit.jupiter.api.DisplayName;
@@ -11,21 +12,35 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+// own in-memory DB, contexts sharing one drop and re-create the sequence under each other's pooled ids
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:customermanagementcontrollertest;LAZY_QUERY_EXECUTION=TRUE",
+        "customer.search.enabled=true"})
 @AutoConfigureMockMvc
 class CustomerManagementControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private CustomerSearchIndex customerSearchIndex;
+
     private final String endpoint_base = "/api/v1/customers";
 
     final Faker dataFaker = new Faker();
@@ -170,10 +185,63 @@ class CustomerManagementControllerTest {
     }
 
     @Test
-    @DisplayName("Test not allowed DELETE-Method")
-    void notAllowedDeleteMethodTest() throws Exception {
+    @DisplayName("Test GET of a cached customer after it was deleted")
+    void getDeletedCustomerTest() throws Exception {
+        final Customer customer = getSampleCustomer();
+        final Pattern idRegex = Pattern.compile("\"id\":(\\d{1,5})");
+
+        final MvcResult result = mockMvc.perform(post(endpoint_base)
+                        .content(getCustomerJson(customer))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        final Matcher idMatcher = idRegex.matcher(result.getResponse().getContentAsString());
+        if (idMatcher.find()) {
+            final String id = idMatcher.group(1);
+
+            // the first GET puts the customer into the cache, the DELETE has to evict it again
+            mockMvc.perform(get(endpoint_base + "/{id}", id))
+                    .andExpect(status().isOk());
+            mockMvc.perform(delete(endpoint_base + "/{id}", id))
+                    .andExpect(status().isOk());
+            mockMvc.perform(get(endpoint_base + "/{id}", id))
+                    .andExpect(status().isNotFound());
+        } else {
+            fail();
+        }
+    }
+
+    @Test
+    @DisplayName("Test bulk DELETE without ids")
+    void bulkDeleteWithoutIdsTest() throws Exception {
         mockMvc.perform(delete(endpoint_base))
-                .andExpect(status().isMethodNotAllowed());
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Test bulk DELETE, ids without a customer are skipped")
+    void bulkDeleteTest() throws Exception {
+        final Pattern idRegex = Pattern.compile("\"id\":(\\d+)");
+        final StringBuilder ids = new StringBuilder();
+        for (int i = 0; i < 2; i++) {
+            final MvcResult result = mockMvc.perform(post(endpoint_base)
+                            .content(getCustomerJson(getSampleCustomer()))
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            final Matcher idMatcher = idRegex.matcher(result.getResponse().getContentAsString());
+            assertTrue(idMatcher.find());
+            ids.append(idMatcher.group(1)).append(',');
+        }
+
+        mockMvc.perform(delete(endpoint_base).param("ids", ids + "-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.requested").value(3))
+                .andExpect(jsonPath("$.deleted").value(2));
+        mockMvc.perform(delete(endpoint_base).param("ids", ids + "-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(0));
     }
 
     @Test
@@ -193,4 +261,144 @@ class CustomerManagementControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Test list GET-Method streams a JSON array containing a newly added customer")
+    void getListStreamsJsonArrayTest() throws Exception {
+        final Customer customer = getSampleCustomer();
+        mockMvc.perform(post(endpoint_base)
+                        .content(getCustomerJson(customer))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        final MvcResult result = mockMvc.perform(get(endpoint_base + "/list"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        final MvcResult streamed = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$").isArray())
+                .andReturn();
+
+        assertTrue(streamed.getResponse().getContentAsString().contains(customer.getUserName()));
+    }
+
+    @Test
+    @DisplayName("Test list GET-Method streams newline delimited JSON if requested")
+    void getListStreamsNdjsonTest() throws Exception {
+        final Customer customer = getSampleCustomer();
+        mockMvc.perform(post(endpoint_base)
+                        .content(getCustomerJson(customer))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        final MvcResult result = mockMvc.perform(get(endpoint_base + "/list")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        final MvcResult streamed = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        final String body = streamed.getResponse().getContentAsString();
+        assertTrue(body.startsWith("{"));
+        assertTrue(body.lines().anyMatch(line -> line.contains(customer.getUserName())));
+    }
+
+    @Test
+    @DisplayName("Test paginated list GET-Method returns a cursor for the next page")
+    void getListPageTest() throws Exception {
+        mockMvc.perform(post(endpoint_base)
+                        .content(getCustomerJson(getSampleCustomer()))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        mockMvc.perform(post(endpoint_base)
+                        .content(getCustomerJson(getSampleCustomer()))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        final MvcResult firstPage = mockMvc.perform(get(endpoint_base + "/list").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn();
+
+        final String cursor = firstPage.getResponse().getHeader("X-Next-Cursor");
+        mockMvc.perform(get(endpoint_base + "/list").param("after", cursor).param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(greaterThan(Integer.parseInt(cursor))));
+    }
+
+    @Test
+    @DisplayName("Test paginated list GET-Method without a next page")
+    void getLastListPageTest() throws Exception {
+        mockMvc.perform(get(endpoint_base + "/list")
+                        .param("after", String.valueOf(Long.MAX_VALUE))
+                        .param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    @DisplayName("Test paginated list GET-Method with an invalid page size")
+    void getListPageWithInvalidLimitTest() throws Exception {
+        mockMvc.perform(get(endpoint_base + "/list").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get(endpoint_base + "/list").param("limit", "1001"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Test search GET-Method finds a new customer by a prefix and with typos")
+    void searchTest() throws Exception {
+        final Customer customer = new Customer(0L, "qzwiebel", "Quirinus Zwiebelbaum", "+4915199990000");
+        final Pattern idRegex = Pattern.compile("\"id\":(\\d{1,5})");
+
+        final MvcResult result = mockMvc.perform(post(endpoint_base)
+                        .content(getCustomerJson(customer))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+        // built in the background once the application is ready
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!customerSearchIndex.isAvailable() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        mockMvc.perform(get(endpoint_base + "/search").param("q", "zwie").param("field", "name"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].userName").value("qzwiebel"));
+        mockMvc.perform(get(endpoint_base + "/search").param("q", "quirinis zwibelbaum").param("fuzzy", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].userName", hasItem("qzwiebel")));
+
+        final Matcher idMatcher = idRegex.matcher(result.getResponse().getContentAsString());
+        assertTrue(idMatcher.find());
+        mockMvc.perform(delete(endpoint_base + "/{id}", idMatcher.group(1)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(endpoint_base + "/search").param("q", "zwie"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    @DisplayName("Test search GET-Method with invalid parameters")
+    void searchWithInvalidParametersTest() throws Exception {
+        mockMvc.perform(get(endpoint_base + "/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get(endpoint_base + "/search").param("q", "f1").param("limit", "101"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get(endpoint_base + "/search").param("q", "f1").param("field", "id"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get(endpoint_base + "/search").param("q", "f1").param("field", "userName").param("fuzzy", "true"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,155 @@
+package com.softwaretesting.testing.customerManagement.controller;
+
+import com.softwaretesting.testing.dto.outbound.CustomerOutDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.main.web-application-type=reactive",
+        "spring.datasource.url=jdbc:h2:mem:reactivetest;LAZY_QUERY_EXECUTION=TRUE",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactivetest?LAZY_QUERY_EXECUTION=TRUE",
+        "customer.seed.size=100"})
+@AutoConfigureWebTestClient
+class ReactiveCustomerManagementControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private final String endpoint_base = "/api/v1/customers";
+
+    private String getCustomerJson(String userName, String name, String phoneNumber) {
+        return "{\"userName\": \"" + userName + "\"," +
+                "\"name\": \"" + name + "\"," +
+                "\"phoneNumber\": \"" + phoneNumber + "\"}";
+    }
+
+    private String randomPhoneNumber() {
+        return "+4930" + ThreadLocalRandom.current().nextInt(10_000_000, 100_000_000);
+    }
+
+    private CustomerOutDTO addCustomer(String phoneNumber) {
+        return webTestClient.post().uri(endpoint_base)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(getCustomerJson("reactive", "Reactive Customer", phoneNumber))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(CustomerOutDTO.class)
+                .returnResult().getResponseBody();
+    }
+
+    @Test
+    @DisplayName("Add a customer on the reactive stack and look it up by id")
+    void addAndGetCustomerTest() {
+        final String phoneNumber = randomPhoneNumber();
+        final CustomerOutDTO added = addCustomer(phoneNumber);
+        assertNotNull(added.getId());
+
+        webTestClient.get().uri(endpoint_base + "/" + added.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(added.getId())
+                .jsonPath("$.phoneNumber").isEqualTo(phoneNumber);
+    }
+
+    @Test
+    @DisplayName("Adding a customer with a taken phone number is a bad request")
+    void addCustomerWithTakenPhoneNumberTest() {
+        final String phoneNumber = randomPhoneNumber();
+        addCustomer(phoneNumber);
+
+        webTestClient.post().uri(endpoint_base)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(getCustomerJson("other", "Other Customer", phoneNumber))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("Looking up an unknown id is not found")
+    void getUnknownCustomerTest() {
+        webTestClient.get().uri(endpoint_base + "/" + Long.MAX_VALUE)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Delete a customer, then deleting it again is not found")
+    void deleteCustomerTest() {
+        final CustomerOutDTO added = addCustomer(randomPhoneNumber());
+
+        webTestClient.delete().uri(endpoint_base + "/" + added.getId())
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.delete().uri(endpoint_base + "/" + added.getId())
+                .exchange()
+                .expectStatus().isNotFound();
+        webTestClient.get().uri(endpoint_base + "/" + added.getId())
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("The list streams all customers as a JSON array or as newline delimited JSON")
+    void listTest() {
+        final List<CustomerOutDTO> customers = webTestClient.get().uri(endpoint_base + "/list")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBodyList(CustomerOutDTO.class)
+                .returnResult().getResponseBody();
+        assertNotNull(customers);
+
+        final List<CustomerOutDTO> lines = webTestClient.get().uri(endpoint_base + "/list")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+                .returnResult(CustomerOutDTO.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+        assertNotNull(lines);
+
+        assertEquals(customers.size(), lines.size());
+        for (int i = 1; i < customers.size(); i++) {
+            assertEquals(customers.get(i).getId(), lines.get(i).getId());
+            assertTrue(customers.get(i - 1).getId() < customers.get(i).getId());
+        }
+    }
+
+    @Test
+    @DisplayName("A full page of the list returns the cursor of the next page")
+    void listPageTest() {
+        final List<CustomerOutDTO> page = webTestClient.get().uri(endpoint_base + "/list?limit=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(CustomerOutDTO.class).hasSize(2)
+                .returnResult().getResponseBody();
+        assertNotNull(page);
+
+        webTestClient.get().uri(endpoint_base + "/list?limit=2")
+                .exchange()
+                .expectHeader().valueEquals(CustomerManagementController.NEXT_CURSOR_HEADER, String.valueOf(page.get(1).getId()));
+        webTestClient.get().uri(endpoint_base + "/list?limit=2&after=" + page.get(1).getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].id").value(id -> assertTrue(((Number) id).longValue() > page.get(1).getId()));
+        webTestClient.get().uri(endpoint_base + "/list?limit=0")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+}
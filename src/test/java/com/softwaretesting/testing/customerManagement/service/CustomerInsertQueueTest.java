@@ -0,0 +1,260 @@
+package com.softwaretesting.testing.customerManagement.service;
+
+import com.softwaretesting.testing.config.CacheConfig;
+import com.softwaretesting.testing.dao.CustomerConstraints;
+import com.softwaretesting.testing.dao.CustomerRepository;
+import com.softwaretesting.testing.event.CustomersAddedEvent;
+import com.softwaretesting.testing.exception.BadRequestException;
+import com.softwaretesting.testing.model.Customer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CustomerInsertQueueTest {
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private CustomerManagementService customerManagementService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Captor
+    private ArgumentCaptor<Collection<Customer>> customersCaptor;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.CUSTOMERS_BY_USER_NAME);
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    private CustomerInsertQueue customerInsertQueue;
+
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        doAnswer(invocation -> {
+            Collection<Customer> customers = invocation.getArgument(0);
+            customers.forEach(customer -> customer.setId(nextId.getAndIncrement()));
+            return null;
+        }).when(customerRepository).insertAll(any());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        customerInsertQueue.stop();
+        closeable.close();
+    }
+
+    private CustomerInsertQueue newQueue(int capacity, int batchSize, Duration maxLinger) {
+        return newQueue(capacity, batchSize, maxLinger, Duration.ofSeconds(5));
+    }
+
+    private CustomerInsertQueue newQueue(int capacity, int batchSize, Duration maxLinger, Duration commitTimeout) {
+        customerInsertQueue = new CustomerInsertQueue(meterRegistry, customerRepository, customerManagementService,
+                eventPublisher, cacheManager, transactionManager, validator, true, capacity, batchSize, maxLinger, commitTimeout);
+        return customerInsertQueue;
+    }
+
+    private static Customer customer(int i) {
+        return new Customer(null, "user" + i, "Name " + i, "+4915100000" + i);
+    }
+
+    @Test
+    @DisplayName("Customers queued together are inserted in one transaction, each future completes after the commit")
+    void batchTest() throws Exception {
+        newQueue(10, 3, Duration.ofSeconds(10));
+        cacheManager.getCache(CacheConfig.CUSTOMERS_BY_USER_NAME).put("user1", customer(0));
+
+        // queued before the writer starts, so it finds all of them at once
+        List<CompletableFuture<Customer>> futures = List.of(
+                customerInsertQueue.submit(customer(1)),
+                customerInsertQueue.submit(customer(2)),
+                customerInsertQueue.submit(customer(3)));
+        assertEquals(3, meterRegistry.get("customer_insert_queue_depth").gauge().value());
+        customerInsertQueue.start();
+
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i + 1L, futures.get(i).get(5, TimeUnit.SECONDS).getId());
+        }
+        verify(customerRepository).insertAll(customersCaptor.capture());
+        assertEquals(3, customersCaptor.getValue().size());
+        verify(transactionManager).commit(any());
+        verify(eventPublisher).publishEvent(any(CustomersAddedEvent.class));
+        assertNull(cacheManager.getCache(CacheConfig.CUSTOMERS_BY_USER_NAME).get("user1"));
+        assertEquals(0, meterRegistry.get("customer_insert_queue_depth").gauge().value());
+        assertEquals(1, meterRegistry.get("customer_insert_batch_size").summary().count());
+        assertEquals(3, meterRegistry.get("customer_insert_batch_size").summary().totalAmount());
+    }
+
+    @Test
+    @DisplayName("A lone customer is inserted once the maximum linger passed")
+    void lingerTest() {
+        newQueue(10, 100, Duration.ofMillis(20)).start();
+
+        assertEquals(1L, customerInsertQueue.insert(customer(1)).getId());
+        verify(customerRepository).insertAll(customersCaptor.capture());
+        assertEquals(1, customersCaptor.getValue().size());
+    }
+
+    @Test
+    @DisplayName("If a phone number of the batch is taken, the customers are added one by one")
+    void phoneNumberTakenTest() throws Exception {
+        newQueue(10, 2, Duration.ofSeconds(10));
+        doThrow(new DataIntegrityViolationException("Unique index or primary key violation: "
+                + CustomerConstraints.PHONE_NUMBER_UNIQUE)).when(customerRepository).insertAll(any());
+        final Customer first = customer(1);
+        final Customer second = customer(2);
+        when(customerManagementService.addCustomer(same(first))).thenReturn(first);
+        when(customerManagementService.addCustomer(same(second))).thenThrow(new BadRequestException("Phone Number taken"));
+
+        CompletableFuture<Customer> firstFuture = customerInsertQueue.submit(first);
+        CompletableFuture<Customer> secondFuture = customerInsertQueue.submit(second);
+        customerInsertQueue.start();
+
+        assertSame(first, firstFuture.get(5, TimeUnit.SECONDS));
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> secondFuture.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(BadRequestException.class, exception.getCause());
+        verify(transactionManager).rollback(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    @DisplayName("If another constraint rejects the batch, only the offending customer fails")
+    void otherConstraintTest() throws Exception {
+        newQueue(10, 2, Duration.ofSeconds(10));
+        doThrow(new DataIntegrityViolationException("NULL not allowed for column \"NAME\""))
+                .when(customerRepository).insertAll(any());
+        final Customer first = customer(1);
+        final Customer second = customer(2);
+        final DataIntegrityViolationException violation = new DataIntegrityViolationException("NULL not allowed");
+        when(customerManagementService.addCustomer(same(first))).thenReturn(first);
+        when(customerManagementService.addCustomer(same(second))).thenThrow(violation);
+
+        CompletableFuture<Customer> firstFuture = customerInsertQueue.submit(first);
+        CompletableFuture<Customer> secondFuture = customerInsertQueue.submit(second);
+        customerInsertQueue.start();
+
+        assertSame(first, firstFuture.get(5, TimeUnit.SECONDS));
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> secondFuture.get(5, TimeUnit.SECONDS));
+        assertSame(violation, exception.getCause());
+    }
+
+    @Test
+    @DisplayName("Invalid customers are rejected before they join a batch")
+    void invalidCustomerTest() {
+        newQueue(10, 10, Duration.ZERO).start();
+
+        assertThrows(ConstraintViolationException.class,
+                () -> customerInsertQueue.insert(new Customer(null, "user1", " ", "+491510000001")));
+        assertThrows(ConstraintViolationException.class,
+                () -> customerInsertQueue.submit(new Customer(null, null, "Name 1", "+491510000001")));
+        assertEquals(0, meterRegistry.get("customer_insert_queue_depth").gauge().value());
+        verifyNoInteractions(customerRepository);
+    }
+
+    @Test
+    @DisplayName("The blocking insert rethrows why the customer could not be added")
+    void insertFailureTest() {
+        newQueue(10, 1, Duration.ZERO).start();
+        doThrow(new IllegalStateException("DB down")).when(customerRepository).insertAll(any());
+
+        final Customer customer = customer(1);
+        assertThrows(IllegalStateException.class, () -> customerInsertQueue.insert(customer));
+        assertNull(customer.getId());
+    }
+
+    @Test
+    @DisplayName("A full queue rejects further customers with 503")
+    void fullQueueTest() {
+        newQueue(1, 10, Duration.ZERO);
+
+        customerInsertQueue.submit(customer(1));
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> customerInsertQueue.submit(customer(2)));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+        assertEquals(0, meterRegistry.get("customer_insert_queue_remaining_capacity").gauge().value());
+    }
+
+    @Test
+    @DisplayName("A stopped queue rejects further customers with 503 instead of leaving them waiting")
+    void submitAfterStopTest() throws InterruptedException {
+        newQueue(10, 10, Duration.ZERO).start();
+        customerInsertQueue.stop();
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> customerInsertQueue.submit(customer(1)));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+        exception = assertThrows(ResponseStatusException.class, () -> customerInsertQueue.insert(customer(2)));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+        assertEquals(0, meterRegistry.get("customer_insert_queue_depth").gauge().value());
+        verifyNoInteractions(customerRepository);
+    }
+
+    @Test
+    @DisplayName("An error in the writer fails its batch, the writer keeps inserting the next ones")
+    void writerErrorTest() {
+        newQueue(10, 1, Duration.ZERO).start();
+        doThrow(new OutOfMemoryError("Java heap space")).doAnswer(invocation -> {
+            Collection<Customer> customers = invocation.getArgument(0);
+            customers.forEach(customer -> customer.setId(nextId.getAndIncrement()));
+            return null;
+        }).when(customerRepository).insertAll(any());
+
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> customerInsertQueue.insert(customer(1)));
+        assertInstanceOf(OutOfMemoryError.class, exception.getCause());
+        assertEquals(1L, customerInsertQueue.insert(customer(2)).getId());
+    }
+
+    @Test
+    @DisplayName("A customer not added within max-linger plus the commit timeout is answered with 503")
+    void insertTimeoutTest() {
+        // the writer is not started, nothing takes the customer
+        newQueue(10, 10, Duration.ZERO, Duration.ofMillis(50));
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> customerInsertQueue.insert(customer(1)));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+        assertEquals(0, meterRegistry.get("customer_insert_queue_depth").gauge().value());
+    }
+}
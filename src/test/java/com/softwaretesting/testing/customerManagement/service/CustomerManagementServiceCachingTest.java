@@ -0,0 +1,110 @@
+package com.softwaretesting.testing.customerManagement.service;
+
+import com.softwaretesting.testing.config.CacheConfig;
+import com.softwaretesting.testing.model.Customer;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.datafaker.Faker;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+@SpringBootTest
+class CustomerManagementServiceCachingTest {
+
+    @Autowired
+    private CustomerManagementService customerManagementService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Faker dataFaker = new Faker();
+
+    private Customer addSampleCustomer() {
+        return customerManagementService.addCustomer(new Customer(
+                null,
+                dataFaker.name().username(),
+                dataFaker.name().fullName(),
+                dataFaker.phoneNumber().phoneNumber()));
+    }
+
+    private Cache cache(String name) {
+        return cacheManager.getCache(name);
+    }
+
+    @Test
+    @DisplayName("Repeated lookups are served from the cache")
+    void lookupsAreCachedTest() {
+        final Customer customer = addSampleCustomer();
+
+        final Customer byId = customerManagementService.findById(customer.getId());
+        final Customer byUserName = customerManagementService.findByUserName(customer.getUserName());
+        final Customer byPhoneNumber = customerManagementService.selectCustomerByPhoneNumber(customer.getPhoneNumber());
+
+        assertSame(byId, customerManagementService.findById(customer.getId()));
+        assertSame(byUserName, customerManagementService.findByUserName(customer.getUserName()));
+        assertSame(byPhoneNumber, customerManagementService.selectCustomerByPhoneNumber(customer.getPhoneNumber()));
+    }
+
+    @Test
+    @DisplayName("Deleting a customer evicts it from every region")
+    void deleteEvictsTest() {
+        final Customer customer = addSampleCustomer();
+        customerManagementService.findById(customer.getId());
+        customerManagementService.findByUserName(customer.getUserName());
+        customerManagementService.selectCustomerByPhoneNumber(customer.getPhoneNumber());
+        assertNotNull(cache(CacheConfig.CUSTOMERS_BY_ID).get(customer.getId()));
+
+        customerManagementService.delete(customer.getId());
+
+        assertNull(cache(CacheConfig.CUSTOMERS_BY_ID).get(customer.getId()));
+        assertNull(cache(CacheConfig.CUSTOMERS_BY_USER_NAME).get(customer.getUserName()));
+        assertNull(cache(CacheConfig.CUSTOMERS_BY_PHONE_NUMBER).get(customer.getPhoneNumber()));
+    }
+
+    @Test
+    @DisplayName("Adding a customer evicts the cached lookup of its user name")
+    void addEvictsUserNameTest() {
+        final Customer customer = addSampleCustomer();
+        customerManagementService.findByUserName(customer.getUserName());
+        assertNotNull(cache(CacheConfig.CUSTOMERS_BY_USER_NAME).get(customer.getUserName()));
+
+        final Customer sameUserName = new Customer(null, customer.getUserName(), dataFaker.name().fullName(),
+                dataFaker.phoneNumber().phoneNumber());
+        customerManagementService.addCustomer(sameUserName);
+
+        assertNull(cache(CacheConfig.CUSTOMERS_BY_USER_NAME).get(customer.getUserName()));
+    }
+
+    @Test
+    @DisplayName("Hits and misses are published per region")
+    void metricsTest() {
+        final Customer customer = addSampleCustomer();
+        final double hits = cacheGets("hit");
+        final double misses = cacheGets("miss");
+
+        customerManagementService.findById(customer.getId());
+        customerManagementService.findById(customer.getId());
+
+        assertEquals(misses + 1, cacheGets("miss"));
+        assertEquals(hits + 1, cacheGets("hit"));
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", CacheConfig.CUSTOMERS_BY_ID)
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+}
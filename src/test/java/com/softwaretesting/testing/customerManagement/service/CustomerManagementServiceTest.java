@@ -1,8 +1,15 @@
 package com.softwaretesting.testing.customerManagement.service;
 
+import com.softwaretesting.testing.dao.CustomerConstraints;
 import com.softwaretesting.testing.dao.CustomerRepository;
+import com.softwaretesting.testing.dto.outbound.CustomerOutDTO;
+import com.softwaretesting.testing.event.CustomersAddedEvent;
+import com.softwaretesting.testing.event.CustomersDeletedEvent;
 import com.softwaretesting.testing.exception.BadRequestException;
 import com.softwaretesting.testing.exception.CustomerNotFoundException;
+import com.softwaretesting.testing.index.CustomerReadModel;
+import com.softwaretesting.testing.index.CustomerSearchIndex;
+import com.softwaretesting.testing.index.PhoneNumberFilter;
 import com.softwaretesting.testing.model.Customer;
 import com.softwaretesting.testing.validator.CustomerValidator;
 import net.datafaker.Faker;
@@ -11,9 +18,16 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.persistence.EntityManager;
+import javax.validation.Validation;
+import javax.validation.Validator;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -27,6 +41,24 @@ class CustomerManagementServiceTest {
     @Mock
     private CustomerValidator customerValidator;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PhoneNumberFilter phoneNumberFilter;
+
+    @Mock
+    private CustomerReadModel customerReadModel;
+
+    @Mock
+    private CustomerSearchIndex customerSearchIndex;
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
     @InjectMocks
     private CustomerManagementServiceImp customerManagementService;
 
@@ -150,6 +182,7 @@ class CustomerManagementServiceTest {
     @DisplayName("Searching successfully for a customer by phone number")
     void findValidCustomerByPhoneNumberTest() {
         final Customer expectedCustomer = getSampleCustomer();
+        when(phoneNumberFilter.mightContain(expectedCustomer.getPhoneNumber())).thenReturn(true);
         when(customerRepository.selectCustomerByPhoneNumber(expectedCustomer.getPhoneNumber())).thenReturn(Optional.of(expectedCustomer));
 
         final Customer actualCustomer = customerManagementService.selectCustomerByPhoneNumber(expectedCustomer.getPhoneNumber());
@@ -167,6 +200,7 @@ class CustomerManagementServiceTest {
         final String expectedPhoneNumber = getSampleCustomer().getPhoneNumber();
         final String expectedMessage = "404 NOT_FOUND \"java.util.Optional with [PhoneNumber]'[" + expectedPhoneNumber + "]' does not exist.\"";
 
+        when(phoneNumberFilter.mightContain(expectedPhoneNumber)).thenReturn(true);
         when(customerRepository.selectCustomerByPhoneNumber(expectedPhoneNumber))
                 .thenReturn(Optional.empty());
 
@@ -185,19 +219,37 @@ class CustomerManagementServiceTest {
         verify(customerValidator, times(1)).validate404(Optional.empty(), "phone number", expectedPhoneNumber);
     }
 
+    @Test
+    @DisplayName("Searching for a phone number the filter rules out does not query the DB")
+    void searchFilteredPhoneNumberTest() {
+        final String expectedPhoneNumber = getSampleCustomer().getPhoneNumber();
+        when(phoneNumberFilter.mightContain(expectedPhoneNumber)).thenReturn(false);
+
+        doThrow(new ResponseStatusException(HttpStatus.NOT_FOUND))
+                .when(customerValidator)
+                .validate404(any(), anyString(), anyString());
+
+        assertThrows(ResponseStatusException.class,
+                () -> customerManagementService.selectCustomerByPhoneNumber(expectedPhoneNumber));
+
+        verify(customerRepository, never()).selectCustomerByPhoneNumber(anyString());
+        verify(customerValidator, times(1)).validate404(Optional.empty(), "phone number", expectedPhoneNumber);
+    }
+
     @Test
     @DisplayName("Successfully delete existing customer")
     void deleteExistingCustomerTest() {
         final Long idOfCustomerToDelete = getSampleCustomer().getId();
 
-        when(customerRepository.existsById(idOfCustomerToDelete)).thenReturn(true);
+        when(customerRepository.deleteCustomerById(idOfCustomerToDelete)).thenReturn(1);
 
         customerManagementService.delete(idOfCustomerToDelete);
-        then(customerRepository).should().existsById(idCaptor.capture());
+        then(customerRepository).should().deleteCustomerById(idCaptor.capture());
 
         assertEquals(idOfCustomerToDelete, idCaptor.getValue());
-        verify(customerRepository, times(1)).existsById(idOfCustomerToDelete);
-        verify(customerRepository, times(1)).deleteById(idOfCustomerToDelete);
+        verify(customerRepository, never()).existsById(any());
+        verify(customerRepository, never()).deleteById(any());
+        verify(eventPublisher, times(1)).publishEvent(any(CustomersDeletedEvent.class));
     }
 
     @Test
@@ -206,15 +258,39 @@ class CustomerManagementServiceTest {
         final Long idOfCustomerToDelete = getSampleCustomer().getId();
         final String expectedMessage = "Customer with id " + idOfCustomerToDelete + " does not exists";
 
-        when(customerRepository.existsById(idOfCustomerToDelete)).thenReturn(false);
+        when(customerRepository.deleteCustomerById(idOfCustomerToDelete)).thenReturn(0);
 
         final Exception exception = assertThrows(CustomerNotFoundException.class, () -> customerManagementService.delete(idOfCustomerToDelete));
-        then(customerRepository).should().existsById(idCaptor.capture());
+        then(customerRepository).should().deleteCustomerById(idCaptor.capture());
 
         assertEquals(expectedMessage, exception.getMessage());
         assertEquals(idOfCustomerToDelete, idCaptor.getValue());
-        verify(customerRepository, times(1)).existsById(idOfCustomerToDelete);
-        verify(customerRepository, times(0)).deleteById(idOfCustomerToDelete);
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Delete several customers with one statement, the event carries the number of deleted rows")
+    void deleteAllCustomersTest() {
+        final List<Long> ids = List.of(1L, 2L, 3L);
+        final ArgumentCaptor<CustomersDeletedEvent> eventCaptor = ArgumentCaptor.forClass(CustomersDeletedEvent.class);
+
+        when(customerRepository.deleteCustomersByIds(ids)).thenReturn(2);
+
+        assertEquals(2, customerManagementService.deleteAll(ids));
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        assertEquals(ids, eventCaptor.getValue().getCustomerIds());
+        assertEquals(2, eventCaptor.getValue().getDeletedCount());
+    }
+
+    @Test
+    @DisplayName("Deleting customers that do not exist publishes no event")
+    void deleteAllMissingCustomersTest() {
+        when(customerRepository.deleteCustomersByIds(List.of(-1L))).thenReturn(0);
+
+        assertEquals(0, customerManagementService.deleteAll(List.of(-1L)));
+        assertEquals(0, customerManagementService.deleteAll(List.of()));
+        verify(customerRepository, times(1)).deleteCustomersByIds(any());
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -222,19 +298,16 @@ class CustomerManagementServiceTest {
     void addNewCustomerTest() {
         final Customer newCustomer = getSampleCustomer();
 
-        when(customerRepository.selectCustomerByPhoneNumber(newCustomer.getPhoneNumber()))
-                .thenReturn(Optional.empty());
-        when(customerRepository.save(newCustomer)).thenReturn(newCustomer);
+        when(customerRepository.saveAndFlush(newCustomer)).thenReturn(newCustomer);
 
         final Customer addedCustomer = customerManagementService.addCustomer(newCustomer);
-        then(customerRepository).should().selectCustomerByPhoneNumber(phoneNumberCaptor.capture());
-        then(customerRepository).should().save(customerCaptor.capture());
+        then(customerRepository).should().saveAndFlush(customerCaptor.capture());
 
         assertEquals(newCustomer, addedCustomer);
-        assertEquals(newCustomer.getPhoneNumber(), phoneNumberCaptor.getValue());
         assertEquals(newCustomer, customerCaptor.getValue());
-        verify(customerRepository, times(1)).selectCustomerByPhoneNumber(newCustomer.getPhoneNumber());
-        verify(customerRepository, times(1)).save(newCustomer);
+        verify(customerRepository, never()).selectCustomerByPhoneNumber(anyString());
+        verify(customerRepository, times(1)).saveAndFlush(newCustomer);
+        verify(eventPublisher, times(1)).publishEvent(any(CustomersAddedEvent.class));
     }
 
     @Test
@@ -243,17 +316,29 @@ class CustomerManagementServiceTest {
         final Customer newCustomer = getSampleCustomer();
         final String expectedMessage = "Phone Number " + newCustomer.getPhoneNumber() + " taken";
 
-        when(customerRepository.selectCustomerByPhoneNumber(newCustomer.getPhoneNumber()))
-                .thenReturn(Optional.of(getSampleCustomer()));
-
+        when(customerRepository.saveAndFlush(newCustomer)).thenThrow(new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("Unique index or primary key violation", null,
+                        "PUBLIC." + CustomerConstraints.PHONE_NUMBER_UNIQUE + "_INDEX_5")));
 
         final Exception exception = assertThrows(BadRequestException.class, () -> customerManagementService.addCustomer(newCustomer));
-        then(customerRepository).should().selectCustomerByPhoneNumber(phoneNumberCaptor.capture());
 
         assertEquals(expectedMessage, exception.getMessage());
-        assertEquals(newCustomer.getPhoneNumber(), phoneNumberCaptor.getValue());
-        verify(customerRepository, times(1)).selectCustomerByPhoneNumber(newCustomer.getPhoneNumber());
-        verify(customerRepository, times(0)).save(newCustomer);
+        verify(customerRepository, never()).selectCustomerByPhoneNumber(anyString());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Violating another constraint while adding a customer is passed on unchanged")
+    void addNewCustomerViolatingOtherConstraintTest() {
+        final Customer newCustomer = getSampleCustomer();
+        final DataIntegrityViolationException violation = new DataIntegrityViolationException("NULL not allowed for column USER_NAME");
+
+        when(customerRepository.saveAndFlush(newCustomer)).thenThrow(violation);
+
+        final Exception exception = assertThrows(DataIntegrityViolationException.class, () -> customerManagementService.addCustomer(newCustomer));
+
+        assertEquals(violation, exception);
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -284,5 +369,184 @@ class CustomerManagementServiceTest {
         assertTrue(expectedCustomers.containsAll(actualCustomers));
         assertEquals(expectedCustomers, customerListCaptor.getValue());
         verify(customerRepository, times(1)).saveAll(expectedCustomers);
+        verify(eventPublisher, times(1)).publishEvent(any(CustomersAddedEvent.class));
+    }
+
+    @Test
+    @DisplayName("List one page of customers after a cursor")
+    void listPageOfCustomersTest() {
+        final List<Customer> expectedCustomers = List.of(getSampleCustomer(), getSampleCustomer());
+
+        when(customerRepository.findByIdGreaterThanOrderByIdAsc(42L, PageRequest.of(0, 2))).thenReturn(expectedCustomers);
+
+        final List<Customer> actualCustomers = customerManagementService.listPage(42L, 2);
+
+        assertEquals(expectedCustomers, actualCustomers);
+        verify(customerRepository, times(1)).findByIdGreaterThanOrderByIdAsc(42L, PageRequest.of(0, 2));
+    }
+
+    @Test
+    @DisplayName("Visit all customers one by one and detach each of them")
+    void forEachCustomerTest() {
+        final List<Customer> expectedCustomers = List.of(getSampleCustomer(), getSampleCustomer(), getSampleCustomer());
+        final List<Customer> visitedCustomers = new ArrayList<>();
+
+        when(customerRepository.streamAll()).thenReturn(expectedCustomers.stream());
+
+        customerManagementService.forEachCustomer(visitedCustomers::add);
+
+        assertEquals(expectedCustomers, visitedCustomers);
+        expectedCustomers.forEach(customer -> verify(entityManager, times(1)).detach(customer));
+    }
+
+    @Test
+    @DisplayName("Lookups are answered by the read model without querying the DB once it is available")
+    void findCustomerInReadModelTest() {
+        final Customer expectedCustomer = getSampleCustomer();
+        when(customerReadModel.isAvailable()).thenReturn(true);
+        when(customerReadModel.findById(expectedCustomer.getId())).thenReturn(Optional.of(expectedCustomer));
+        when(customerReadModel.findByUserName(expectedCustomer.getUserName())).thenReturn(Optional.of(expectedCustomer));
+        when(customerReadModel.findByPhoneNumber(expectedCustomer.getPhoneNumber())).thenReturn(Optional.of(expectedCustomer));
+        when(phoneNumberFilter.mightContain(expectedCustomer.getPhoneNumber())).thenReturn(true);
+
+        assertSame(expectedCustomer, customerManagementService.findById(expectedCustomer.getId()));
+        assertSame(expectedCustomer, customerManagementService.findByUserName(expectedCustomer.getUserName()));
+        assertSame(expectedCustomer, customerManagementService.selectCustomerByPhoneNumber(expectedCustomer.getPhoneNumber()));
+
+        verifyNoInteractions(customerRepository);
+    }
+
+    @Test
+    @DisplayName("A customer missing from the available read model is not looked up in the DB")
+    void findMissingCustomerInReadModelTest() {
+        when(customerReadModel.isAvailable()).thenReturn(true);
+        when(customerReadModel.findById(42L)).thenReturn(Optional.empty());
+
+        doThrow(new ResponseStatusException(HttpStatus.NOT_FOUND))
+                .when(customerValidator)
+                .validate404(any(), anyString(), anyString());
+
+        assertThrows(ResponseStatusException.class, () -> customerManagementService.findById(42L));
+
+        verifyNoInteractions(customerRepository);
+        verify(customerValidator, times(1)).validate404(Optional.empty(), "id", "42");
+    }
+
+    @Test
+    @DisplayName("Search results are read by id in one query, in the order of the search index")
+    void searchTest() {
+        final Customer first = new Customer(7L, "hmueller", "Hans Müller", "+4915100007");
+        final Customer second = new Customer(3L, "hmuller", "Heinz Müller", "+4915100003");
+        when(customerSearchIndex.isEnabled()).thenReturn(true);
+        when(customerSearchIndex.isAvailable()).thenReturn(true);
+        when(customerSearchIndex.searchPrefix("mul", CustomerSearchIndex.Field.NAME, 10)).thenReturn(List.of(7L, 5L, 3L));
+        when(customerRepository.findAllById(List.of(7L, 5L, 3L))).thenReturn(List.of(second, first));
+
+        final List<Customer> actualCustomers = customerManagementService.search("mul", CustomerSearchIndex.Field.NAME, false, 10);
+
+        assertEquals(List.of(first, second), actualCustomers);
+        verify(customerSearchIndex, never()).searchFuzzy(anyString(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Searching while the search index is disabled is answered with 503")
+    void searchDisabledTest() {
+        final ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> customerManagementService.search("mul", null, false, 10));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+        verify(customerSearchIndex, never()).searchPrefix(anyString(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Fuzzy search is only supported on the name")
+    void fuzzySearchOnOtherFieldTest() {
+        when(customerSearchIndex.isEnabled()).thenReturn(true);
+        when(customerSearchIndex.isAvailable()).thenReturn(true);
+
+        assertThrows(BadRequestException.class,
+                () -> customerManagementService.search("+49151", CustomerSearchIndex.Field.PHONE_NUMBER, true, 10));
+        verifyNoInteractions(customerRepository);
+    }
+
+    @Test
+    @DisplayName("Searching before the search index was built is answered with 503")
+    void searchIndexNotBuiltTest() {
+        final ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+                () -> customerManagementService.search("mul", null, false, 10));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+    }
+
+    @Test
+    @DisplayName("List one page of customers as DTOs, straight from the projection query")
+    void listOutDTOPageTest() {
+        final List<CustomerOutDTO> expectedCustomers = List.of(new CustomerOutDTO(getSampleCustomer()), new CustomerOutDTO(getSampleCustomer()));
+
+        when(customerRepository.findOutDTOsByIdGreaterThan(42L, PageRequest.of(0, 2))).thenReturn(expectedCustomers);
+
+        final List<CustomerOutDTO> actualCustomers = customerManagementService.listOutDTOPage(42L, 2);
+
+        assertEquals(expectedCustomers, actualCustomers);
+        verify(customerRepository, never()).findByIdGreaterThanOrderByIdAsc(any(), any());
+    }
+
+    @Test
+    @DisplayName("List one page of customers from the read model if it can serve it")
+    void listOutDTOPageFromReadModelTest() {
+        final List<CustomerOutDTO> expectedCustomers = List.of(new CustomerOutDTO(getSampleCustomer()));
+
+        when(customerReadModel.listPage(42L, 2)).thenReturn(Optional.of(expectedCustomers));
+
+        final List<CustomerOutDTO> actualCustomers = customerManagementService.listOutDTOPage(42L, 2);
+
+        assertSame(expectedCustomers, actualCustomers);
+        verifyNoInteractions(customerRepository);
+    }
+
+    @Test
+    @DisplayName("Visit all customers as DTOs without loading entities")
+    void forEachCustomerOutDTOTest() {
+        final List<CustomerOutDTO> expectedCustomers = List.of(new CustomerOutDTO(getSampleCustomer()), new CustomerOutDTO(getSampleCustomer()));
+        final List<CustomerOutDTO> visitedCustomers = new ArrayList<>();
+
+        when(customerRepository.streamAllOutDTOs()).thenReturn(expectedCustomers.stream());
+
+        customerManagementService.forEachCustomerOutDTO(visitedCustomers::add);
+
+        assertEquals(expectedCustomers, visitedCustomers);
+        verify(customerRepository, never()).streamAll();
+        verifyNoInteractions(entityManager);
+    }
+
+    @Test
+    @DisplayName("Save multiple customers without ids through the bulk insert path")
+    void bulkInsertListOfNewCustomers() {
+        final List<Customer> newCustomers = Arrays.asList(getSampleCustomer(), getSampleCustomer(), getSampleCustomer());
+        newCustomers.forEach(customer -> customer.setId(null));
+
+        final Collection<Customer> actualCustomers = customerManagementService.saveAll(newCustomers);
+
+        assertTrue(actualCustomers.containsAll(newCustomers));
+        verify(customerRepository, times(1)).insertAll(newCustomers);
+        verify(customerRepository, never()).saveAll(any());
+        verify(eventPublisher, times(1)).publishEvent(any(CustomersAddedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Saving new customers inserts none of them if one is invalid")
+    void bulkInsertInvalidCustomerTest() {
+        final Customer invalidCustomer = getSampleCustomer();
+        invalidCustomer.setName(" ");
+        final List<Customer> newCustomers = Arrays.asList(getSampleCustomer(), invalidCustomer);
+        newCustomers.forEach(customer -> customer.setId(null));
+
+        final javax.validation.ConstraintViolationException e = assertThrows(
+                javax.validation.ConstraintViolationException.class,
+                () -> customerManagementService.saveAll(newCustomers));
+
+        assertEquals(1, e.getConstraintViolations().size());
+        verify(customerRepository, never()).insertAll(any());
+        verifyNoInteractions(eventPublisher);
     }
-}
\ No newline at end of file
+}
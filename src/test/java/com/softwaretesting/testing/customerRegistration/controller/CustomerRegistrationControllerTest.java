@@ -10,9 +10,16 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -98,6 +105,97 @@ class CustomerRegistrationControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    /**
+     * A customer with a random number that passes the PhoneNumberValidator.
+     */
+    private Customer getSampleCustomerWithValidNumber() {
+        final Customer customer = getSampleCustomer();
+        customer.setPhoneNumber("+4930" + ThreadLocalRandom.current().nextLong(100_000_000L, 1_000_000_000L));
+        return customer;
+    }
+
+    @Test
+    @DisplayName("Register a JSON array of customers using the batch endpoint")
+    void registerBatchTest() throws Exception {
+        final Customer first = getSampleCustomerWithValidNumber();
+        final Customer second = getSampleCustomerWithValidNumber();
+        final Customer invalid = getSampleCustomer();
+        invalid.setPhoneNumber("0301");
+
+        final MvcResult result = mockMvc.perform(post(endpoint_base + "/batch")
+                        .content("[" + getCustomerJson(first) + "," + getCustomerJson(second) + "," + getCustomerJson(invalid) + "]")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].index").value(0))
+                .andExpect(jsonPath("$[0].status").value("REGISTERED"))
+                .andExpect(jsonPath("$[0].id").isNumber())
+                .andExpect(jsonPath("$[1].status").value("REGISTERED"))
+                .andExpect(jsonPath("$[2].status").value("INVALID_PHONE_NUMBER"))
+                .andExpect(jsonPath("$[2].id").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Missing customers and blank names of a batch are rejected one by one, the others registered")
+    void registerInvalidBatchTest() throws Exception {
+        final Customer valid = getSampleCustomerWithValidNumber();
+        final Customer blankName = getSampleCustomerWithValidNumber();
+        blankName.setName(" ");
+        final Customer noUserName = getSampleCustomerWithValidNumber();
+
+        final MvcResult result = mockMvc.perform(post(endpoint_base + "/batch")
+                        .content("[null," + getCustomerJson(blankName) + ","
+                                + "{\"name\": \"No User Name\", \"phoneNumber\": \"" + noUserName.getPhoneNumber() + "\"},"
+                                + getCustomerJson(valid) + "]")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(4))
+                .andExpect(jsonPath("$[0].status").value("INVALID"))
+                .andExpect(jsonPath("$[1].status").value("INVALID"))
+                .andExpect(jsonPath("$[1].id").doesNotExist())
+                .andExpect(jsonPath("$[2].status").value("INVALID"))
+                .andExpect(jsonPath("$[3].status").value("REGISTERED"));
+    }
+
+    @Test
+    @DisplayName("Register a newline delimited JSON stream of customers using the batch endpoint")
+    void registerNdjsonBatchTest() throws Exception {
+        final Customer registered = getSampleCustomerWithValidNumber();
+        mockMvc.perform(post(endpoint_base)
+                        .content(getCustomerJson(registered))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        final Customer taken = getSampleCustomer();
+        taken.setPhoneNumber(registered.getPhoneNumber());
+        final Customer newCustomer = getSampleCustomerWithValidNumber();
+
+        final MvcResult result = mockMvc.perform(post(endpoint_base + "/batch")
+                        .content(getCustomerJson(registered) + "\n" + getCustomerJson(taken) + "\n" + getCustomerJson(newCustomer) + "\n")
+                        .contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        final MvcResult streamed = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        final List<String> lines = streamed.getResponse().getContentAsString().lines().toList();
+        assertEquals(3, lines.size());
+        assertEquals(true, lines.get(0).contains("\"status\":\"ALREADY_REGISTERED\""));
+        assertEquals(true, lines.get(1).contains("\"status\":\"PHONE_NUMBER_TAKEN\""));
+        assertEquals(true, lines.get(2).contains("\"status\":\"REGISTERED\""));
+    }
+
     @Test
     @DisplayName("Test not allowed GET-Method")
     void notAllowedGetTest() throws Exception {
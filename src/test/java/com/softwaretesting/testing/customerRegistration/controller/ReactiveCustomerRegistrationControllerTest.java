@@ -0,0 +1,137 @@
+package com.softwaretesting.testing.customerRegistration.controller;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.main.web-application-type=reactive",
+        "spring.datasource.url=jdbc:h2:mem:reactivetest;LAZY_QUERY_EXECUTION=TRUE",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactivetest?LAZY_QUERY_EXECUTION=TRUE",
+        "customer.seed.size=100"})
+@AutoConfigureWebTestClient
+class ReactiveCustomerRegistrationControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    private final String endpoint_base = "/api/v1/customer-registration";
+
+    private String getCustomerJson(String userName, String name, String phoneNumber) {
+        return "{\"userName\": \"" + userName + "\"," +
+                "\"name\": \"" + name + "\"," +
+                "\"phoneNumber\": \"" + phoneNumber + "\"}";
+    }
+
+    private String randomPhoneNumber() {
+        return "+4940" + ThreadLocalRandom.current().nextInt(10_000_000, 100_000_000);
+    }
+
+    @Test
+    @DisplayName("Register a customer on the reactive stack, a second customer with the same number is rejected")
+    void registerCustomerTest() {
+        final String phoneNumber = randomPhoneNumber();
+
+        webTestClient.post().uri(endpoint_base)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(getCustomerJson("first", "First Customer", phoneNumber))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isNumber()
+                .jsonPath("$.phoneNumber").isEqualTo(phoneNumber);
+
+        webTestClient.post().uri(endpoint_base)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(getCustomerJson("second", "Second Customer", phoneNumber))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    @DisplayName("Register a JSON batch, with one result per customer in the same order")
+    void registerBatchTest() {
+        final String phoneNumber = randomPhoneNumber();
+        final String body = "[" +
+                getCustomerJson("b1", "Batch One", phoneNumber) + "," +
+                getCustomerJson("b2", "Batch Two", phoneNumber) + "," +
+                getCustomerJson("b3", "Batch Three", "invalid") + "," +
+                getCustomerJson("b4", "Batch Four", randomPhoneNumber()) + "]";
+
+        webTestClient.post().uri(endpoint_base + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(4)
+                .jsonPath("$[0].status").isEqualTo("REGISTERED")
+                .jsonPath("$[0].id").isNumber()
+                .jsonPath("$[1].status").isEqualTo("PHONE_NUMBER_TAKEN")
+                .jsonPath("$[1].id").doesNotExist()
+                .jsonPath("$[2].status").isEqualTo("INVALID_PHONE_NUMBER")
+                .jsonPath("$[3].index").isEqualTo(3)
+                .jsonPath("$[3].status").isEqualTo("REGISTERED");
+    }
+
+    @Test
+    @DisplayName("Invalid customers of a batch are rejected one by one, the others are registered")
+    void registerInvalidBatchTest() {
+        final String body = "[" +
+                getCustomerJson("i1", " ", randomPhoneNumber()) + "," +
+                "{\"name\": \"No User Name\", \"phoneNumber\": \"" + randomPhoneNumber() + "\"}," +
+                "null," +
+                getCustomerJson("i4", "Valid Customer", randomPhoneNumber()) + "]";
+
+        webTestClient.post().uri(endpoint_base + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(4)
+                .jsonPath("$[0].status").isEqualTo("INVALID")
+                .jsonPath("$[0].message").isEqualTo("name must not be blank")
+                .jsonPath("$[1].status").isEqualTo("INVALID")
+                .jsonPath("$[1].message").isEqualTo("userName must not be blank")
+                .jsonPath("$[2].status").isEqualTo("INVALID")
+                .jsonPath("$[2].message").isEqualTo("Customer is missing")
+                .jsonPath("$[3].index").isEqualTo(3)
+                .jsonPath("$[3].status").isEqualTo("REGISTERED");
+    }
+
+    @Test
+    @DisplayName("Register a newline delimited JSON batch, numbers registered before are rejected")
+    void registerNdjsonBatchTest() {
+        final String phoneNumber = randomPhoneNumber();
+        webTestClient.post().uri(endpoint_base)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(getCustomerJson("before", "Registered Before", phoneNumber))
+                .exchange()
+                .expectStatus().isOk();
+
+        final String body = getCustomerJson("n1", "Registered Before", phoneNumber) + "\n" +
+                getCustomerJson("n2", "Ndjson Two", randomPhoneNumber()) + "\n";
+
+        webTestClient.post().uri(endpoint_base + "/batch")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .value(results -> assertEquals(
+                        "{\"index\":0,\"status\":\"ALREADY_REGISTERED\",\"message\":\"You are already registered\"}\n"
+                                + "{\"index\":1,\"status\":\"REGISTERED\",\"id\":",
+                        results.substring(0, results.lastIndexOf(':') + 1)));
+    }
+}
@@ -0,0 +1,96 @@
+package com.softwaretesting.testing.customerRegistration.service;
+
+import com.softwaretesting.testing.customerManagement.service.CustomerManagementService;
+import com.softwaretesting.testing.exception.BadRequestException;
+import com.softwaretesting.testing.model.Customer;
+import net.datafaker.Faker;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+@SpringBootTest
+class CustomerRegistrationConcurrencyTest {
+    private static final int THREADS = 8;
+
+    @Autowired
+    private CustomerRegistrationService customerRegistrationService;
+
+    @Autowired
+    private CustomerManagementService customerManagementService;
+
+    private final Faker dataFaker = new Faker();
+
+    private Customer getSampleCustomer(String phoneNumber) {
+        return new Customer(
+                null,
+                dataFaker.name().username(),
+                dataFaker.name().fullName(),
+                phoneNumber);
+    }
+
+    /**
+     * Lets {@link #THREADS} threads insert customers with the same phone number at the same time
+     * and returns what each of them ended with (null on success).
+     */
+    private List<Throwable> insertConcurrently(String phoneNumber, Consumer<Customer> insert) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<Throwable>> futures = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            final Customer customer = getSampleCustomer(phoneNumber);
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    insert.accept(customer);
+                    return null;
+                } catch (RuntimeException e) {
+                    return e;
+                }
+            }));
+        }
+        start.countDown();
+
+        final List<Throwable> outcomes = new ArrayList<>();
+        for (Future<Throwable> future : futures) {
+            outcomes.add(future.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        return outcomes;
+    }
+
+    @Test
+    @DisplayName("Concurrent registrations of the same phone number: exactly one wins")
+    void concurrentRegistrationOfSamePhoneNumberTest() throws Exception {
+        final String phoneNumber = "+4917" + ThreadLocalRandom.current().nextInt(10_000_000, 99_999_999);
+
+        final List<Throwable> outcomes = insertConcurrently(phoneNumber, customerRegistrationService::registerNewCustomer);
+
+        assertEquals(1, outcomes.stream().filter(outcome -> outcome == null).count());
+        outcomes.stream().filter(outcome -> outcome != null)
+                .forEach(outcome -> assertInstanceOf(BadRequestException.class, outcome));
+        assertEquals(phoneNumber, customerManagementService.selectCustomerByPhoneNumber(phoneNumber).getPhoneNumber());
+    }
+
+    @Test
+    @DisplayName("Concurrent additions of the same phone number: exactly one wins")
+    void concurrentAdditionOfSamePhoneNumberTest() throws Exception {
+        final String phoneNumber = "+4916" + ThreadLocalRandom.current().nextInt(10_000_000, 99_999_999);
+
+        final List<Throwable> outcomes = insertConcurrently(phoneNumber, customerManagementService::addCustomer);
+
+        assertEquals(1, outcomes.stream().filter(outcome -> outcome == null).count());
+        outcomes.stream().filter(outcome -> outcome != null)
+                .forEach(outcome -> assertInstanceOf(BadRequestException.class, outcome));
+        assertEquals(phoneNumber, customerManagementService.selectCustomerByPhoneNumber(phoneNumber).getPhoneNumber());
+    }
+}
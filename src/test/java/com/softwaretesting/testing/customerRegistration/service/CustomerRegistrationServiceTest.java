@@ -1,32 +1,72 @@
 package com.softwaretesting.testing.customerRegistration.service;
 
+import com.softwaretesting.testing.dao.CustomerConstraints;
 import com.softwaretesting.testing.dao.CustomerRepository;
+import com.softwaretesting.testing.event.CustomersAddedEvent;
 import com.softwaretesting.testing.exception.BadRequestException;
+import com.softwaretesting.testing.index.PhoneNumberFilter;
 import com.softwaretesting.testing.model.Customer;
+import com.softwaretesting.testing.validator.PhoneNumberValidator;
 import net.datafaker.Faker;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 class CustomerRegistrationServiceTest {
     @Mock
     private CustomerRepository customerRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PhoneNumberValidator phoneNumberValidator;
+
+    @Mock
+    private PhoneNumberFilter phoneNumberFilter;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
     @InjectMocks
     private CustomerRegistrationService customerRegistrationService;
 
     @Captor
     private ArgumentCaptor<String> phoneNumberCaptor;
 
+    @Captor
+    private ArgumentCaptor<Collection<String>> phoneNumbersCaptor;
+
     private AutoCloseable closeable;
 
     final Faker dataFaker = new Faker();
@@ -39,10 +79,27 @@ class CustomerRegistrationServiceTest {
                 dataFaker.phoneNumber().phoneNumber());
     }
 
+    private Customer getSampleCustomer(String phoneNumber) {
+        return new Customer(null, dataFaker.name().username(), dataFaker.name().fullName(), phoneNumber);
+    }
+
     @BeforeEach
     void setUp() {
         // replacement for MockitoAnnotations.initMocks(this) which is deprecated
         closeable = MockitoAnnotations.openMocks(this);
+        when(phoneNumberValidator.validate(anyString())).thenReturn(true);
+        when(phoneNumberFilter.mightContain(anyString())).thenReturn(true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenInsertAllAssignsIds() {
+        doAnswer(invocation -> {
+            long id = 1;
+            for (Customer customer : (Collection<Customer>) invocation.getArgument(0)) {
+                customer.setId(id++);
+            }
+            return null;
+        }).when(customerRepository).insertAll(anyCollection());
     }
 
     @AfterEach
@@ -60,14 +117,14 @@ class CustomerRegistrationServiceTest {
     @DisplayName("Inserting a new, valid customer")
     void registerValidCustomerTest() {
         final Customer testCustomer = getSampleCustomer();
-        when(customerRepository.selectCustomerByPhoneNumber(testCustomer.getPhoneNumber())).thenReturn(Optional.empty());
-        when(customerRepository.save(testCustomer)).thenReturn(testCustomer);
+        when(customerRepository.saveAndFlush(testCustomer)).thenReturn(testCustomer);
 
         final Customer registeredCustomer = customerRegistrationService.registerNewCustomer(testCustomer);
-        then(customerRepository).should().selectCustomerByPhoneNumber(phoneNumberCaptor.capture());
 
         assertEquals(testCustomer, registeredCustomer);
-        assertEquals(testCustomer.getPhoneNumber(), phoneNumberCaptor.getValue());
+        then(customerRepository).should().saveAndFlush(testCustomer);
+        then(customerRepository).should(never()).selectCustomerByPhoneNumber(any());
+        then(eventPublisher).should().publishEvent(any(CustomersAddedEvent.class));
     }
 
     @Test
@@ -76,6 +133,7 @@ class CustomerRegistrationServiceTest {
         final Customer testCustomer = getSampleCustomer();
         final String expectedMessage = "You are already registered";
 
+        when(customerRepository.saveAndFlush(testCustomer)).thenThrow(phoneNumberTakenViolation());
         when(customerRepository.selectCustomerByPhoneNumber(testCustomer.getPhoneNumber())).thenReturn(Optional.of(testCustomer));
 
         final Exception caughtException = assertThrows(IllegalStateException.class,
@@ -84,6 +142,7 @@ class CustomerRegistrationServiceTest {
 
         assertEquals(testCustomer.getPhoneNumber(), phoneNumberCaptor.getValue());
         assertEquals(expectedMessage, caughtException.getMessage());
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -93,6 +152,7 @@ class CustomerRegistrationServiceTest {
         final Customer newCustomer = getSampleCustomer();
         final String expectedMessage = "Phone Number " + newCustomer.getPhoneNumber() + " taken";
 
+        when(customerRepository.saveAndFlush(newCustomer)).thenThrow(phoneNumberTakenViolation());
         when(customerRepository.selectCustomerByPhoneNumber(newCustomer.getPhoneNumber())).thenReturn(Optional.of(existingCustomer));
 
         final Exception exception = assertThrows(BadRequestException.class, () -> customerRegistrationService.registerNewCustomer(newCustomer));
@@ -101,4 +161,131 @@ class CustomerRegistrationServiceTest {
         assertEquals(newCustomer.getPhoneNumber(), phoneNumberCaptor.getValue());
         assertEquals(expectedMessage, exception.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Violating another constraint than the unique phone number is passed on unchanged")
+    void insertCustomerViolatingOtherConstraintTest() {
+        final Customer newCustomer = getSampleCustomer();
+        final DataIntegrityViolationException violation = new DataIntegrityViolationException("NULL not allowed for column USER_NAME");
+
+        when(customerRepository.saveAndFlush(newCustomer)).thenThrow(violation);
+
+        final Exception exception = assertThrows(DataIntegrityViolationException.class, () -> customerRegistrationService.registerNewCustomer(newCustomer));
+
+        assertEquals(violation, exception);
+        then(customerRepository).should(never()).selectCustomerByPhoneNumber(any());
+    }
+
+    @Test
+    @DisplayName("Registering a batch of new customers inserts them together")
+    void registerBatchTest() {
+        final List<Customer> customers = List.of(getSampleCustomer("+4930100001"), getSampleCustomer("+4930100002"));
+        givenInsertAllAssignsIds();
+
+        final List<RegistrationResult> results = customerRegistrationService.registerNewCustomers(customers);
+
+        assertEquals(2, results.size());
+        assertTrue(results.stream().allMatch(result -> result.getStatus() == RegistrationResult.Status.REGISTERED));
+        then(customerRepository).should().findByPhoneNumberIn(phoneNumbersCaptor.capture());
+        assertEquals(List.of("+4930100001", "+4930100002"), phoneNumbersCaptor.getValue());
+        then(customerRepository).should().insertAll(customers);
+        then(customerRepository).should(never()).saveAndFlush(any());
+        then(eventPublisher).should().publishEvent(any(CustomersAddedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Invalid, registered and repeated numbers of a batch are rejected")
+    void registerBatchRejectionsTest() {
+        final Customer invalid = getSampleCustomer("0301");
+        final Customer existing = getSampleCustomer("+4930100001");
+        final Customer alreadyRegistered = getSampleCustomer("+4930100001");
+        final Customer takenByExisting = getSampleCustomer("+4930100001");
+        final Customer first = getSampleCustomer("+4930100002");
+        final Customer repeated = getSampleCustomer("+4930100002");
+        alreadyRegistered.setName(existing.getName());
+        when(phoneNumberValidator.validate("0301")).thenReturn(false);
+        when(customerRepository.findByPhoneNumberIn(anyCollection())).thenReturn(List.of(existing));
+        givenInsertAllAssignsIds();
+
+        final List<RegistrationResult> results = customerRegistrationService.registerNewCustomers(
+                List.of(invalid, alreadyRegistered, takenByExisting, first, repeated));
+
+        assertEquals(RegistrationResult.Status.INVALID_PHONE_NUMBER, results.get(0).getStatus());
+        assertEquals(RegistrationResult.Status.ALREADY_REGISTERED, results.get(1).getStatus());
+        assertEquals(RegistrationResult.Status.PHONE_NUMBER_TAKEN, results.get(2).getStatus());
+        assertEquals(RegistrationResult.Status.REGISTERED, results.get(3).getStatus());
+        assertEquals(RegistrationResult.Status.PHONE_NUMBER_TAKEN, results.get(4).getStatus());
+        then(customerRepository).should().insertAll(List.of(first));
+    }
+
+    @Test
+    @DisplayName("Missing customers and customers with a blank name or user name are rejected one by one")
+    void registerBatchInvalidCustomersTest() {
+        final Customer blankName = getSampleCustomer("+4930100001");
+        final Customer noUserName = getSampleCustomer("+4930100002");
+        final Customer valid = getSampleCustomer("+4930100003");
+        blankName.setName(" ");
+        noUserName.setUserName(null);
+        givenInsertAllAssignsIds();
+
+        final List<RegistrationResult> results = customerRegistrationService.registerNewCustomers(
+                Arrays.asList(null, blankName, noUserName, valid));
+
+        assertEquals(RegistrationResult.Status.INVALID, results.get(0).getStatus());
+        assertEquals(RegistrationResult.Status.INVALID, results.get(1).getStatus());
+        assertEquals("name must not be blank", results.get(1).getMessage());
+        assertEquals(RegistrationResult.Status.INVALID, results.get(2).getStatus());
+        assertEquals("userName must not be blank", results.get(2).getMessage());
+        assertEquals(RegistrationResult.Status.REGISTERED, results.get(3).getStatus());
+        then(customerRepository).should().insertAll(List.of(valid));
+    }
+
+    @Test
+    @DisplayName("If another constraint rejects the batch, only the offending customer is rejected")
+    void registerBatchOtherConstraintTest() {
+        final Customer rejected = getSampleCustomer("+4930100001");
+        final Customer free = getSampleCustomer("+4930100002");
+        doThrow(new DataIntegrityViolationException("Value too long")).when(customerRepository).insertAll(anyCollection());
+        when(customerRepository.saveAndFlush(same(rejected))).thenThrow(new DataIntegrityViolationException("Value too long"));
+        when(customerRepository.saveAndFlush(same(free))).thenReturn(free);
+
+        final List<RegistrationResult> results = customerRegistrationService.registerNewCustomers(List.of(rejected, free));
+
+        assertEquals(RegistrationResult.Status.INVALID, results.get(0).getStatus());
+        assertEquals(RegistrationResult.Status.REGISTERED, results.get(1).getStatus());
+    }
+
+    @Test
+    @DisplayName("Numbers the phone number filter rules out are not queried")
+    void registerBatchSkipsFilteredNumbersTest() {
+        when(phoneNumberFilter.mightContain(anyString())).thenReturn(false);
+        givenInsertAllAssignsIds();
+
+        customerRegistrationService.registerNewCustomers(List.of(getSampleCustomer("+4930100001")));
+
+        then(customerRepository).should(never()).findByPhoneNumberIn(anyCollection());
+    }
+
+    @Test
+    @DisplayName("If a number is taken concurrently, the batch is registered one by one")
+    void registerBatchFallbackTest() {
+        final Customer taken = getSampleCustomer("+4930100001");
+        final Customer free = getSampleCustomer("+4930100002");
+        doThrow(phoneNumberTakenViolation()).when(customerRepository).insertAll(anyCollection());
+        when(customerRepository.saveAndFlush(same(taken))).thenThrow(phoneNumberTakenViolation());
+        when(customerRepository.selectCustomerByPhoneNumber("+4930100001")).thenReturn(Optional.of(getSampleCustomer("+4930100001")));
+        when(customerRepository.saveAndFlush(same(free))).thenReturn(free);
+
+        final List<RegistrationResult> results = customerRegistrationService.registerNewCustomers(List.of(taken, free));
+
+        assertEquals(RegistrationResult.Status.PHONE_NUMBER_TAKEN, results.get(0).getStatus());
+        assertEquals(RegistrationResult.Status.REGISTERED, results.get(1).getStatus());
+        then(customerRepository).should().saveAndFlush(same(free));
+    }
+
+    private static DataIntegrityViolationException phoneNumberTakenViolation() {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("Unique index or primary key violation", null,
+                        "PUBLIC." + CustomerConstraints.PHONE_NUMBER_UNIQUE + "_INDEX_5"));
+    }
+}
@@ -0,0 +1,138 @@
+package com.softwaretesting.testing.dao;
+
+import com.softwaretesting.testing.model.Customer;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Runs every lookup of the CustomerRepository, records the SQL Hibernate sends for it
+ * and makes sure H2 answers it through an index instead of scanning the customer table.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.softwaretesting.testing.dao.CustomerRepositoryQueryPlanTest$RecordingStatementInspector")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CustomerRepositoryQueryPlanTest {
+
+    public static class RecordingStatementInspector implements StatementInspector {
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void fillTable() {
+        final List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            customers.add(new Customer(null, "user" + i, "name" + i, "+4930" + (1_000_000 + i)));
+        }
+        customerRepository.insertAll(customers);
+        RecordingStatementInspector.statements.clear();
+    }
+
+    /**
+     * Asks H2 for the plan of every select issued since the last call and fails on a table scan.
+     */
+    private void assertNoTableScan(String lookup) {
+        final List<String> selects = RecordingStatementInspector.statements.stream()
+                .filter(sql -> sql.trim().toLowerCase().startsWith("select"))
+                .toList();
+        assertFalse(selects.isEmpty(), lookup + " did not issue a select");
+
+        for (String sql : selects) {
+            final String plan = jdbcTemplate.queryForObject("explain " + sql, String.class);
+            assertNotNull(plan);
+            assertFalse(plan.contains(".tableScan"), lookup + " scans the whole table:\n" + plan);
+        }
+        RecordingStatementInspector.statements.clear();
+    }
+
+    @Test
+    void findByUserNameUsesIndex() {
+        assertTrue(customerRepository.findByUserName("user42").isPresent());
+        assertNoTableScan("findByUserName");
+    }
+
+    @Test
+    void selectCustomerByPhoneNumberUsesIndex() {
+        assertTrue(customerRepository.selectCustomerByPhoneNumber("+49301000042").isPresent());
+        assertNoTableScan("selectCustomerByPhoneNumber");
+    }
+
+    @Test
+    void findByPhoneNumberInUsesIndex() {
+        assertEquals(2, customerRepository.findByPhoneNumberIn(List.of("+49301000042", "+49301000043", "+4930999")).size());
+        assertNoTableScan("findByPhoneNumberIn");
+    }
+
+    @Test
+    void findByIdUsesIndex() {
+        final Long id = jdbcTemplate.queryForObject("select id from customer where user_name = 'user7'", Long.class);
+
+        assertTrue(customerRepository.findById(id).isPresent());
+        assertNoTableScan("findById");
+    }
+
+    @Test
+    void existsByIdUsesIndex() {
+        final Long id = jdbcTemplate.queryForObject("select id from customer where user_name = 'user8'", Long.class);
+
+        assertTrue(customerRepository.existsById(id));
+        assertNoTableScan("existsById");
+    }
+
+    @Test
+    void keysetPageUsesIndex() {
+        assertEquals(10, customerRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 10)).size());
+        assertNoTableScan("findByIdGreaterThanOrderByIdAsc");
+    }
+
+    @Test
+    void keysetOutDTOPageUsesIndex() {
+        assertEquals(10, customerRepository.findOutDTOsByIdGreaterThan(0L, PageRequest.of(0, 10)).size());
+        assertNoTableScan("findOutDTOsByIdGreaterThan");
+    }
+
+    @Test
+    void deleteCustomerByIdIsSingleStatement() {
+        final Long id = jdbcTemplate.queryForObject("select id from customer where user_name = 'user9'", Long.class);
+
+        assertEquals(1, customerRepository.deleteCustomerById(id));
+        assertEquals(0, customerRepository.deleteCustomerById(id));
+        assertEquals(2, RecordingStatementInspector.statements.size());
+        assertTrue(RecordingStatementInspector.statements.stream()
+                .allMatch(sql -> sql.trim().toLowerCase().startsWith("delete")));
+    }
+
+    @Test
+    void deleteCustomersByIdsIsSingleStatement() {
+        final List<Long> ids = jdbcTemplate.queryForList(
+                "select id from customer where user_name in ('user10', 'user11', 'user12')", Long.class);
+
+        assertEquals(3, customerRepository.deleteCustomersByIds(List.of(ids.get(0), ids.get(1), ids.get(2), -1L)));
+        assertEquals(1, RecordingStatementInspector.statements.size());
+        assertTrue(RecordingStatementInspector.statements.get(0).trim().toLowerCase().startsWith("delete"));
+        assertEquals(497, customerRepository.count());
+    }
+}
@@ -1,5 +1,6 @@
 package com.softwaretesting.testing.dao;
 
+import com.softwaretesting.testing.dto.outbound.CustomerOutDTO;
 import com.softwaretesting.testing.model.Customer;
 import net.datafaker.Faker;
 import org.junit.jupiter.api.Test;
@@ -7,10 +8,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -36,6 +42,8 @@ class CustomerRepositoryTest {
      * - [x] delete all customers from DB
      * - [x] find user by username
      * - [x] find user by phone number
+     * - [x] bulk insert customers with JDBC batches
+     * - [x] list customers as outbound DTOs
      */
 
     @Autowired
@@ -235,4 +243,69 @@ class CustomerRepositoryTest {
 
         assertEquals(customerList.size(), customerRepository.count());
     }
-}
\ No newline at end of file
+
+    /*
+     * Tested Methods
+     * - CustomerBulkRepository.insertAll(Collection<Customer>)
+     * - CrudRepository.save(Customer)
+     * - CrudRepository.findAllById(List<Long>)
+     * - CrudRepository.count()
+     */
+    @Test
+    void bulkInsertCustomersAlongsideJpaInserts() {
+        final List<Customer> customerList = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            final Customer customer = getSampleCustomer();
+            customer.setId(null);
+            customer.setPhoneNumber("+4915" + i);
+            customerList.add(customer);
+        }
+        final Customer jpaCustomer = getSampleCustomer();
+        jpaCustomer.setId(null);
+
+        customerRepository.save(jpaCustomer);
+        customerRepository.insertAll(customerList);
+
+        final Set<Long> ids = new HashSet<>();
+        customerList.forEach(customer -> ids.add(customer.getId()));
+        ids.add(jpaCustomer.getId());
+
+        assertEquals(customerList.size() + 1, ids.size());
+        assertTrue(ids.stream().allMatch(id -> id > 0));
+        assertEquals(customerList.size() + 1, customerRepository.count());
+        assertEquals(customerList, customerRepository.findAllById(customerList.stream().map(Customer::getId).toList()));
+    }
+
+    /*
+     * Tested Methods
+     * - CustomerRepository.findOutDTOsByIdGreaterThan(Long, Pageable)
+     * - CustomerRepository.streamAllOutDTOs()
+     * - CustomerRepository.findByIdGreaterThanOrderByIdAsc(Long, Pageable)
+     */
+    @Test
+    void listCustomersAsOutDTOs() {
+        final List<Customer> customerList = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final Customer customer = getSampleCustomer();
+            customer.setId(null);
+            customerList.add(customer);
+        }
+        customerRepository.saveAll(customerList);
+        final Long first = customerList.get(0).getId();
+
+        final List<CustomerOutDTO> page = customerRepository.findOutDTOsByIdGreaterThan(first, PageRequest.of(0, 3));
+        final List<Customer> entityPage = customerRepository.findByIdGreaterThanOrderByIdAsc(first, PageRequest.of(0, 3));
+
+        assertEquals(3, page.size());
+        for (int i = 0; i < page.size(); i++) {
+            assertEquals(entityPage.get(i).getId(), page.get(i).getId());
+            assertEquals(entityPage.get(i).getUserName(), page.get(i).getUserName());
+            assertEquals(entityPage.get(i).getName(), page.get(i).getName());
+            assertEquals(entityPage.get(i).getPhoneNumber(), page.get(i).getPhoneNumber());
+        }
+
+        try (Stream<CustomerOutDTO> all = customerRepository.streamAllOutDTOs()) {
+            assertEquals(customerList.stream().map(Customer::getId).toList(), all.map(CustomerOutDTO::getId).toList());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.softwaretesting.testing.index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    @DisplayName("Every value that was put is reported as present")
+    void noFalseNegativesTest() {
+        final BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("+49000" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("+49000" + i));
+        }
+    }
+
+    @Test
+    @DisplayName("The false positive rate stays close to the configured one and matches the estimate")
+    void falsePositiveRateTest() {
+        final BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("+49000" + i);
+        }
+
+        int falsePositives = 0;
+        final int lookups = 100_000;
+        for (int i = 0; i < lookups; i++) {
+            if (filter.mightContain("+49111" + i)) {
+                falsePositives++;
+            }
+        }
+
+        final double measured = (double) falsePositives / lookups;
+        assertTrue(measured < 0.02, "measured false positive rate " + measured);
+        assertEquals(filter.expectedFalsePositiveProbability(), measured, 0.005);
+    }
+
+    @Test
+    @DisplayName("An empty filter contains nothing")
+    void emptyFilterTest() {
+        final BloomFilter filter = new BloomFilter(100, 0.01);
+
+        assertFalse(filter.mightContain("+490001"));
+        assertEquals(0.0, filter.expectedFalsePositiveProbability());
+        assertEquals(7, filter.hashFunctions());
+    }
+
+    @Test
+    @DisplayName("Invalid sizing is rejected")
+    void invalidSizingTest() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 0));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1));
+    }
+}
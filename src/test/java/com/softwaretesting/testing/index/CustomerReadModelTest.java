@@ -0,0 +1,227 @@
+package com.softwaretesting.testing.index;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.softwaretesting.testing.dao.CustomerRepository;
+import com.softwaretesting.testing.dto.outbound.CustomerOutDTO;
+import com.softwaretesting.testing.event.CustomersAddedEvent;
+import com.softwaretesting.testing.event.CustomersDeletedEvent;
+import com.softwaretesting.testing.model.Customer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CustomerReadModelTest {
+    @Mock
+    private CustomerRepository customerRepository;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private CustomerReadModel customerReadModel;
+
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        customerReadModel = new CustomerReadModel(meterRegistry, customerRepository, objectMapper, true);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenCustomersInDatabase(Customer... customers) {
+        when(customerRepository.count()).thenReturn((long) customers.length);
+        doAnswer(invocation -> {
+            final Consumer<Customer> action = invocation.getArgument(0);
+            for (Customer customer : customers) {
+                action.accept(customer);
+            }
+            return null;
+        }).when(customerRepository).forEachCustomerRow(any(Consumer.class));
+    }
+
+    @Test
+    @DisplayName("Nothing is served until the read model was built")
+    void notBuiltYetTest() throws IOException {
+        assertFalse(customerReadModel.isAvailable());
+        assertEquals(Optional.empty(), customerReadModel.findById(1L));
+        assertEquals(Optional.empty(), customerReadModel.listPage(0L, 10));
+        assertFalse(customerReadModel.writeAll(new ByteArrayOutputStream(), false));
+        assertEquals(0, meterRegistry.get("customer_snapshot_rows").gauge().value());
+    }
+
+    @Test
+    @DisplayName("A disabled read model is not built when the application is ready")
+    void disabledTest() {
+        customerReadModel = new CustomerReadModel(new SimpleMeterRegistry(), customerRepository, objectMapper, false);
+
+        customerReadModel.onApplicationReady();
+
+        assertFalse(customerReadModel.isAvailable());
+        verifyNoInteractions(customerRepository);
+    }
+
+    @Test
+    @DisplayName("After a rebuild the customers of the DB are found by id, user name and phone number")
+    void rebuildTest() {
+        givenCustomersInDatabase(
+                new Customer(1L, "jdoe", "John Doe", "+490001"),
+                new Customer(2L, "mmuster", "Max Mustermann", "+490002"));
+
+        customerReadModel.rebuild();
+
+        assertTrue(customerReadModel.isAvailable());
+        assertEquals("John Doe", customerReadModel.findById(1L).orElseThrow().getName());
+        assertEquals(2L, customerReadModel.findByUserName("mmuster").orElseThrow().getId());
+        assertEquals(1L, customerReadModel.findByPhoneNumber("+490001").orElseThrow().getId());
+        assertEquals(Optional.empty(), customerReadModel.findById(3L));
+        assertEquals(2, meterRegistry.get("customer_snapshot_rows").gauge().value());
+        assertTrue(meterRegistry.get("customer_snapshot_off_heap_bytes").gauge().value() > 0);
+    }
+
+    @Test
+    @DisplayName("Added and deleted customers are applied to the read model")
+    void eventsTest() {
+        givenCustomersInDatabase(new Customer(1L, "jdoe", "John Doe", "+490001"));
+        customerReadModel.rebuild();
+
+        customerReadModel.onCustomersAdded(new CustomersAddedEvent(List.of(new Customer(2L, "u", "n", "+490002"))));
+        customerReadModel.onCustomersDeleted(new CustomersDeletedEvent(List.of(1L), 1));
+
+        assertEquals(Optional.empty(), customerReadModel.findById(1L));
+        assertEquals("+490002", customerReadModel.findById(2L).orElseThrow().getPhoneNumber());
+    }
+
+    @Test
+    @DisplayName("Customers committed during a rebuild end up in the rebuilt read model")
+    void addedDuringRebuildTest() {
+        when(customerRepository.count()).thenReturn(1L);
+        doAnswer(invocation -> {
+            // commits while the table is scanned, after the scan passed the new row
+            customerReadModel.onCustomersAdded(new CustomersAddedEvent(List.of(new Customer(2L, "u", "n", "+490002"))));
+            final Consumer<Customer> action = invocation.getArgument(0);
+            action.accept(new Customer(1L, "jdoe", "John Doe", "+490001"));
+            return null;
+        }).when(customerRepository).forEachCustomerRow(any());
+
+        customerReadModel.rebuild();
+
+        assertTrue(customerReadModel.findById(1L).isPresent());
+        assertTrue(customerReadModel.findById(2L).isPresent());
+    }
+
+    @Test
+    @DisplayName("A rebuild that fails while reading the table keeps the current read model")
+    void failedRebuildTest() {
+        givenCustomersInDatabase(
+                new Customer(1L, "jdoe", "John Doe", "+490001"),
+                new Customer(2L, "mmuster", "Max Mustermann", "+490002"));
+        customerReadModel.rebuild();
+        doAnswer(invocation -> {
+            final Consumer<Customer> action = invocation.getArgument(0);
+            action.accept(new Customer(1L, "jdoe", "John Doe", "+490001"));
+            customerReadModel.onCustomersAdded(new CustomersAddedEvent(List.of(new Customer(3L, "u", "n", "+490003"))));
+            throw new IllegalStateException("connection lost");
+        }).when(customerRepository).forEachCustomerRow(any());
+
+        assertThrows(IllegalStateException.class, () -> customerReadModel.rebuild());
+
+        assertTrue(customerReadModel.findById(1L).isPresent());
+        assertTrue(customerReadModel.findById(2L).isPresent());
+        assertTrue(customerReadModel.findById(3L).isPresent());
+        assertEquals(3, meterRegistry.get("customer_snapshot_rows").gauge().value());
+
+        // the events of the failed rebuild are not held back for the next one
+        customerReadModel.onCustomersDeleted(new CustomersDeletedEvent(List.of(3L), 1));
+        givenCustomersInDatabase(new Customer(1L, "jdoe", "John Doe", "+490001"));
+        customerReadModel.rebuild();
+        assertEquals(Optional.empty(), customerReadModel.findById(3L));
+        assertEquals(1, meterRegistry.get("customer_snapshot_rows").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Keyset pages skip deleted customers")
+    void listPageTest() {
+        givenCustomersInDatabase(
+                new Customer(1L, "a", "A", "+490001"),
+                new Customer(2L, "b", "B", "+490002"),
+                new Customer(3L, "c", "C", "+490003"),
+                new Customer(4L, "d", "D", "+490004"));
+        customerReadModel.rebuild();
+        customerReadModel.onCustomersDeleted(new CustomersDeletedEvent(List.of(2L), 1));
+
+        List<CustomerOutDTO> page = customerReadModel.listPage(0L, 2).orElseThrow();
+
+        assertEquals(List.of(1L, 3L), page.stream().map(CustomerOutDTO::getId).toList());
+        assertEquals(List.of(4L), customerReadModel.listPage(3L, 2).orElseThrow().stream().map(CustomerOutDTO::getId).toList());
+    }
+
+    @Test
+    @DisplayName("All customers are written as JSON array or newline delimited JSON in the shape of the DTO")
+    void writeAllTest() throws IOException {
+        Customer first = new Customer(1L, "jdoe", "John \"JD\" Doe", "+490001");
+        Customer second = new Customer(2L, "mmuster", "Max Mustermann", "+490002");
+        givenCustomersInDatabase(first, second);
+        customerReadModel.rebuild();
+
+        ByteArrayOutputStream array = new ByteArrayOutputStream();
+        assertTrue(customerReadModel.writeAll(array, false));
+        assertEquals(objectMapper.writeValueAsString(List.of(new CustomerOutDTO(first), new CustomerOutDTO(second))),
+                array.toString(StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        assertTrue(customerReadModel.writeAll(ndjson, true));
+        assertEquals(objectMapper.writeValueAsString(new CustomerOutDTO(first)) + "\n"
+                        + objectMapper.writeValueAsString(new CustomerOutDTO(second)),
+                ndjson.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Customers added and changed out of id order are still listed from the read model in id order")
+    void outOfOrderTest() throws IOException {
+        givenCustomersInDatabase(new Customer(2L, "b", "B", "+490002"), new Customer(4L, "d", "D", "+490004"));
+        customerReadModel.rebuild();
+        customerReadModel.onCustomersAdded(new CustomersAddedEvent(List.of(new Customer(1L, "a", "A", "+490001"))));
+
+        assertEquals(List.of(1L, 2L, 4L),
+                customerReadModel.listPage(0L, 10).orElseThrow().stream().map(CustomerOutDTO::getId).toList());
+
+        customerReadModel.onCustomersAdded(new CustomersAddedEvent(List.of(
+                new Customer(5L, "e", "E", "+490005"),
+                new Customer(3L, "c", "C", "+490003"),
+                new Customer(2L, "b", "B2", "+490002"))));
+        customerReadModel.onCustomersDeleted(new CustomersDeletedEvent(List.of(4L), 1));
+
+        assertEquals(List.of(2L, 3L),
+                customerReadModel.listPage(1L, 2).orElseThrow().stream().map(CustomerOutDTO::getId).toList());
+        assertEquals("B2", customerReadModel.findById(2L).orElseThrow().getName());
+
+        customerReadModel.onCustomersAdded(new CustomersAddedEvent(List.of(new Customer(4L, "d", "D", "+490004"))));
+
+        ByteArrayOutputStream array = new ByteArrayOutputStream();
+        assertTrue(customerReadModel.writeAll(array, false));
+        assertEquals(List.of("1", "2", "3", "4", "5"), objectMapper.readTree(array.toByteArray()).findValuesAsText("id"));
+        verify(customerRepository, times(1)).forEachCustomerRow(any());
+    }
+}
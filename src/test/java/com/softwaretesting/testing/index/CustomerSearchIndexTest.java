@@ -0,0 +1,198 @@
+package com.softwaretesting.testing.index;
+
+import com.softwaretesting.testing.dao.CustomerRepository;
+import com.softwaretesting.testing.event.CustomersAddedEvent;
+import com.softwaretesting.testing.event.CustomersDeletedEvent;
+import com.softwaretesting.testing.model.Customer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class CustomerSearchIndexTest {
+    @Mock
+    private CustomerRepository customerRepository;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private CustomerSearchIndex customerSearchIndex;
+
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        customerSearchIndex = new CustomerSearchIndex(meterRegistry, customerRepository, true);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenCustomersInDatabase(Customer... customers) {
+        doAnswer(invocation -> {
+            final Consumer<Customer> action = invocation.getArgument(0);
+            for (Customer customer : customers) {
+                action.accept(customer);
+            }
+            return null;
+        }).when(customerRepository).forEachCustomerRow(any(Consumer.class));
+        customerSearchIndex.rebuild();
+    }
+
+    @Test
+    @DisplayName("Searching before the index was built fails")
+    void notBuiltYetTest() {
+        assertFalse(customerSearchIndex.isAvailable());
+        assertThrows(IllegalStateException.class, () -> customerSearchIndex.searchPrefix("a", null, 10));
+    }
+
+    @Test
+    @DisplayName("A disabled index is not built when the application is ready")
+    void disabledTest() {
+        customerSearchIndex = new CustomerSearchIndex(new SimpleMeterRegistry(), customerRepository, false);
+
+        customerSearchIndex.onApplicationReady();
+        customerSearchIndex.scheduledRebuild();
+
+        assertFalse(customerSearchIndex.isAvailable());
+        verifyNoInteractions(customerRepository);
+    }
+
+    @Test
+    @DisplayName("The index is built in the background once the application is ready")
+    void backgroundBuildTest() throws InterruptedException {
+        final CountDownLatch scanning = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            scanning.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            final Consumer<Customer> action = invocation.getArgument(0);
+            action.accept(new Customer(1L, "hmueller", "Hans Müller", "+4915100001"));
+            return null;
+        }).when(customerRepository).forEachCustomerRow(any());
+
+        customerSearchIndex.onApplicationReady();
+
+        assertTrue(scanning.await(5, TimeUnit.SECONDS));
+        assertFalse(customerSearchIndex.isAvailable());
+        release.countDown();
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!customerSearchIndex.isAvailable() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of(1L), customerSearchIndex.searchPrefix("hmu", null, 10));
+    }
+
+    @Test
+    @DisplayName("Prefix search finds user names, names, words of names and phone numbers")
+    void prefixTest() {
+        givenCustomersInDatabase(
+                new Customer(1L, "hmueller", "Hans Müller", "+4915100001"),
+                new Customer(2L, "mmuster", "Max Mustermann", "+4915100002"),
+                new Customer(3L, "amueller", "Anna  Müller-Lüdenscheidt", "+4930100003"));
+
+        assertTrue(customerSearchIndex.isAvailable());
+        assertEquals(List.of(1L), customerSearchIndex.searchPrefix("hmu", CustomerSearchIndex.Field.USER_NAME, 10));
+        assertEquals(List.of(2L), customerSearchIndex.searchPrefix("max must", CustomerSearchIndex.Field.NAME, 10));
+        assertEquals(List.of(1L, 3L), customerSearchIndex.searchPrefix("MUL", CustomerSearchIndex.Field.NAME, 10));
+        assertEquals(List.of(3L), customerSearchIndex.searchPrefix("anna muller-l", CustomerSearchIndex.Field.NAME, 10));
+        assertEquals(List.of(1L, 2L), customerSearchIndex.searchPrefix("+49151", CustomerSearchIndex.Field.PHONE_NUMBER, 10));
+        assertEquals(List.of(), customerSearchIndex.searchPrefix("+49151", CustomerSearchIndex.Field.NAME, 10));
+        assertEquals(List.of(), customerSearchIndex.searchPrefix("  ", null, 10));
+    }
+
+    @Test
+    @DisplayName("Without a field user names come first, then names and phone numbers, each customer once")
+    void prefixAllFieldsTest() {
+        givenCustomersInDatabase(
+                new Customer(1L, "max", "Max Mustermann", "+4915100001"),
+                new Customer(2L, "erika", "Erika Mustermann", "+4915100002"),
+                new Customer(3L, "mmaxwell", "Maxine Maxwell", "+4915100003"));
+
+        assertEquals(List.of(1L, 3L), customerSearchIndex.searchPrefix("max", null, 10));
+        assertEquals(List.of(1L), customerSearchIndex.searchPrefix("max", null, 1));
+    }
+
+    @Test
+    @DisplayName("Fuzzy search allows typos in every word of the name")
+    void fuzzyTest() {
+        givenCustomersInDatabase(
+                new Customer(1L, "hmueller", "Hans Müller", "+4915100001"),
+                new Customer(2L, "jmiller", "John Miller", "+4915100002"),
+                new Customer(3L, "hmeyer", "Hans Meyer", "+4915100003"));
+
+        assertEquals(List.of(1L, 2L), customerSearchIndex.searchFuzzy("Mueller", 10));
+        assertEquals(List.of(1L), customerSearchIndex.searchFuzzy("hams mueller", 10));
+        assertEquals(List.of(1L, 3L), customerSearchIndex.searchFuzzy("hans", 10));
+        assertEquals(List.of(), customerSearchIndex.searchFuzzy("schmidt", 10));
+    }
+
+    @Test
+    @DisplayName("Fuzzy search finds the words of the query in any order, also with other words in between")
+    void fuzzyWordOrderTest() {
+        givenCustomersInDatabase(
+                new Customer(1L, "hmueller", "Hans Müller", "+4915100001"),
+                new Customer(2L, "hpmueller", "Hans Peter Müller", "+4915100002"),
+                new Customer(3L, "pmueller", "Peter Müller", "+4915100003"));
+        customerSearchIndex.onCustomersAdded(new CustomersAddedEvent(List.of(
+                new Customer(4L, "mhans", "Müller Hans", "+4915100004"))));
+
+        assertEquals(List.of(1L, 2L, 4L), customerSearchIndex.searchFuzzy("mueller hans", 10));
+        assertEquals(List.of(2L), customerSearchIndex.searchFuzzy("hans mueller petr", 10));
+        assertEquals(List.of(2L, 3L), customerSearchIndex.searchFuzzy("petr mueller", 10));
+        assertEquals(List.of(), customerSearchIndex.searchFuzzy("hans schmidt", 10));
+    }
+
+    @Test
+    @DisplayName("Added customers are found right away, deleted ones are not anymore")
+    void eventsTest() {
+        givenCustomersInDatabase(new Customer(1L, "hmueller", "Hans Müller", "+4915100001"));
+
+        customerSearchIndex.onCustomersAdded(new CustomersAddedEvent(List.of(new Customer(2L, "hmeier", "Heinz Müller", "+4915100002"))));
+        customerSearchIndex.onCustomersDeleted(new CustomersDeletedEvent(List.of(1L), 1));
+
+        assertEquals(List.of(2L), customerSearchIndex.searchPrefix("muller", CustomerSearchIndex.Field.NAME, 10));
+        assertEquals(List.of(2L), customerSearchIndex.searchFuzzy("mueller", 10));
+        assertEquals(11, meterRegistry.get("customer_search_terms").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Customers committed during a rebuild end up in the rebuilt index")
+    void addedDuringRebuildTest() {
+        doAnswer(invocation -> {
+            // commits while the table is scanned, after the scan passed the new row
+            customerSearchIndex.onCustomersAdded(new CustomersAddedEvent(List.of(new Customer(2L, "u", "Heinz Müller", "+490002"))));
+            final Consumer<Customer> action = invocation.getArgument(0);
+            action.accept(new Customer(1L, "hmueller", "Hans Müller", "+490001"));
+            return null;
+        }).when(customerRepository).forEachCustomerRow(any());
+
+        customerSearchIndex.rebuild();
+
+        assertEquals(List.of(1L, 2L), customerSearchIndex.searchPrefix("muller", CustomerSearchIndex.Field.NAME, 10));
+    }
+
+    @Test
+    @DisplayName("Values are compared without case, accents and repeated spaces")
+    void normalizeTest() {
+        assertEquals("anna muller-ludenscheidt", CustomerSearchIndex.normalize("  Anna   Müller-Lüdenscheidt "));
+        assertEquals("jose", CustomerSearchIndex.normalize("JOSÉ"));
+    }
+}
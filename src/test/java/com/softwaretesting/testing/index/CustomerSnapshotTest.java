@@ -0,0 +1,167 @@
+package com.softwaretesting.testing.index;
+
+import com.softwaretesting.testing.model.Customer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerSnapshotTest {
+
+    private final CustomerSnapshot snapshot = new CustomerSnapshot(4);
+
+    @Test
+    @DisplayName("Appended customers can be looked up by id, user name and phone number")
+    void lookupTest() {
+        snapshot.upsert(1L, "jdoe", "John Doe", "+490001");
+        snapshot.upsert(2L, "mmuster", "Max Mustermann", "+490002");
+
+        assertEquals(2, snapshot.size());
+        assertEquals(1, snapshot.rowOfId(2L));
+        assertEquals(0, snapshot.rowOfUserName("jdoe"));
+        assertEquals(1, snapshot.rowOfPhoneNumber("+490002"));
+        assertEquals(-1, snapshot.rowOfId(3L));
+        assertEquals(-1, snapshot.rowOfUserName("unknown"));
+        assertEquals(-1, snapshot.rowOfPhoneNumber("+490003"));
+        assertEquals(-1, snapshot.rowOfPhoneNumber(null));
+
+        Customer customer = snapshot.customer(snapshot.rowOfId(1L));
+        assertEquals(1L, customer.getId());
+        assertEquals("jdoe", customer.getUserName());
+        assertEquals("John Doe", customer.getName());
+        assertEquals("+490001", customer.getPhoneNumber());
+    }
+
+    @Test
+    @DisplayName("Deleted customers are not found anymore but keep their row")
+    void deleteTest() {
+        snapshot.upsert(1L, "jdoe", "John Doe", "+490001");
+        snapshot.upsert(2L, "mmuster", "Max Mustermann", "+490002");
+
+        assertTrue(snapshot.delete(1L));
+        assertFalse(snapshot.delete(1L));
+
+        assertEquals(1, snapshot.size());
+        assertEquals(2, snapshot.rowCount());
+        assertTrue(snapshot.isDeleted(0));
+        assertEquals(1L, snapshot.id(0));
+        assertEquals(-1, snapshot.rowOfId(1L));
+        assertEquals(-1, snapshot.rowOfUserName("jdoe"));
+        assertEquals(-1, snapshot.rowOfPhoneNumber("+490001"));
+        assertEquals(1, snapshot.rowOfPhoneNumber("+490002"));
+    }
+
+    @Test
+    @DisplayName("Changing a customer replaces its row, an unchanged one is left alone")
+    void upsertTest() {
+        snapshot.upsert(1L, "jdoe", "John Doe", "+490001");
+        snapshot.upsert(1L, "jdoe", "John Doe", "+490001");
+
+        assertEquals(1, snapshot.rowCount());
+        assertTrue(snapshot.isSorted());
+
+        snapshot.upsert(1L, "jdoe", "John Doe", "+499999");
+
+        assertEquals(1, snapshot.size());
+        assertEquals(2, snapshot.rowCount());
+        assertEquals(1, snapshot.rowOfId(1L));
+        assertEquals(-1, snapshot.rowOfPhoneNumber("+490001"));
+        assertEquals(1, snapshot.rowOfPhoneNumber("+499999"));
+        assertFalse(snapshot.isSorted());
+    }
+
+    @Test
+    @DisplayName("The snapshot grows beyond its expected rows and keeps finding all of them")
+    void growTest() {
+        for (long id = 1; id <= 10_000; id++) {
+            snapshot.upsert(id, "user" + id, "Name " + id, "+49" + id);
+            if (id % 3 == 0) {
+                snapshot.delete(id);
+            }
+        }
+
+        assertEquals(10_000 - 10_000 / 3, snapshot.size());
+        for (long id = 1; id <= 10_000; id++) {
+            int row = snapshot.rowOfPhoneNumber("+49" + id);
+            if (id % 3 == 0) {
+                assertEquals(-1, row);
+            } else {
+                assertEquals(id, snapshot.id(row));
+                assertEquals("user" + id, snapshot.string(snapshot.rowOfId(id), CustomerSnapshot.USER_NAME));
+            }
+        }
+        assertTrue(snapshot.offHeapBytes() > 0);
+    }
+
+    @Test
+    @DisplayName("Keyset pagination finds the first row after an id")
+    void firstRowAfterTest() {
+        snapshot.upsert(10L, "a", "A", "+490010");
+        snapshot.upsert(20L, "b", "B", "+490020");
+        snapshot.upsert(30L, "c", "C", "+490030");
+
+        assertEquals(0, snapshot.firstRowAfter(0L));
+        assertEquals(1, snapshot.firstRowAfter(10L));
+        assertEquals(2, snapshot.firstRowAfter(25L));
+        assertEquals(3, snapshot.firstRowAfter(30L));
+
+        snapshot.upsert(5L, "d", "D", "+490005");
+
+        assertFalse(snapshot.isSorted());
+        assertThrows(IllegalStateException.class, () -> snapshot.firstRowAfter(0L));
+    }
+
+    @Test
+    @DisplayName("Sorting puts the rows back in id order without the deleted ones")
+    void sortTest() {
+        snapshot.upsert(10L, "a", "A", "+490010");
+        snapshot.upsert(30L, "c", "C", "+490030");
+        snapshot.upsert(20L, "b", "B", "+490020");
+        snapshot.upsert(10L, "a", "A2", "+490010");
+        snapshot.upsert(40L, "d", "D", "+490040");
+        snapshot.delete(40L);
+
+        snapshot.sort();
+
+        assertTrue(snapshot.isSorted());
+        assertEquals(3, snapshot.rowCount());
+        assertEquals(3, snapshot.size());
+        assertEquals(10L, snapshot.id(0));
+        assertEquals("A2", snapshot.string(0, CustomerSnapshot.NAME));
+        assertEquals(20L, snapshot.id(1));
+        assertEquals(30L, snapshot.id(2));
+        assertEquals(1, snapshot.rowOfId(20L));
+        assertEquals(2, snapshot.rowOfPhoneNumber("+490030"));
+        assertEquals(0, snapshot.rowOfUserName("a"));
+        assertEquals(-1, snapshot.rowOfId(40L));
+        assertEquals(1, snapshot.firstRowAfter(10L));
+
+        snapshot.upsert(40L, "d", "D", "+490040");
+        assertTrue(snapshot.isSorted());
+        snapshot.upsert(35L, "e", "E", "+490035");
+        assertFalse(snapshot.isSorted());
+    }
+
+    @Test
+    @DisplayName("Strings are stored as UTF-8 and can be copied without decoding")
+    void unicodeTest() {
+        snapshot.upsert(1L, "jürgen", "Jürgen Müller 😀", "+490001");
+
+        int row = snapshot.rowOfUserName("jürgen");
+        assertEquals("Jürgen Müller 😀", snapshot.string(row, CustomerSnapshot.NAME));
+
+        byte[] target = new byte[CustomerSnapshot.MAX_STRING_BYTES];
+        int length = snapshot.copyString(row, CustomerSnapshot.NAME, target);
+        assertEquals("Jürgen Müller 😀", new String(target, 0, length, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Invalid customers are rejected")
+    void invalidCustomerTest() {
+        assertThrows(IllegalArgumentException.class, () -> snapshot.upsert(0L, "a", "A", "+490001"));
+        assertThrows(IllegalArgumentException.class, () -> snapshot.upsert(1L, null, "A", "+490001"));
+        assertThrows(IllegalArgumentException.class, () -> new CustomerSnapshot(-1));
+    }
+}
@@ -0,0 +1,105 @@
+package com.softwaretesting.testing.index;
+
+import com.softwaretesting.testing.dao.CustomerRepository;
+import com.softwaretesting.testing.event.CustomersAddedEvent;
+import com.softwaretesting.testing.model.Customer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+class PhoneNumberFilterTest {
+    @Mock
+    private CustomerRepository customerRepository;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private PhoneNumberFilter phoneNumberFilter;
+
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        phoneNumberFilter = new PhoneNumberFilter(meterRegistry, customerRepository, 1000, 0.01);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenPhoneNumbersInDatabase(String... phoneNumbers) {
+        when(customerRepository.count()).thenReturn((long) phoneNumbers.length);
+        doAnswer(invocation -> {
+            final Consumer<String> action = invocation.getArgument(0);
+            for (String phoneNumber : phoneNumbers) {
+                action.accept(phoneNumber);
+            }
+            return null;
+        }).when(customerRepository).forEachPhoneNumber(any(Consumer.class));
+    }
+
+    @Test
+    @DisplayName("Every number might be present until the filter was built")
+    void notBuiltYetTest() {
+        assertTrue(phoneNumberFilter.mightContain("+490001"));
+        assertEquals(1.0, meterRegistry.get("customer_phone_filter_false_positive_rate").gauge().value());
+    }
+
+    @Test
+    @DisplayName("After a rebuild only numbers from the DB might be present")
+    void rebuildTest() {
+        givenPhoneNumbersInDatabase("+490001", "+490002");
+
+        phoneNumberFilter.rebuild();
+
+        assertTrue(phoneNumberFilter.mightContain("+490001"));
+        assertTrue(phoneNumberFilter.mightContain("+490002"));
+        assertFalse(phoneNumberFilter.mightContain("+491234"));
+        assertEquals(1, meterRegistry.get("customer_phone_filter_lookups").tag("result", "absent").counter().count());
+        assertTrue(meterRegistry.get("customer_phone_filter_false_positive_rate").gauge().value() < 0.01);
+    }
+
+    @Test
+    @DisplayName("Added customers are put into the filter before their transaction commits")
+    void addedCustomersTest() {
+        givenPhoneNumbersInDatabase("+490001");
+        phoneNumberFilter.rebuild();
+
+        phoneNumberFilter.onCustomersInserted(new CustomersAddedEvent(List.of(new Customer(1L, "u", "n", "+490003"))));
+
+        assertTrue(phoneNumberFilter.mightContain("+490003"));
+    }
+
+    @Test
+    @DisplayName("Customers committed during a rebuild end up in the rebuilt filter")
+    void addedDuringRebuildTest() {
+        when(customerRepository.count()).thenReturn(1L);
+        doAnswer(invocation -> {
+            // commits while the table is scanned, after the scan passed the new row
+            phoneNumberFilter.onCustomersAdded(new CustomersAddedEvent(List.of(new Customer(2L, "u", "n", "+490002"))));
+            final Consumer<String> action = invocation.getArgument(0);
+            action.accept("+490001");
+            return null;
+        }).when(customerRepository).forEachPhoneNumber(any());
+
+        phoneNumberFilter.rebuild();
+
+        assertTrue(phoneNumberFilter.mightContain("+490001"));
+        assertTrue(phoneNumberFilter.mightContain("+490002"));
+    }
+}
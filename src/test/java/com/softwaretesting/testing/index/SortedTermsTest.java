@@ -0,0 +1,112 @@
+package com.softwaretesting.testing.index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortedTermsTest {
+
+    private static SortedTerms phoneNumbers(int count) {
+        SortedTerms.Builder builder = new SortedTerms.Builder();
+        // added in reverse, the builder sorts
+        for (int i = count - 1; i >= 0; i--) {
+            builder.add("+49151" + (1000 + i), i);
+        }
+        return builder.build();
+    }
+
+    @Test
+    @DisplayName("Every term is found at its position, across block boundaries")
+    void ordinalTest() {
+        SortedTerms terms = phoneNumbers(100);
+
+        assertEquals(100, terms.termCount());
+        for (int i = 0; i < 100; i++) {
+            int ordinal = terms.ordinalOf("+49151" + (1000 + i));
+            assertEquals(i, ordinal);
+            assertTrue(terms.containsId(ordinal, i));
+            assertFalse(terms.containsId(ordinal, i + 1));
+        }
+        assertEquals(-1, terms.ordinalOf("+49151"));
+        assertEquals(-1, terms.ordinalOf("+4915110000"));
+        assertEquals(-1, terms.ordinalOf("+491511100"));
+    }
+
+    @Test
+    @DisplayName("Seeking a prefix stops at the first term that is not smaller")
+    void seekTest() {
+        SortedTerms terms = phoneNumbers(100);
+
+        SortedTerms.Cursor cursor = terms.seek("+4915110");
+        List<String> matches = new ArrayList<>();
+        for (; cursor.isValid() && cursor.startsWith("+4915110"); cursor.next()) {
+            matches.add(cursor.term());
+        }
+        assertEquals(100, matches.size());
+        assertEquals("+491511000", matches.get(0));
+
+        cursor = terms.seek("+49151105");
+        assertEquals("+491511050", cursor.term());
+        assertEquals(50, cursor.ordinal());
+
+        assertEquals("+491511000", terms.seek("").term());
+        assertFalse(terms.seek("+5").isValid());
+        assertFalse(SortedTerms.EMPTY.seek("").isValid());
+    }
+
+    @Test
+    @DisplayName("Ids of a term are kept once each, ascending")
+    void idsTest() {
+        SortedTerms.Builder builder = new SortedTerms.Builder();
+        builder.add("muller", 3L);
+        builder.add("meyer", 2L);
+        builder.add("muller", 1L);
+        builder.add("muller", 3L);
+        builder.add("", 4L);
+        SortedTerms terms = builder.build();
+
+        assertEquals(3, terms.termCount());
+        int muller = terms.ordinalOf("muller");
+        assertEquals(2, terms.idCount(muller));
+        List<Long> ids = new ArrayList<>();
+        terms.forEachId(muller, ids::add);
+        assertEquals(List.of(1L, 3L), ids);
+
+        List<String> all = new ArrayList<>();
+        terms.forEachTerm(all::add);
+        assertEquals(List.of("", "meyer", "muller"), all);
+    }
+
+    @Test
+    @DisplayName("Pairs sorted into several segments are merged into the same terms as one segment")
+    void segmentsTest() {
+        SortedTerms.Builder segmented = new SortedTerms.Builder(7);
+        SortedTerms.Builder single = new SortedTerms.Builder();
+        for (int i = 0; i < 100; i++) {
+            // the same terms in several segments, some ids twice
+            String term = "term" + (i * 37 % 23);
+            segmented.add(term, i % 60);
+            single.add(term, i % 60);
+        }
+        SortedTerms merged = segmented.build();
+        SortedTerms expected = single.build();
+
+        assertEquals(expected.termCount(), merged.termCount());
+        List<String> mergedTerms = new ArrayList<>();
+        merged.forEachTerm(mergedTerms::add);
+        List<String> expectedTerms = new ArrayList<>();
+        expected.forEachTerm(expectedTerms::add);
+        assertEquals(expectedTerms, mergedTerms);
+        for (int ordinal = 0; ordinal < merged.termCount(); ordinal++) {
+            List<Long> mergedIds = new ArrayList<>();
+            merged.forEachId(ordinal, mergedIds::add);
+            List<Long> expectedIds = new ArrayList<>();
+            expected.forEachId(ordinal, expectedIds::add);
+            assertEquals(expectedIds, mergedIds);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.softwaretesting.testing.index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TermIndexTest {
+
+    private final TermIndex termIndex = new TermIndex();
+
+    private List<Long> withPrefix(String prefix, int limit) {
+        List<Long> ids = new ArrayList<>();
+        termIndex.forEachWithPrefix(prefix, id -> {
+            ids.add(id);
+            return ids.size() < limit;
+        });
+        return ids;
+    }
+
+    @Test
+    @DisplayName("Prefix lookups return the ids of the matching terms in term order")
+    void prefixTest() {
+        termIndex.add("mustermann", 3L);
+        termIndex.add("muller", 1L);
+        termIndex.add("meyer", 2L);
+        termIndex.add("muller", 4L);
+
+        assertEquals(List.of(3L), withPrefix("must", 10));
+        assertEquals(List.of(1L, 4L, 3L), withPrefix("mu", 10));
+        assertEquals(List.of(2L, 1L, 4L, 3L), withPrefix("m", 10));
+        assertEquals(List.of(2L, 1L), withPrefix("m", 2));
+        assertEquals(List.of(), withPrefix("x", 10));
+        assertEquals(4, withPrefix("", 10).size());
+    }
+
+    @Test
+    @DisplayName("Adding reports new terms")
+    void addTest() {
+        assertTrue(termIndex.add("muller", 1L));
+        assertFalse(termIndex.add("muller", 2L));
+        assertFalse(termIndex.add("muller", 2L));
+        assertEquals(2, termIndex.count("muller"));
+        assertTrue(termIndex.contains("muller", 2L));
+        assertFalse(termIndex.contains("muller", 3L));
+        assertEquals(1, termIndex.termCount());
+    }
+
+    @Test
+    @DisplayName("Ids stay sorted and unique however they are added")
+    void postingsTest() {
+        for (long id = 100; id > 0; id -= 2) {
+            termIndex.add("muller", id);
+        }
+        for (long id = 1; id <= 100; id++) {
+            termIndex.add("muller", id);
+        }
+
+        List<Long> ids = withPrefix("muller", 1000);
+        assertEquals(100, ids.size());
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i - 1) < ids.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Terms added after the build are found together with the built ones, in term order")
+    void builtAndAddedTest() {
+        TermIndex.Builder builder = TermIndex.builder();
+        builder.add("mustermann", 3L);
+        builder.add("muller", 1L);
+        builder.add("meyer", 2L);
+        builder.add("muller", 1L);
+        TermIndex index = builder.build();
+
+        assertFalse(index.add("muller", 1L));
+        assertFalse(index.add("muller", 4L));
+        assertTrue(index.add("mulder", 5L));
+        assertTrue(index.add("mz", 6L));
+
+        List<Long> ids = new ArrayList<>();
+        index.forEachWithPrefix("m", ids::add);
+        assertEquals(List.of(2L, 5L, 1L, 4L, 3L, 6L), ids);
+        assertEquals(2, index.count("muller"));
+        assertTrue(index.contains("muller", 1L));
+        assertTrue(index.contains("muller", 4L));
+        assertEquals(5, index.termCount());
+
+        List<String> terms = new ArrayList<>();
+        index.forEachTerm(terms::add);
+        assertEquals(List.of("meyer", "muller", "mustermann", "mulder", "mz"), terms);
+    }
+
+    @Test
+    @DisplayName("A visitor sees the ids that were there when it started, not later additions")
+    void readerSeesStableIdsTest() {
+        termIndex.add("muller", 1L);
+        termIndex.add("muller", 2L);
+
+        List<Long> ids = new ArrayList<>();
+        termIndex.forEachWithTerm("muller", id -> {
+            ids.add(id);
+            termIndex.add("muller", id + 10);
+            return true;
+        });
+
+        assertEquals(List.of(1L, 2L), ids);
+        assertEquals(4, termIndex.count("muller"));
+    }
+}
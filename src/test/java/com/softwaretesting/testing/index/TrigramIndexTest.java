@@ -0,0 +1,57 @@
+package com.softwaretesting.testing.index;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrigramIndexTest {
+
+    private final TrigramIndex trigramIndex = new TrigramIndex();
+
+    @Test
+    @DisplayName("Edit distance counts insertions, deletions and substitutions up to the maximum")
+    void editDistanceTest() {
+        assertEquals(0, TrigramIndex.editDistance("muller", "muller", 2));
+        assertEquals(1, TrigramIndex.editDistance("muller", "mueller", 2));
+        assertEquals(1, TrigramIndex.editDistance("muller", "muler", 2));
+        assertEquals(1, TrigramIndex.editDistance("muller", "miller", 2));
+        assertEquals(2, TrigramIndex.editDistance("muller", "mulelr", 2));
+        assertEquals(3, TrigramIndex.editDistance("muller", "meyer", 2));
+        assertEquals(3, TrigramIndex.editDistance("a", "abcd", 2));
+        assertEquals(3, TrigramIndex.editDistance("", "abc", 5));
+    }
+
+    @Test
+    @DisplayName("Similar terms are returned closest first")
+    void similarTermsTest() {
+        List.of("muller", "mueller", "miller", "meyer", "schmidt", "mustermann").forEach(trigramIndex::add);
+
+        assertEquals(List.of("mueller", "muller", "miller"), trigramIndex.similarTerms("mueller", 2));
+        assertEquals(List.of("muller", "miller", "mueller"), trigramIndex.similarTerms("muller", 1));
+        assertEquals(List.of("schmidt"), trigramIndex.similarTerms("schmitd", 2));
+        assertEquals(List.of(), trigramIndex.similarTerms("wagner", 2));
+    }
+
+    @Test
+    @DisplayName("Short words are compared with all terms of a fitting length")
+    void shortWordsTest() {
+        List.of("li", "lu", "lee", "long").forEach(trigramIndex::add);
+
+        assertEquals(List.of("li", "lu"), trigramIndex.similarTerms("la", 1));
+        assertEquals(List.of("li"), trigramIndex.similarTerms("li", 0));
+    }
+
+    @Test
+    @DisplayName("Removed terms are not found anymore")
+    void removeTest() {
+        trigramIndex.add("muller");
+        trigramIndex.add("miller");
+        trigramIndex.remove("muller");
+
+        assertEquals(List.of("miller"), trigramIndex.similarTerms("muller", 1));
+        assertEquals(1, trigramIndex.size());
+    }
+}
@@ -67,4 +67,28 @@ class PhoneNumberValidatorTest {
     void invalidNumberIllegalSymbols() {
         assertFalse(phoneNumberValidator.validate("+49123AB456789"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void invalidNumberTrailingNewline() {
+        assertFalse(phoneNumberValidator.validate("+4912345678\n"));
+    }
+
+    @Test
+    void invalidNumberWithoutPlus() {
+        assertFalse(phoneNumberValidator.validate("004912345678"));
+    }
+
+    @Test
+    void validateAllTest() {
+        final boolean[] valid = phoneNumberValidator.validateAll(
+                new CharSequence[]{"+4912345", "+49170", new StringBuilder("+491234567890123"), "+049123456789"});
+
+        assertArrayEquals(new boolean[]{true, false, true, false}, valid);
+    }
+
+    @Test
+    void validateAllWithNullTest() {
+        assertThrows(IllegalArgumentException.class,
+                () -> phoneNumberValidator.validateAll(new CharSequence[]{"+4912345", null}));
+    }
+}
@@ -1,24 +1,83 @@
 package artificialintelligence;
 
-import tictactoe.Board;
+import tictactoe.GameBoard;
 
 /**
  * Uses various algorithms to play Tic Tac Toe.
  */
 public class Algorithms {
 
+    /**
+     * The moves solved ahead of time, mapped into memory once. Null when there
+     * is no move table on the class path.
+     */
+    private static final MoveTable MOVE_TABLE = MoveTable.load();
+
     /**
      * Algorithms cannot be instantiated.
      */
     private Algorithms() {
     }
 
+    /**
+     * Give MiniMax and both Alpha-Beta Pruning algorithms a new transposition
+     * table each. The tables keep the scored positions from one move to the
+     * next, so a position is only searched once.
+     *
+     * @param size        the number of entries, 0 to search without a table
+     * @param replacement which entry stays when two positions fall on the same one
+     */
+    public static void setTranspositionTables(int size, TranspositionTable.Replacement replacement) {
+        MiniMax.table = size == 0 ? null : new TranspositionTable(size, replacement);
+        AlphaBetaPruning.table = size == 0 ? null : new TranspositionTable(size, replacement);
+        AlphaBetaAdvanced.table = size == 0 ? null : new TranspositionTable(size, replacement);
+    }
+
+    /**
+     * Turn the symmetry reduction of MiniMax and both Alpha-Beta Pruning
+     * algorithms on or off. On, they only search one of the moves that give
+     * the same position up to a rotation or reflection and share the table
+     * entries of such positions. They play as well, but may pick another one
+     * of moves that score the same.
+     *
+     * @param enabled true to reduce by symmetry
+     */
+    public static void setSymmetryReduction(boolean enabled) {
+        MiniMax.symmetryReduction = enabled;
+        AlphaBetaPruning.symmetryReduction = enabled;
+        AlphaBetaAdvanced.symmetryReduction = enabled;
+    }
+
+    /**
+     * Get the move that the Alpha-Beta Pruning algorithm with depth in the
+     * evaluation function plays, from the move table. Without a move table the
+     * algorithm searches for it.
+     *
+     * @param board the Tic Tac Toe board
+     * @return the index of the move, -1 if the game is over
+     */
+    public static int lookup(GameBoard board) {
+        if (MOVE_TABLE != null) {
+            return MOVE_TABLE.lookup(board);
+        }
+
+        if (board.isGameOver()) {
+            return -1;
+        }
+
+        int available = board.getAvailableMoves();
+        alphaBetaAdvanced(board);
+        int move = Integer.numberOfTrailingZeros(available & ~board.getAvailableMoves());
+        board.undo();
+        return move;
+    }
+
     /**
      * Play a random move.
      *
      * @param board the Tic Tac Toe board to play on
      */
-    public static void random(Board board) {
+    public static void random(GameBoard board) {
         Random.run(board);
     }
 
@@ -27,7 +86,7 @@ public class Algorithms {
      *
      * @param board the Tic Tac Toe board to play on
      */
-    public static void miniMax(Board board) {
+    public static void miniMax(GameBoard board) {
         MiniMax.run(board.getTurn(), board, Double.POSITIVE_INFINITY);
     }
 
@@ -37,7 +96,7 @@ public class Algorithms {
      * @param board the Tic Tac Toe board to play on
      * @param ply   the maximum depth
      */
-    public static void miniMax(Board board, int ply) {
+    public static void miniMax(GameBoard board, int ply) {
         MiniMax.run(board.getTurn(), board, ply);
     }
 
@@ -46,7 +105,7 @@ public class Algorithms {
      *
      * @param board the Tic Tac Toe board to play on
      */
-    public static void alphaBetaPruning(Board board) {
+    public static void alphaBetaPruning(GameBoard board) {
         AlphaBetaPruning.run(board.getTurn(), board, Double.POSITIVE_INFINITY);
     }
 
@@ -56,7 +115,7 @@ public class Algorithms {
      * @param board the Tic Tac Toe board to play on
      * @param ply   the maximum depth
      */
-    public static void alphaBetaPruning(Board board, int ply) {
+    public static void alphaBetaPruning(GameBoard board, int ply) {
         AlphaBetaPruning.run(board.getTurn(), board, ply);
     }
 
@@ -66,7 +125,7 @@ public class Algorithms {
      *
      * @param board the Tic Tac Toe board to play on
      */
-    public static void alphaBetaAdvanced(Board board) {
+    public static void alphaBetaAdvanced(GameBoard board) {
         AlphaBetaAdvanced.run(board.getTurn(), board, Double.POSITIVE_INFINITY);
     }
 
@@ -77,7 +136,7 @@ public class Algorithms {
      * @param board the Tic Tac Toe board to play on
      * @param ply   the maximum depth
      */
-    public static void alphaBetaAdvanced(Board board, int ply) {
+    public static void alphaBetaAdvanced(GameBoard board, int ply) {
         AlphaBetaAdvanced.run(board.getTurn(), board, ply);
     }
 
@@ -1,6 +1,7 @@
 package artificialintelligence;
 
 import tictactoe.Board;
+import tictactoe.GameBoard;
 
 /**
  * Uses the Alpha-Beta Pruning algorithm to play a move in a game of Tic Tac Toe
@@ -18,6 +19,27 @@ import tictactoe.Board;
 class AlphaBetaAdvanced {
 
     private static double maxPly;
+    private static int moveToPlay;
+    private static boolean useTable;
+
+    /**
+     * The number of boards the last run checked.
+     */
+    static long nodes;
+
+    /**
+     * The positions the runs have scored, kept from one run to the next. Null
+     * when the runs search without one.
+     */
+    static TranspositionTable table = new TranspositionTable(TranspositionTable.DEFAULT_SIZE,
+            TranspositionTable.Replacement.DEPTH_PREFERRED);
+
+    /**
+     * Whether the runs skip the moves that give the same position as another
+     * move up to a rotation or reflection, and look up such positions under
+     * the same key in the table.
+     */
+    static boolean symmetryReduction = true;
 
     /**
      * AlphaBetaAdvanced cannot be instantiated.
@@ -26,20 +48,30 @@ class AlphaBetaAdvanced {
     }
 
     /**
-     * Execute the algorithm.
+     * Execute the algorithm. Every move is played and taken back on the given
+     * board, only the best move stays on it.
      *
      * @param player the player that the AI will identify as
      * @param board  the Tic Tac Toe board to play on
      * @param maxPly the maximum depth
      */
-    static void run(Board.State player, Board board, double maxPly) {
+    static void run(Board.State player, GameBoard board, double maxPly) {
 
         if (maxPly < 1) {
             throw new IllegalArgumentException("Maximum depth must be greater than 0.");
         }
 
         AlphaBetaAdvanced.maxPly = maxPly;
+        nodes = 0;
+        moveToPlay = -1;
+        // A win on the last cell of a blank board scores 10 - 10 = 0 like a
+        // draw, so the scores of such a run do not hold from another board.
+        useTable = table != null && Math.min(maxPly, Integer.bitCount(board.getAvailableMoves())) < 9;
         alphaBetaPruning(player, board, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0);
+
+        if (moveToPlay != -1) {
+            board.move(moveToPlay);
+        }
     }
 
     /**
@@ -52,20 +84,79 @@ class AlphaBetaAdvanced {
      * @param currentPly the current depth
      * @return the score of the board
      */
-    private static int alphaBetaPruning(Board.State player, Board board, double alpha, double beta, int currentPly) {
+    private static int alphaBetaPruning(Board.State player, GameBoard board, double alpha, double beta, int currentPly) {
+        nodes++;
         if (currentPly++ == maxPly || board.isGameOver()) {
             return score(player, board, currentPly);
         }
 
+        long key = 0;
+        int depth = 0;
+        // The board of the run is always searched, its best move is needed.
+        if (useTable) {
+            key = TranspositionTable.key(board, player, symmetryReduction);
+            depth = TranspositionTable.depth(board, maxPly - currentPly + 1);
+            int score = currentPly == 1 ? TranspositionTable.MISS
+                    : table.probe(key, depth, toTable(alpha, currentPly), toTable(beta, currentPly));
+            if (score != TranspositionTable.MISS) {
+                return (int) fromTable(score, currentPly);
+            }
+        }
+
+        long nodesBefore = nodes;
+        int score;
         if (board.getTurn() == player) {
-            return getMax(player, board, alpha, beta, currentPly);
+            score = getMax(player, board, alpha, beta, currentPly);
         } else {
-            return getMin(player, board, alpha, beta, currentPly);
+            score = getMin(player, board, alpha, beta, currentPly);
         }
+
+        if (useTable) {
+            table.store(key, depth, (int) toTable(score, currentPly), toTable(alpha, currentPly),
+                    toTable(beta, currentPly), nodes - nodesBefore);
+        }
+        return score;
     }
 
     /**
-     * Play the move with the highest score.
+     * The score of a win or a loss counts the plies from the board of the run.
+     * The table keeps it from the stored board instead, so it holds wherever
+     * the board is found again.
+     *
+     * @param score      the score from the board of the run
+     * @param currentPly the current depth
+     * @return the score from the current board
+     */
+    private static double toTable(double score, int currentPly) {
+        if (score > 0) {
+            return score + currentPly;
+        } else if (score < 0) {
+            return score - currentPly;
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * The opposite of {@link #toTable(double, int)}.
+     *
+     * @param score      the score from the current board
+     * @param currentPly the current depth
+     * @return the score from the board of the run
+     */
+    private static double fromTable(double score, int currentPly) {
+        if (score > 0) {
+            return score - currentPly;
+        } else if (score < 0) {
+            return score + currentPly;
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * Find the move with the highest score, remember it if the board is the one
+     * of the run.
      *
      * @param player     the player that the AI will identify as
      * @param board      the Tic Tac Toe board to play on
@@ -74,14 +165,16 @@ class AlphaBetaAdvanced {
      * @param currentPly the current depth
      * @return the score of the board
      */
-    private static int getMax(Board.State player, Board board, double alpha, double beta, int currentPly) {
+    private static int getMax(Board.State player, GameBoard board, double alpha, double beta, int currentPly) {
         int indexOfBestMove = -1;
 
-        for (Integer theMove : board.getAvailableMoves()) {
+        int available = symmetryReduction ? board.getUniqueMoves() : board.getAvailableMoves();
+        for (int moves = available; moves != 0; moves &= moves - 1) {
+            int theMove = Integer.numberOfTrailingZeros(moves);
 
-            Board modifiedBoard = board.getDeepCopy();
-            modifiedBoard.move(theMove);
-            int score = alphaBetaPruning(player, modifiedBoard, alpha, beta, currentPly);
+            board.move(theMove);
+            int score = alphaBetaPruning(player, board, alpha, beta, currentPly);
+            board.undo();
 
             if (score > alpha) {
                 alpha = score;
@@ -93,14 +186,15 @@ class AlphaBetaAdvanced {
             }
         }
 
-        if (indexOfBestMove != -1) {
-            board.move(indexOfBestMove);
+        if (currentPly == 1) {
+            moveToPlay = indexOfBestMove;
         }
         return (int) alpha;
     }
 
     /**
-     * Play the move with the lowest score.
+     * Find the move with the lowest score, remember it if the board is the one
+     * of the run.
      *
      * @param player     the player that the AI will identify as
      * @param board      the Tic Tac Toe board to play on
@@ -109,15 +203,16 @@ class AlphaBetaAdvanced {
      * @param currentPly the current depth
      * @return the score of the board
      */
-    private static int getMin(Board.State player, Board board, double alpha, double beta, int currentPly) {
+    private static int getMin(Board.State player, GameBoard board, double alpha, double beta, int currentPly) {
         int indexOfBestMove = -1;
 
-        for (Integer theMove : board.getAvailableMoves()) {
-
-            Board modifiedBoard = board.getDeepCopy();
-            modifiedBoard.move(theMove);
+        int available = symmetryReduction ? board.getUniqueMoves() : board.getAvailableMoves();
+        for (int moves = available; moves != 0; moves &= moves - 1) {
+            int theMove = Integer.numberOfTrailingZeros(moves);
 
-            int score = alphaBetaPruning(player, modifiedBoard, alpha, beta, currentPly);
+            board.move(theMove);
+            int score = alphaBetaPruning(player, board, alpha, beta, currentPly);
+            board.undo();
 
             if (score < beta) {
                 beta = score;
@@ -129,8 +224,8 @@ class AlphaBetaAdvanced {
             }
         }
 
-        if (indexOfBestMove != -1) {
-            board.move(indexOfBestMove);
+        if (currentPly == 1) {
+            moveToPlay = indexOfBestMove;
         }
         return (int) beta;
     }
@@ -143,7 +238,7 @@ class AlphaBetaAdvanced {
      * @param currentPly the current depth
      * @return the score of the board
      */
-    private static int score(Board.State player, Board board, int currentPly) {
+    private static int score(Board.State player, GameBoard board, int currentPly) {
 
         if (player == Board.State.BLANK) {
             throw new IllegalArgumentException("Player must be X or O.");
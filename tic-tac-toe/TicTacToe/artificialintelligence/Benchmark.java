@@ -0,0 +1,324 @@
+package artificialintelligence;
+
+import tictactoe.BitBoard;
+import tictactoe.Board;
+import tictactoe.GameBoard;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Compares the algorithms on a {@link Board} with the same algorithms on a
+ * {@link BitBoard}. Both play and take back the moves in place, the bytes per
+ * run show that a search allocates nothing.
+ * <p>
+ * Every algorithm answers the first move at index 0 with a full depth search,
+ * like in results.txt, until the given number of seconds is over. A second of
+ * warm up comes first so the JIT compiler has done its work. Run it with:
+ * <pre>
+ * java artificialintelligence.Benchmark [seconds per measurement]
+ * </pre>
+ * Before that, perft counts the complete games on both boards to check that they
+ * play by the same rules (255,168 games).
+ * <p>
+ * The boards are compared without transposition tables. Then the algorithms run
+ * on a BitBoard with a table that is cleared before every run (cold), with one
+ * that is kept between the runs (warm, like in a game) and with a small table
+ * for each replacement policy.
+ * <p>
+ * Last, the symmetry reduction is turned off and on, without a table and with a
+ * cold one. Next to the run it counts the boards checked by one run from every
+ * position a game can reach, the table cleared before each. The other
+ * measurements run without the symmetry reduction.
+ */
+public class Benchmark {
+
+    private static final int FIRST_MOVE = 0;
+    private static final int SMALL_TABLE = 512;
+
+    private static final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Benchmark cannot be instantiated.
+     */
+    private Benchmark() {
+    }
+
+    public static void main(String[] args) {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 3;
+
+        perft();
+
+        Algorithms.setSymmetryReduction(false);
+        Algorithms.setTranspositionTables(0, null);
+        System.out.printf("%n%-18s %-8s %12s %14s %12s %14s %5s%n",
+                "Algorithm", "Board", "nodes/run", "nodes/s", "us/run", "bytes/run", "move");
+        measure("MiniMax", seconds, MiniMax::run, () -> MiniMax.nodes);
+        measure("AlphaBetaPruning", seconds, AlphaBetaPruning::run, () -> AlphaBetaPruning.nodes);
+        measure("AlphaBetaAdvanced", seconds, AlphaBetaAdvanced::run, () -> AlphaBetaAdvanced.nodes);
+
+        System.out.printf("%n%-18s %-26s %12s %12s %9s %12s %5s%n",
+                "Algorithm", "Table", "nodes/run", "us/run", "hit rate", "saved/run", "move");
+        measureTables("MiniMax", seconds, MiniMax::run, () -> MiniMax.nodes, () -> MiniMax.table);
+        measureTables("AlphaBetaPruning", seconds, AlphaBetaPruning::run, () -> AlphaBetaPruning.nodes,
+                () -> AlphaBetaPruning.table);
+        measureTables("AlphaBetaAdvanced", seconds, AlphaBetaAdvanced::run, () -> AlphaBetaAdvanced.nodes,
+                () -> AlphaBetaAdvanced.table);
+
+        System.out.printf("%n%-18s %-26s %12s %12s %14s %5s%n",
+                "Algorithm", "Symmetries", "nodes/run", "us/run", "all positions", "move");
+        measureSymmetries("MiniMax", seconds, MiniMax::run, () -> MiniMax.nodes, () -> MiniMax.table);
+        measureSymmetries("AlphaBetaPruning", seconds, AlphaBetaPruning::run, () -> AlphaBetaPruning.nodes,
+                () -> AlphaBetaPruning.table);
+        measureSymmetries("AlphaBetaAdvanced", seconds, AlphaBetaAdvanced::run, () -> AlphaBetaAdvanced.nodes,
+                () -> AlphaBetaAdvanced.table);
+        Algorithms.setSymmetryReduction(true);
+    }
+
+    /**
+     * The run method of an algorithm.
+     */
+    private interface Search {
+        void run(Board.State player, GameBoard board, double maxPly);
+    }
+
+    /**
+     * Measure an algorithm on both boards.
+     *
+     * @param name    the name of the algorithm
+     * @param seconds how long each board is measured
+     * @param search  the algorithm
+     * @param nodes   the number of boards the last run checked
+     */
+    private static void measure(String name, double seconds, Search search, LongSupplier nodes) {
+        measure(name, "Board", seconds, new Board(), search, nodes);
+        measure(name, "BitBoard", seconds, new BitBoard(), search, nodes);
+    }
+
+    private static void measure(String name, String boardName, double seconds, GameBoard board, Search search,
+                                LongSupplier nodes) {
+        // The same board for every run, the two moves are taken back afterwards.
+        LongSupplier run = () -> {
+            board.move(FIRST_MOVE);
+            search.run(board.getTurn(), board, Double.POSITIVE_INFINITY);
+            long move = playedMove(board);
+            board.undo();
+            board.undo();
+            return move;
+        };
+
+        repeat(1, run);
+
+        long start = System.nanoTime();
+        long allocatedBefore = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        long runs = repeat(seconds, run);
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBefore;
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        long move = run.getAsLong();
+        System.out.printf("%-18s %-8s %,12d %,14.0f %,12.1f %,14d %5d%n",
+                name, boardName, nodes.getAsLong(), runs * nodes.getAsLong() / elapsedSeconds,
+                elapsedSeconds * 1e6 / runs, allocated / runs, move);
+    }
+
+    /**
+     * Measure an algorithm with the different transposition tables.
+     *
+     * @param name    the name of the algorithm
+     * @param seconds how long each table is measured
+     * @param search  the algorithm
+     * @param nodes   the number of boards the last run checked
+     * @param table   the table of the algorithm
+     */
+    private static void measureTables(String name, double seconds, Search search, LongSupplier nodes,
+                                      Supplier<TranspositionTable> table) {
+        int size = TranspositionTable.DEFAULT_SIZE;
+        Algorithms.setTranspositionTables(size, TranspositionTable.Replacement.DEPTH_PREFERRED);
+        measureTable(name, "cold, " + size, seconds, true, search, nodes, table.get());
+        measureTable(name, "warm, " + size, seconds, false, search, nodes, table.get());
+
+        for (TranspositionTable.Replacement replacement : TranspositionTable.Replacement.values()) {
+            Algorithms.setTranspositionTables(SMALL_TABLE, replacement);
+            measureTable(name, "cold, " + SMALL_TABLE + " " + replacement.name().toLowerCase(), seconds, true,
+                    search, nodes, table.get());
+        }
+    }
+
+    private static void measureTable(String name, String tableName, double seconds, boolean cold, Search search,
+                                     LongSupplier nodes, TranspositionTable table) {
+        GameBoard board = new BitBoard();
+        LongSupplier run = () -> {
+            if (cold) {
+                table.clear();
+            }
+            board.move(FIRST_MOVE);
+            search.run(board.getTurn(), board, Double.POSITIVE_INFINITY);
+            long move = playedMove(board);
+            board.undo();
+            board.undo();
+            return move;
+        };
+
+        repeat(1, run);
+
+        long start = System.nanoTime();
+        long runs = repeat(seconds, run);
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        // The counters of one more run. A cold run starts them from 0.
+        long probes = cold ? 0 : table.getProbes();
+        long hits = cold ? 0 : table.getHits();
+        long saved = cold ? 0 : table.getNodesSaved();
+        long move = run.getAsLong();
+        probes = table.getProbes() - probes;
+        hits = table.getHits() - hits;
+        saved = table.getNodesSaved() - saved;
+
+        System.out.printf("%-18s %-26s %,12d %,12.1f %8.1f%% %,12d %5d%n",
+                name, tableName, nodes.getAsLong(), elapsedSeconds * 1e6 / runs,
+                probes == 0 ? 0 : 100.0 * hits / probes, saved, move);
+    }
+
+    /**
+     * Measure an algorithm with the symmetry reduction off and on.
+     *
+     * @param name    the name of the algorithm
+     * @param seconds how long each setting is measured
+     * @param search  the algorithm
+     * @param nodes   the number of boards the last run checked
+     * @param table   the table of the algorithm
+     */
+    private static void measureSymmetries(String name, double seconds, Search search, LongSupplier nodes,
+                                          Supplier<TranspositionTable> table) {
+        for (int size : new int[]{0, TranspositionTable.DEFAULT_SIZE}) {
+            for (boolean enabled : new boolean[]{false, true}) {
+                Algorithms.setTranspositionTables(size, TranspositionTable.Replacement.DEPTH_PREFERRED);
+                Algorithms.setSymmetryReduction(enabled);
+
+                GameBoard board = new BitBoard();
+                LongSupplier run = () -> {
+                    if (table.get() != null) {
+                        table.get().clear();
+                    }
+                    board.move(FIRST_MOVE);
+                    search.run(board.getTurn(), board, Double.POSITIVE_INFINITY);
+                    long move = playedMove(board);
+                    board.undo();
+                    board.undo();
+                    return move;
+                };
+
+                repeat(1, run);
+
+                long start = System.nanoTime();
+                long runs = repeat(seconds, run);
+                double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+                long move = run.getAsLong();
+                long nodesPerRun = nodes.getAsLong();
+                long allPositions = allPositions(new BitBoard(), search, nodes, table, new HashSet<>());
+                System.out.printf("%-18s %-26s %,12d %,12.1f %,14d %5d%n",
+                        name, (enabled ? "on" : "off") + (size == 0 ? "" : ", cold table"), nodesPerRun,
+                        elapsedSeconds * 1e6 / runs, allPositions, move);
+            }
+        }
+    }
+
+    /**
+     * Count the boards checked by one run from every position a game can reach.
+     *
+     * @param board   the board to start from
+     * @param search  the algorithm
+     * @param nodes   the number of boards the last run checked
+     * @param table   the table of the algorithm
+     * @param visited the keys of the positions already run from
+     * @return the number of boards checked
+     */
+    private static long allPositions(GameBoard board, Search search, LongSupplier nodes,
+                                     Supplier<TranspositionTable> table, Set<Long> visited) {
+        if (board.isGameOver() || !visited.add(board.getZobristKey())) {
+            return 0;
+        }
+
+        if (table.get() != null) {
+            table.get().clear();
+        }
+        search.run(board.getTurn(), board, Double.POSITIVE_INFINITY);
+        board.undo();
+        long checked = nodes.getAsLong();
+
+        for (int moves = board.getAvailableMoves(); moves != 0; moves &= moves - 1) {
+            board.move(Integer.numberOfTrailingZeros(moves));
+            checked += allPositions(board, search, nodes, table, visited);
+            board.undo();
+        }
+        return checked;
+    }
+
+    /**
+     * Run until the time is over.
+     *
+     * @param seconds how long to run
+     * @param run     what to run
+     * @return how many times it ran
+     */
+    private static long repeat(double seconds, LongSupplier run) {
+        long end = System.nanoTime() + (long) (seconds * 1e9);
+        long runs = 0;
+        long sink = 0;
+
+        do {
+            sink += run.getAsLong();
+            runs++;
+        } while (System.nanoTime() < end);
+
+        if (sink == Long.MIN_VALUE) {
+            System.out.println(sink);
+        }
+        return runs;
+    }
+
+    /**
+     * Get the move the AI played after the first move.
+     *
+     * @param board the board after the AI played
+     * @return the index of the move
+     */
+    private static long playedMove(GameBoard board) {
+        int played = BitBoard.ALL_CELLS & ~board.getAvailableMoves() & ~(1 << FIRST_MOVE);
+        return Integer.numberOfTrailingZeros(played);
+    }
+
+    /**
+     * Count the complete games on both boards.
+     */
+    private static void perft() {
+        long start = System.nanoTime();
+        long games = perft(new Board());
+        System.out.printf("perft Board:    %,d games in %,d ms%n", games, (System.nanoTime() - start) / 1_000_000);
+
+        start = System.nanoTime();
+        games = perft(new BitBoard());
+        System.out.printf("perft BitBoard: %,d games in %,d ms%n", games, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static long perft(GameBoard board) {
+        if (board.isGameOver()) {
+            return 1;
+        }
+
+        long games = 0;
+        for (int moves = board.getAvailableMoves(); moves != 0; moves &= moves - 1) {
+            int theMove = Integer.numberOfTrailingZeros(moves);
+            board.move(theMove);
+            games += perft(board);
+            board.undo();
+        }
+        return games;
+    }
+
+}
@@ -1,6 +1,7 @@
 package artificialintelligence;
 
 import tictactoe.Board;
+import tictactoe.GameBoard;
 
 /**
  * Uses the MiniMax algorithm to play a move in a game of Tic Tac Toe.
@@ -8,6 +9,26 @@ import tictactoe.Board;
 class MiniMax {
 
     private static double maxPly;
+    private static int moveToPlay;
+
+    /**
+     * The number of boards the last run checked.
+     */
+    static long nodes;
+
+    /**
+     * The positions the runs have scored, kept from one run to the next. Null
+     * when the runs search without one.
+     */
+    static TranspositionTable table = new TranspositionTable(TranspositionTable.DEFAULT_SIZE,
+            TranspositionTable.Replacement.DEPTH_PREFERRED);
+
+    /**
+     * Whether the runs skip the moves that give the same position as another
+     * move up to a rotation or reflection, and look up such positions under
+     * the same key in the table.
+     */
+    static boolean symmetryReduction = true;
 
     /**
      * MiniMax cannot be instantiated.
@@ -15,18 +36,25 @@ class MiniMax {
     private MiniMax() {}
 
     /**
-     * Execute the algorithm.
+     * Execute the algorithm. Every move is played and taken back on the given
+     * board, only the best move stays on it.
      * @param player        the player that the AI will identify as
      * @param board         the Tic Tac Toe board to play on
      * @param maxPly        the maximum depth
      */
-    static void run (Board.State player, Board board, double maxPly) {
+    static void run (Board.State player, GameBoard board, double maxPly) {
         if (maxPly < 1) {
             throw new IllegalArgumentException("Maximum depth must be greater than 0.");
         }
 
         MiniMax.maxPly = maxPly;
+        nodes = 0;
+        moveToPlay = -1;
         miniMax(player, board, 0);
+
+        if (moveToPlay != -1) {
+            board.move(moveToPlay);
+        }
     }
 
     /**
@@ -36,36 +64,58 @@ class MiniMax {
      * @param currentPly    the current depth
      * @return              the score of the board
      */
-    private static int miniMax (Board.State player, Board board, int currentPly) {
+    private static int miniMax (Board.State player, GameBoard board, int currentPly) {
+        nodes++;
         if (currentPly++ == maxPly || board.isGameOver()) {
             return score(player, board);
         }
 
+        long key = 0;
+        int depth = 0;
+        // The board of the run is always searched, its best move is needed.
+        if (table != null) {
+            key = TranspositionTable.key(board, player, symmetryReduction);
+            depth = TranspositionTable.depth(board, maxPly - currentPly + 1);
+            int score = currentPly == 1 ? TranspositionTable.MISS
+                    : table.probe(key, depth, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+            if (score != TranspositionTable.MISS) {
+                return score;
+            }
+        }
+
+        long nodesBefore = nodes;
+        int score;
         if (board.getTurn() == player) {
-            return getMax(player, board, currentPly);
+            score = getMax(player, board, currentPly);
         } else {
-            return getMin(player, board, currentPly);
+            score = getMin(player, board, currentPly);
         }
 
+        if (table != null) {
+            table.store(key, depth, score, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, nodes - nodesBefore);
+        }
+        return score;
     }
 
     /**
-     * Play the move with the highest score.
+     * Find the move with the highest score, remember it if the board is the one
+     * of the run.
      * @param player        the player that the AI will identify as
      * @param board         the Tic Tac Toe board to play on
      * @param currentPly    the current depth
      * @return              the score of the board
      */
-    private static int getMax (Board.State player, Board board, int currentPly) {
+    private static int getMax (Board.State player, GameBoard board, int currentPly) {
         double bestScore = Double.NEGATIVE_INFINITY;
         int indexOfBestMove = -1;
 
-        for (Integer theMove : board.getAvailableMoves()) {
+        int available = symmetryReduction ? board.getUniqueMoves() : board.getAvailableMoves();
+        for (int moves = available; moves != 0; moves &= moves - 1) {
+            int theMove = Integer.numberOfTrailingZeros(moves);
 
-            Board modifiedBoard = board.getDeepCopy();
-            modifiedBoard.move(theMove);
-
-            int score = miniMax(player, modifiedBoard, currentPly);
+            board.move(theMove);
+            int score = miniMax(player, board, currentPly);
+            board.undo();
 
             if (score >= bestScore) {
                 bestScore = score;
@@ -74,27 +124,31 @@ class MiniMax {
 
         }
 
-        board.move(indexOfBestMove);
+        if (currentPly == 1) {
+            moveToPlay = indexOfBestMove;
+        }
         return (int)bestScore;
     }
 
     /**
-     * Play the move with the lowest score.
+     * Find the move with the lowest score, remember it if the board is the one
+     * of the run.
      * @param player        the player that the AI will identify as
      * @param board         the Tic Tac Toe board to play on
      * @param currentPly    the current depth
      * @return              the score of the board
      */
-    private static int getMin (Board.State player, Board board, int currentPly) {
+    private static int getMin (Board.State player, GameBoard board, int currentPly) {
         double bestScore = Double.POSITIVE_INFINITY;
         int indexOfBestMove = -1;
 
-        for (Integer theMove : board.getAvailableMoves()) {
+        int available = symmetryReduction ? board.getUniqueMoves() : board.getAvailableMoves();
+        for (int moves = available; moves != 0; moves &= moves - 1) {
+            int theMove = Integer.numberOfTrailingZeros(moves);
 
-            Board modifiedBoard = board.getDeepCopy();
-            modifiedBoard.move(theMove);
-
-            int score = miniMax(player, modifiedBoard, currentPly);
+            board.move(theMove);
+            int score = miniMax(player, board, currentPly);
+            board.undo();
 
             if (score <= bestScore) {
                 bestScore = score;
@@ -103,7 +157,9 @@ class MiniMax {
 
         }
 
-        board.move(indexOfBestMove);
+        if (currentPly == 1) {
+            moveToPlay = indexOfBestMove;
+        }
         return (int)bestScore;
     }
 
@@ -113,7 +169,7 @@ class MiniMax {
      * @param board         the Tic Tac Toe board to play on
      * @return              the score of the board
      */
-    private static int score (Board.State player, Board board) {
+    private static int score (Board.State player, GameBoard board) {
         if (player == Board.State.BLANK) {
             throw new IllegalArgumentException("Player must be X or O.");
         }
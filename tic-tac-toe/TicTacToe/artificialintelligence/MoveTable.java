@@ -0,0 +1,146 @@
+package artificialintelligence;
+
+import tictactoe.BitBoard;
+import tictactoe.GameBoard;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The move the Alpha-Beta Pruning algorithm with depth in the evaluation plays
+ * in every position a game can reach, solved once and written to a file.
+ * <p>
+ * The file holds a header and then 4 bits per position, indexed by the base 3
+ * key of the board ({@link GameBoard#getBase3Key()}): the index of the move, or
+ * 15 for a position that is over or cannot be reached. That is 9,846 bytes for
+ * the 19,683 keys of a 3x3 board. It is mapped into memory, so looking up a
+ * move reads a single byte. Create the file with:
+ * <pre>
+ * java artificialintelligence.MoveTable [file]
+ * </pre>
+ * The default file is assets/moves.bin, the game loads it from the class path.
+ */
+public class MoveTable {
+
+    static final String RESOURCE = "/assets/moves.bin";
+
+    private static final int MAGIC = 0x54544D54;
+    private static final int HEADER = Integer.BYTES;
+    private static final int NO_MOVE = 0xF;
+    private static final int POSITIONS = (int) Math.pow(3, BitBoard.CELLS);
+
+    private final ByteBuffer moves;
+
+    private MoveTable(ByteBuffer moves) {
+        if (moves.limit() != HEADER + (POSITIONS + 1) / 2 || moves.getInt(0) != MAGIC) {
+            throw new IllegalStateException("Not a move table, create it again with MoveTable.");
+        }
+        this.moves = moves;
+    }
+
+    /**
+     * Load the move table from the class path.
+     *
+     * @return the move table, or null if there is none
+     */
+    static MoveTable load() {
+        URL resource = MoveTable.class.getResource(RESOURCE);
+
+        if (resource == null) {
+            return null;
+        }
+
+        try {
+            if (resource.getProtocol().equals("file")) {
+                try (FileChannel channel = FileChannel.open(Paths.get(resource.toURI()), StandardOpenOption.READ)) {
+                    return new MoveTable(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+                }
+            }
+
+            // In a jar the table cannot be mapped, it is read instead.
+            try (InputStream in = resource.openStream()) {
+                return new MoveTable(ByteBuffer.wrap(in.readAllBytes()));
+            }
+        } catch (IOException | URISyntaxException ex) {
+            throw new IllegalStateException("Move table could not be loaded.", ex);
+        }
+    }
+
+    /**
+     * Get the move to play.
+     *
+     * @param board the Tic Tac Toe board
+     * @return the index of the move, -1 if the game is over
+     */
+    int lookup(GameBoard board) {
+        int key = board.getBase3Key();
+        int move = moves.get(HEADER + key / 2);
+        move = (key & 1) == 0 ? move & 0xF : (move >> 4) & 0xF;
+        return move == NO_MOVE ? -1 : move;
+    }
+
+    /**
+     * Solve every position a game can reach and write the move table.
+     *
+     * @param args the file to write, assets/moves.bin by default
+     * @throws IOException if the file could not be written
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = Paths.get(args.length > 0 ? args[0] : "assets/moves.bin");
+
+        long start = System.nanoTime();
+        byte[] table = new byte[HEADER + (POSITIONS + 1) / 2];
+        ByteBuffer.wrap(table).putInt(MAGIC);
+        for (int i = HEADER; i < table.length; i++) {
+            table[i] = (byte) (NO_MOVE << 4 | NO_MOVE);
+        }
+
+        int solved = solve(new BitBoard(), table, new boolean[POSITIONS]);
+        Files.write(file, table);
+
+        System.out.printf("%,d positions solved in %,d ms, %,d bytes written to %s%n",
+                solved, (System.nanoTime() - start) / 1_000_000, table.length, file);
+    }
+
+    /**
+     * Find the move of the board and of every position after it.
+     *
+     * @param board   the board to start from
+     * @param table   the table to write the moves to
+     * @param visited the positions already solved, by base 3 key
+     * @return the number of positions solved
+     */
+    private static int solve(GameBoard board, byte[] table, boolean[] visited) {
+        int key = board.getBase3Key();
+
+        if (board.isGameOver() || visited[key]) {
+            return 0;
+        }
+        visited[key] = true;
+
+        int available = board.getAvailableMoves();
+        AlphaBetaAdvanced.run(board.getTurn(), board, Double.POSITIVE_INFINITY);
+        int move = Integer.numberOfTrailingZeros(available & ~board.getAvailableMoves());
+        board.undo();
+
+        int i = HEADER + key / 2;
+        table[i] = (byte) ((key & 1) == 0 ? (table[i] & 0xF0) | move : (table[i] & 0x0F) | move << 4);
+
+        int solved = 1;
+        for (int moves = available; moves != 0; moves &= moves - 1) {
+            board.move(Integer.numberOfTrailingZeros(moves));
+            solved += solve(board, table, visited);
+            board.undo();
+        }
+        return solved;
+    }
+
+}
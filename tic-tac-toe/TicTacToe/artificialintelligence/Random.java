@@ -1,6 +1,6 @@
 package artificialintelligence;
 
-import tictactoe.Board;
+import tictactoe.GameBoard;
 
 /**
  * Plays a random move in Tic Tac Toe.
@@ -21,15 +21,15 @@ class Random {
      *
      * @param board the Tic Tac Toe board to play on
      */
-    static void run(Board board) {
-        int[] moves = new int[board.getAvailableMoves().size()];
-        int index = 0;
+    static void run(GameBoard board) {
+        int moves = board.getAvailableMoves();
 
-        for (Integer item : board.getAvailableMoves()) {
-            moves[index++] = item;
+        // Drop the lowest available moves until the chosen one is the lowest.
+        for (int skip = utilRandom.nextInt(Integer.bitCount(moves)); skip > 0; skip--) {
+            moves &= moves - 1;
         }
 
-        int randomMove = moves[utilRandom.nextInt(moves.length)];
+        int randomMove = Integer.numberOfTrailingZeros(moves);
         board.move(randomMove);
     }
 
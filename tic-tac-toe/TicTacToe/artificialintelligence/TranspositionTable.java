@@ -0,0 +1,239 @@
+package artificialintelligence;
+
+import tictactoe.Board;
+import tictactoe.GameBoard;
+
+import java.util.Arrays;
+
+/**
+ * Remembers the scores of the positions a search has checked, so a position
+ * reached again through another order of moves, in the same run or a later
+ * one, is not searched twice.
+ * <p>
+ * An entry holds the score, the depth it was searched to and whether the score
+ * is exact or only a lower or upper bound (when alpha-beta pruning cut the
+ * search short). Entries live in arrays indexed by the Zobrist key of the
+ * position, so probing and storing allocate nothing. Two positions that fall
+ * on the same entry share it by the {@link Replacement} policy.
+ */
+public class TranspositionTable {
+
+    /**
+     * Which entry stays when two positions fall on the same one.
+     */
+    public enum Replacement {
+        /**
+         * The position stored last.
+         */
+        ALWAYS,
+        /**
+         * The position searched deeper, which saves the most work when it is
+         * found again.
+         */
+        DEPTH_PREFERRED
+    }
+
+    /**
+     * Enough for the 5,478 positions of a 3x3 board with a player each, or
+     * their 765 positions up to rotations and reflections.
+     */
+    public static final int DEFAULT_SIZE = 1 << 13;
+
+    /**
+     * Returned by a probe that found no score to use.
+     */
+    static final int MISS = Integer.MIN_VALUE;
+
+    private static final byte EMPTY = 0;
+    private static final byte EXACT = 1;
+    private static final byte LOWER = 2;
+    private static final byte UPPER = 3;
+
+    /**
+     * The scores depend on the player the AI identifies as, so it is part of
+     * the key.
+     */
+    private static final long PLAYER_O = 0x9E3779B97F4A7C15L;
+
+    private final Replacement replacement;
+    private final int mask;
+    private final long[] keys;
+    private final int[] scores;
+    private final byte[] depths;
+    private final byte[] bounds;
+    private final int[] nodes;
+
+    private long probes;
+    private long hits;
+    private long nodesSaved;
+
+    /**
+     * Construct an empty transposition table.
+     *
+     * @param size        the number of entries, rounded down to a power of two
+     * @param replacement which entry stays when two positions fall on the same one
+     */
+    public TranspositionTable(int size, Replacement replacement) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Size must be greater than 0.");
+        }
+
+        this.replacement = replacement;
+        size = Integer.highestOneBit(size);
+        mask = size - 1;
+        keys = new long[size];
+        scores = new int[size];
+        depths = new byte[size];
+        bounds = new byte[size];
+        nodes = new int[size];
+    }
+
+    /**
+     * Get the key of a position.
+     *
+     * @param board      the Tic Tac Toe board
+     * @param player     the player that the AI will identify as
+     * @param symmetries whether the rotations and reflections of the position
+     *                   have the same key
+     * @return the key of the position
+     */
+    static long key(GameBoard board, Board.State player, boolean symmetries) {
+        long key = symmetries ? board.getCanonicalKey() : board.getZobristKey();
+        return player == Board.State.O ? key ^ PLAYER_O : key;
+    }
+
+    /**
+     * Look for the score of a position.
+     *
+     * @param key   the key of the position
+     * @param depth how deep the position is to be searched
+     * @param alpha the alpha value
+     * @param beta  the beta value
+     * @return the score, or MISS if the position was not stored deep enough or
+     * its bound does not settle the search
+     */
+    int probe(long key, int depth, double alpha, double beta) {
+        probes++;
+        int entry = index(key);
+
+        if (bounds[entry] == EMPTY || keys[entry] != key || depths[entry] < depth) {
+            return MISS;
+        }
+
+        int score = scores[entry];
+        if (bounds[entry] == EXACT
+                || bounds[entry] == LOWER && score >= beta
+                || bounds[entry] == UPPER && score <= alpha) {
+            hits++;
+            nodesSaved += nodes[entry];
+            return score;
+        }
+
+        return MISS;
+    }
+
+    /**
+     * Store the score of a position.
+     *
+     * @param key   the key of the position
+     * @param depth how deep the position was searched
+     * @param score the score of the search
+     * @param alpha the alpha value the search started with
+     * @param beta  the beta value the search started with
+     * @param nodes the number of boards the search checked below the position
+     */
+    void store(long key, int depth, int score, double alpha, double beta, long nodes) {
+        int entry = index(key);
+
+        if (replacement == Replacement.DEPTH_PREFERRED && bounds[entry] != EMPTY
+                && keys[entry] != key && depths[entry] > depth) {
+            return;
+        }
+
+        keys[entry] = key;
+        scores[entry] = score;
+        depths[entry] = (byte) depth;
+        this.nodes[entry] = (int) Math.min(nodes, Integer.MAX_VALUE);
+
+        if (score <= alpha) {
+            bounds[entry] = UPPER;
+        } else if (score >= beta) {
+            bounds[entry] = LOWER;
+        } else {
+            bounds[entry] = EXACT;
+        }
+    }
+
+    /**
+     * Forget every position and reset the counters.
+     */
+    public void clear() {
+        Arrays.fill(bounds, EMPTY);
+        probes = 0;
+        hits = 0;
+        nodesSaved = 0;
+    }
+
+    /**
+     * Get the number of entries.
+     *
+     * @return the number of entries
+     */
+    public int getSize() {
+        return keys.length;
+    }
+
+    /**
+     * Get the number of times a search looked for a position.
+     *
+     * @return the number of probes
+     */
+    public long getProbes() {
+        return probes;
+    }
+
+    /**
+     * Get the number of probes that returned a score.
+     *
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Get the share of the probes that returned a score.
+     *
+     * @return the hit rate, between 0 and 1
+     */
+    public double getHitRate() {
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+
+    /**
+     * Get the number of boards the hits did not have to check again, counted
+     * by the searches that stored them.
+     *
+     * @return the number of boards saved
+     */
+    public long getNodesSaved() {
+        return nodesSaved;
+    }
+
+    /**
+     * Get how deep a position is to be searched: the plies left, but no more
+     * than the empty cells.
+     *
+     * @param board     the Tic Tac Toe board
+     * @param pliesLeft the plies the search may still go down
+     * @return the depth
+     */
+    static int depth(GameBoard board, double pliesLeft) {
+        return (int) Math.min(pliesLeft, Integer.bitCount(board.getAvailableMoves()));
+    }
+
+    private int index(long key) {
+        return (int) (key ^ key >>> 32) & mask;
+    }
+
+}
@@ -0,0 +1,322 @@
+package tictactoe;
+
+import java.util.Arrays;
+
+/**
+ * Represents the Tic Tac Toe board as two bitmasks, one per player. Bit i of a
+ * mask is set when the player holds index i of the board.
+ * <p>
+ * Moves are played and taken back with bit operations and the available moves
+ * are a mask as well, so searching on a BitBoard allocates nothing per position.
+ * It plays by the same rules as {@link Board}, X moves first.
+ */
+public class BitBoard implements GameBoard {
+
+    public static final int CELLS = Board.BOARD_WIDTH * Board.BOARD_WIDTH;
+    public static final int ALL_CELLS = (1 << CELLS) - 1;
+
+    /**
+     * The rows, columns and both diagonals.
+     */
+    static final int[] WIN_MASKS = winMasks();
+
+    /**
+     * For every index, the win masks that contain it, so a move only checks
+     * the lines it can complete.
+     */
+    private static final int[][] WIN_MASKS_BY_CELL = winMasksByCell();
+
+    private int xCells;
+    private int oCells;
+
+    /**
+     * The indexes of the moves in the order they were played, the first
+     * moveCount entries are in use.
+     */
+    private final int[] movesPlayed = new int[CELLS];
+    private int moveCount;
+
+    /**
+     * The Zobrist key of the position under every symmetry.
+     */
+    private final long[] zobristKeys = new long[Symmetry.COUNT];
+    private int base3Key;
+    private Board.State winner;
+    private boolean gameOver;
+
+    /**
+     * Construct a blank Tic Tac Toe board.
+     */
+    public BitBoard() {
+        reset();
+    }
+
+    /**
+     * Construct a BitBoard with the position of the given board, by playing its
+     * moves in the same order.
+     *
+     * @param board the board to copy
+     */
+    public BitBoard(Board board) {
+        reset();
+
+        for (int i = 0; i < board.getMoveCount(); i++) {
+            move(board.getMovePlayed(i));
+        }
+    }
+
+    /**
+     * Restart the game with a new blank board.
+     */
+    public void reset() {
+        xCells = 0;
+        oCells = 0;
+        moveCount = 0;
+        Arrays.fill(zobristKeys, 0);
+        base3Key = 0;
+        winner = Board.State.BLANK;
+        gameOver = false;
+    }
+
+    /**
+     * Places an X or an O on the specified index depending on whose turn it is.
+     *
+     * @param index the position on the board (example: index 4 is location (1, 1))
+     * @return true if the move has not already been played
+     */
+    @Override
+    public boolean move(int index) {
+
+        if (gameOver) {
+            throw new IllegalStateException("TicTacToe is over. No moves can be played.");
+        }
+
+        int bit = 1 << index;
+
+        if (((xCells | oCells) & bit) != 0) {
+            return false;
+        }
+
+        Board.State player = getTurn();
+        int playerCells;
+
+        if (player == Board.State.X) {
+            playerCells = xCells |= bit;
+        } else {
+            playerCells = oCells |= bit;
+        }
+
+        movesPlayed[moveCount++] = index;
+        Zobrist.update(zobristKeys, player, index);
+        base3Key += Board.base3Digit(player, index);
+
+        // The game is a draw.
+        if (moveCount == CELLS) {
+            winner = Board.State.BLANK;
+            gameOver = true;
+        }
+
+        // Check for a winner.
+        for (int mask : WIN_MASKS_BY_CELL[index]) {
+            if ((playerCells & mask) == mask) {
+                winner = player;
+                gameOver = true;
+                break;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Takes back the last move. No move is played once the game is over, so the
+     * board had no winner before it.
+     */
+    @Override
+    public void undo() {
+        if (moveCount == 0) {
+            throw new IllegalStateException("No move has been played.");
+        }
+
+        int index = movesPlayed[--moveCount];
+        int bit = 1 << index;
+        // With the move taken back, it is the turn of the player who played it.
+        Board.State player = getTurn();
+        if (player == Board.State.X) {
+            xCells &= ~bit;
+        } else {
+            oCells &= ~bit;
+        }
+        Zobrist.update(zobristKeys, player, index);
+        base3Key -= Board.base3Digit(player, index);
+
+        winner = Board.State.BLANK;
+        gameOver = false;
+    }
+
+    /**
+     * Check to see if the game is over (if there is a winner or a draw).
+     *
+     * @return true if the game is over
+     */
+    @Override
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    /**
+     * Check to see who's turn it is.
+     *
+     * @return the player who's turn it is
+     */
+    @Override
+    public Board.State getTurn() {
+        return (moveCount & 1) == 0 ? Board.State.X : Board.State.O;
+    }
+
+    /**
+     * Check to see who won.
+     *
+     * @return the player who won (or Blank if the game is a draw)
+     */
+    @Override
+    public Board.State getWinner() {
+        if (!gameOver) {
+            throw new IllegalStateException("TicTacToe is not over yet.");
+        }
+        return winner;
+    }
+
+    /**
+     * Get the empty cells as a mask, bit i is set when index i is empty. Iterate
+     * them with:
+     * <pre>
+     * for (int moves = board.getAvailableMoves(); moves != 0; moves &amp;= moves - 1) {
+     *     int index = Integer.numberOfTrailingZeros(moves);
+     * }
+     * </pre>
+     *
+     * @return the empty cells
+     */
+    @Override
+    public int getAvailableMoves() {
+        return ~(xCells | oCells) & ALL_CELLS;
+    }
+
+    /**
+     * Get the Zobrist hash of the position, the same key as a {@link Board}
+     * with the same cells.
+     *
+     * @return the key of the position
+     */
+    @Override
+    public long getZobristKey() {
+        return zobristKeys[0];
+    }
+
+    /**
+     * Get the Zobrist hash of the position and its rotations and reflections.
+     *
+     * @return the key of the position and its symmetric positions
+     */
+    @Override
+    public long getCanonicalKey() {
+        return Zobrist.canonicalKey(zobristKeys);
+    }
+
+    /**
+     * Get the available moves that give different positions.
+     *
+     * @return the empty cells that give different positions
+     */
+    @Override
+    public int getUniqueMoves() {
+        return Symmetry.uniqueMoves(getAvailableMoves(), zobristKeys);
+    }
+
+    /**
+     * Get the cells as a number in base 3.
+     *
+     * @return the number of the position
+     */
+    @Override
+    public int getBase3Key() {
+        return base3Key;
+    }
+
+    private static int[] winMasks() {
+        int[] masks = new int[2 * Board.BOARD_WIDTH + 2];
+        int next = 0;
+
+        for (int i = 0; i < Board.BOARD_WIDTH; i++) {
+            int row = 0;
+            int column = 0;
+            for (int j = 0; j < Board.BOARD_WIDTH; j++) {
+                row |= 1 << (i * Board.BOARD_WIDTH + j);
+                column |= 1 << (j * Board.BOARD_WIDTH + i);
+            }
+            masks[next++] = row;
+            masks[next++] = column;
+        }
+
+        int diagonalFromTopLeft = 0;
+        int diagonalFromTopRight = 0;
+        for (int i = 0; i < Board.BOARD_WIDTH; i++) {
+            diagonalFromTopLeft |= 1 << (i * Board.BOARD_WIDTH + i);
+            diagonalFromTopRight |= 1 << (i * Board.BOARD_WIDTH + Board.BOARD_WIDTH - 1 - i);
+        }
+        masks[next++] = diagonalFromTopLeft;
+        masks[next] = diagonalFromTopRight;
+        return masks;
+    }
+
+    private static int[][] winMasksByCell() {
+        int[][] masksByCell = new int[CELLS][];
+
+        for (int index = 0; index < CELLS; index++) {
+            int count = 0;
+            for (int mask : WIN_MASKS) {
+                if ((mask & (1 << index)) != 0) {
+                    count++;
+                }
+            }
+
+            masksByCell[index] = new int[count];
+            int next = 0;
+            for (int mask : WIN_MASKS) {
+                if ((mask & (1 << index)) != 0) {
+                    masksByCell[index][next++] = mask;
+                }
+            }
+        }
+
+        return masksByCell;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+
+        for (int y = 0; y < Board.BOARD_WIDTH; y++) {
+            for (int x = 0; x < Board.BOARD_WIDTH; x++) {
+                int bit = 1 << (y * Board.BOARD_WIDTH + x);
+
+                if ((xCells & bit) != 0) {
+                    sb.append(Board.State.X.name());
+                } else if ((oCells & bit) != 0) {
+                    sb.append(Board.State.O.name());
+                } else {
+                    sb.append("-");
+                }
+                sb.append(" ");
+
+            }
+            if (y != Board.BOARD_WIDTH - 1) {
+                sb.append("\n");
+            }
+        }
+
+        return new String(sb);
+    }
+
+}
@@ -1,34 +1,72 @@
 package tictactoe;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Arrays;
 
 /**
  * Represents the Tic Tac Toe board.
  */
-public class Board {
+public class Board implements GameBoard {
 
     static final int BOARD_WIDTH = 3;
 
     public enum State {BLANK, X, O}
 
+    /**
+     * The value of a digit of the base 3 key, for every index.
+     */
+    private static final int[] POWERS_OF_THREE = powersOfThree();
+
     private State[][] board;
     private State playersTurn;
     private State winner;
-    private HashSet<Integer> movesAvailable;
+    private int movesAvailable;
 
+    /**
+     * The indexes of the moves in the order they were played, the first
+     * moveCount entries are in use.
+     */
+    private final int[] movesPlayed;
     private int moveCount;
+
+    /**
+     * The Zobrist key of the position under every symmetry.
+     */
+    private final long[] zobristKeys;
+    private int base3Key;
     private boolean gameOver;
 
     /**
      * Construct the Tic Tac Toe board.
      */
-    Board() {
+    public Board() {
         board = new State[BOARD_WIDTH][BOARD_WIDTH];
-        movesAvailable = new HashSet<>();
+        movesPlayed = new int[BOARD_WIDTH * BOARD_WIDTH];
+        zobristKeys = new long[Symmetry.COUNT];
         reset();
     }
 
+    /**
+     * Construct a copy of the Tic Tac Toe board.
+     *
+     * @param other the board to copy
+     */
+    private Board(Board other) {
+        board = new State[BOARD_WIDTH][];
+
+        for (int i = 0; i < BOARD_WIDTH; i++) {
+            board[i] = other.board[i].clone();
+        }
+
+        movesPlayed = other.movesPlayed.clone();
+        playersTurn = other.playersTurn;
+        winner = other.winner;
+        movesAvailable = other.movesAvailable;
+        moveCount = other.moveCount;
+        zobristKeys = other.zobristKeys.clone();
+        base3Key = other.base3Key;
+        gameOver = other.gameOver;
+    }
+
     /**
      * Set the cells to be blank and load the available moves (all the moves are
      * available at the start of the game).
@@ -40,11 +78,7 @@ public class Board {
             }
         }
 
-        movesAvailable.clear();
-
-        for (int i = 0; i < BOARD_WIDTH * BOARD_WIDTH; i++) {
-            movesAvailable.add(i);
-        }
+        movesAvailable = (1 << BOARD_WIDTH * BOARD_WIDTH) - 1;
     }
 
     /**
@@ -52,6 +86,8 @@ public class Board {
      */
     void reset() {
         moveCount = 0;
+        Arrays.fill(zobristKeys, 0);
+        base3Key = 0;
         gameOver = false;
         playersTurn = State.X;
         winner = State.BLANK;
@@ -61,9 +97,10 @@ public class Board {
     /**
      * Places an X or an O on the specified index depending on whose turn it is.
      *
-     * @param index the position on the board (example: index 4 is location (0, 1))
+     * @param index the position on the board (example: index 4 is location (1, 1))
      * @return true if the move has not already been played
      */
+    @Override
     public boolean move(int index) {
         return move(index % BOARD_WIDTH, index / BOARD_WIDTH);
     }
@@ -87,8 +124,10 @@ public class Board {
             return false;
         }
 
-        moveCount++;
-        movesAvailable.remove(y * BOARD_WIDTH + x);
+        movesPlayed[moveCount++] = y * BOARD_WIDTH + x;
+        movesAvailable &= ~(1 << (y * BOARD_WIDTH + x));
+        Zobrist.update(zobristKeys, playersTurn, y * BOARD_WIDTH + x);
+        base3Key += base3Digit(playersTurn, y * BOARD_WIDTH + x);
 
         // The game is a draw.
         if (moveCount == BOARD_WIDTH * BOARD_WIDTH) {
@@ -106,11 +145,32 @@ public class Board {
         return true;
     }
 
+    /**
+     * Takes back the last move. No move is played once the game is over, so the
+     * board had no winner before it.
+     */
+    @Override
+    public void undo() {
+        if (moveCount == 0) {
+            throw new IllegalStateException("No move has been played.");
+        }
+
+        int index = movesPlayed[--moveCount];
+        board[index / BOARD_WIDTH][index % BOARD_WIDTH] = State.BLANK;
+        movesAvailable |= 1 << index;
+        playersTurn = (playersTurn == State.X) ? State.O : State.X;
+        Zobrist.update(zobristKeys, playersTurn, index);
+        base3Key -= base3Digit(playersTurn, index);
+        winner = State.BLANK;
+        gameOver = false;
+    }
+
     /**
      * Check to see if the game is over (if there is a winner or a draw).
      *
      * @return true if the game is over
      */
+    @Override
     public boolean isGameOver() {
         return gameOver;
     }
@@ -129,6 +189,7 @@ public class Board {
      *
      * @return the player who's turn it is
      */
+    @Override
     public State getTurn() {
         return playersTurn;
     }
@@ -138,6 +199,7 @@ public class Board {
      *
      * @return the player who won (or Blank if the game is a draw)
      */
+    @Override
     public State getWinner() {
         if (!gameOver) {
             throw new IllegalStateException("TicTacToe is not over yet.");
@@ -146,14 +208,100 @@ public class Board {
     }
 
     /**
-     * Get the indexes of all the positions on the board that are empty.
+     * Get the number of moves played so far.
+     *
+     * @return the number of moves
+     */
+    int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Get a move that was played.
+     *
+     * @param i the number of the move, 0 for the first one
+     * @return the index of the move
+     */
+    int getMovePlayed(int i) {
+        if (i < 0 || i >= moveCount) {
+            throw new IndexOutOfBoundsException("Move " + i + " has not been played.");
+        }
+        return movesPlayed[i];
+    }
+
+    /**
+     * Get the indexes of all the positions on the board that are empty, bit i is
+     * set when index i is empty.
      *
      * @return the empty cells
      */
-    public Set<Integer> getAvailableMoves() {
+    @Override
+    public int getAvailableMoves() {
         return movesAvailable;
     }
 
+    /**
+     * Get the Zobrist hash of the position.
+     *
+     * @return the key of the position
+     */
+    @Override
+    public long getZobristKey() {
+        return zobristKeys[0];
+    }
+
+    /**
+     * Get the Zobrist hash of the position and its rotations and reflections.
+     *
+     * @return the key of the position and its symmetric positions
+     */
+    @Override
+    public long getCanonicalKey() {
+        return Zobrist.canonicalKey(zobristKeys);
+    }
+
+    /**
+     * Get the available moves that give different positions.
+     *
+     * @return the empty cells that give different positions
+     */
+    @Override
+    public int getUniqueMoves() {
+        return Symmetry.uniqueMoves(getAvailableMoves(), zobristKeys);
+    }
+
+    /**
+     * Get the cells as a number in base 3.
+     *
+     * @return the number of the position
+     */
+    @Override
+    public int getBase3Key() {
+        return base3Key;
+    }
+
+    /**
+     * Get the digit of a move in the base 3 key, with its value.
+     *
+     * @param player the player who holds the index
+     * @param index  the position on the board
+     * @return the value the move adds to the key
+     */
+    static int base3Digit(State player, int index) {
+        return (player == State.X ? 1 : 2) * POWERS_OF_THREE[index];
+    }
+
+    private static int[] powersOfThree() {
+        int[] powers = new int[BOARD_WIDTH * BOARD_WIDTH];
+        powers[0] = 1;
+
+        for (int index = 1; index < powers.length; index++) {
+            powers[index] = 3 * powers[index - 1];
+        }
+
+        return powers;
+    }
+
     /**
      * Checks the specified row to see if there is a winner.
      *
@@ -234,19 +382,7 @@ public class Board {
      * @return an identical copy of the board
      */
     public Board getDeepCopy() {
-        Board copiedBoard = new Board();
-
-        for (int i = 0; i < copiedBoard.board.length; i++) {
-            copiedBoard.board[i] = this.board[i].clone();
-        }
-
-        copiedBoard.playersTurn = this.playersTurn;
-        copiedBoard.winner = this.winner;
-        copiedBoard.movesAvailable = new HashSet<>();
-        copiedBoard.movesAvailable.addAll(this.movesAvailable);
-        copiedBoard.moveCount = this.moveCount;
-        copiedBoard.gameOver = this.gameOver;
-        return copiedBoard;
+        return new Board(this);
     }
 
     @Override
@@ -47,7 +47,7 @@ public class Console {
         if (board.getTurn() == Board.State.X) {
             getPlayerMove();
         } else {
-            Algorithms.alphaBetaAdvanced(board);
+            board.move(Algorithms.lookup(board));
         }
     }
 
@@ -0,0 +1,90 @@
+package tictactoe;
+
+/**
+ * A Tic Tac Toe board the AI can search on. Moves are played and taken back in
+ * place, so a search explores every position on one board.
+ */
+public interface GameBoard {
+
+    /**
+     * Places an X or an O on the specified index depending on whose turn it is.
+     *
+     * @param index the position on the board (example: index 4 is location (1, 1))
+     * @return true if the move has not already been played
+     */
+    boolean move(int index);
+
+    /**
+     * Takes back the last move and restores the board as it was before it.
+     */
+    void undo();
+
+    /**
+     * Check to see if the game is over (if there is a winner or a draw).
+     *
+     * @return true if the game is over
+     */
+    boolean isGameOver();
+
+    /**
+     * Check to see who's turn it is.
+     *
+     * @return the player who's turn it is
+     */
+    Board.State getTurn();
+
+    /**
+     * Check to see who won.
+     *
+     * @return the player who won (or Blank if the game is a draw)
+     */
+    Board.State getWinner();
+
+    /**
+     * Get the empty cells as a mask, bit i is set when index i is empty. Iterate
+     * them in ascending order with:
+     * <pre>
+     * for (int moves = board.getAvailableMoves(); moves != 0; moves &amp;= moves - 1) {
+     *     int index = Integer.numberOfTrailingZeros(moves);
+     * }
+     * </pre>
+     *
+     * @return the empty cells
+     */
+    int getAvailableMoves();
+
+    /**
+     * Get the Zobrist hash of the position. Boards with the same cells hold the
+     * same key, whatever the order the moves were played in.
+     *
+     * @return the key of the position
+     */
+    long getZobristKey();
+
+    /**
+     * Get a Zobrist hash that is the same for the position and its rotations and
+     * reflections, which the AI scores the same.
+     *
+     * @return the key of the position and its symmetric positions
+     */
+    long getCanonicalKey();
+
+    /**
+     * Get the available moves without the moves that give the same position as
+     * another one up to a rotation or reflection. The board has to be symmetric
+     * for that, like the blank board where only index 0, 1 and 4 remain.
+     *
+     * @return the empty cells that give different positions
+     */
+    int getUniqueMoves();
+
+    /**
+     * Get the cells as a number in base 3, digit i is 0 when index i is blank,
+     * 1 when it holds an X and 2 when it holds an O. Every position has its own
+     * number, below 3^9 = 19,683 on a 3x3 board.
+     *
+     * @return the number of the position
+     */
+    int getBase3Key();
+
+}
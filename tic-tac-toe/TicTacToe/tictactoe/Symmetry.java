@@ -0,0 +1,86 @@
+package tictactoe;
+
+/**
+ * The 8 symmetries of a square board: the identity, the three rotations and the
+ * four reflections. A symmetry maps every index to the index it moves to, so
+ * two positions that are one another's rotation or reflection are the same for
+ * the AI, they have the same score and their moves the same scores.
+ */
+final class Symmetry {
+
+    static final int COUNT = 8;
+
+    /**
+     * For every symmetry, the index every index moves to. Symmetry 0 is the
+     * identity.
+     */
+    private static final int[][] CELL_MAPS = cellMaps();
+
+    /**
+     * Symmetry cannot be instantiated.
+     */
+    private Symmetry() {
+    }
+
+    /**
+     * Get the index an index moves to.
+     *
+     * @param symmetry the symmetry, 0 to COUNT - 1
+     * @param index    the position on the board
+     * @return the position it moves to
+     */
+    static int cell(int symmetry, int index) {
+        return CELL_MAPS[symmetry][index];
+    }
+
+    /**
+     * Keep one move of every set of moves that give the same position. Two
+     * moves do when a symmetry that leaves the board as it is maps one onto
+     * the other, the move with the lowest index stays.
+     *
+     * @param moves       the available moves as a mask
+     * @param zobristKeys the keys of the board under every symmetry, see
+     *                    {@link Zobrist#update(long[], Board.State, int)}
+     * @return the moves that give different positions
+     */
+    static int uniqueMoves(int moves, long[] zobristKeys) {
+        int unique = moves;
+
+        for (int symmetry = 1; symmetry < COUNT; symmetry++) {
+            if (zobristKeys[symmetry] != zobristKeys[0]) {
+                continue;
+            }
+
+            for (int rest = moves; rest != 0; rest &= rest - 1) {
+                int index = Integer.numberOfTrailingZeros(rest);
+                if (CELL_MAPS[symmetry][index] < index) {
+                    unique &= ~(1 << index);
+                }
+            }
+        }
+
+        return unique;
+    }
+
+    private static int[][] cellMaps() {
+        int w = Board.BOARD_WIDTH - 1;
+        int[][] maps = new int[COUNT][Board.BOARD_WIDTH * Board.BOARD_WIDTH];
+
+        for (int y = 0; y <= w; y++) {
+            for (int x = 0; x <= w; x++) {
+                int index = y * Board.BOARD_WIDTH + x;
+                maps[0][index] = index;
+                maps[1][index] = x * Board.BOARD_WIDTH + w - y;            // rotated a quarter turn
+                maps[2][index] = (w - y) * Board.BOARD_WIDTH + w - x;      // rotated a half turn
+                maps[3][index] = (w - x) * Board.BOARD_WIDTH + y;          // rotated three quarter turns
+                maps[4][index] = y * Board.BOARD_WIDTH + w - x;            // mirrored left to right
+                maps[5][index] = (w - y) * Board.BOARD_WIDTH + x;          // mirrored top to bottom
+                maps[6][index] = x * Board.BOARD_WIDTH + y;                // mirrored on the diagonal from top left
+                maps[7][index] = (w - x) * Board.BOARD_WIDTH + w - y;      // mirrored on the diagonal from top right
+            }
+        }
+
+        return maps;
+    }
+
+}
@@ -248,7 +248,7 @@ public class Window extends JFrame {
             if (!board.isGameOver() && move != -1) {
                 boolean validMove = board.move(move);
                 if (mode == Mode.AI && validMove && !board.isGameOver()) {
-                    Algorithms.alphaBetaAdvanced(board);
+                    board.move(Algorithms.lookup(board));
                 }
                 panel.repaint();
             }
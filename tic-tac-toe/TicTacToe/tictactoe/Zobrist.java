@@ -0,0 +1,80 @@
+package tictactoe;
+
+import java.util.Random;
+
+/**
+ * The random numbers of the Zobrist hash of a board: one per player and index.
+ * The key of a position is the XOR of the numbers of its occupied cells, so a
+ * move or an undo updates it with a single XOR. Whose turn it is follows from
+ * the number of moves played, so it needs no number of its own.
+ * <p>
+ * A board keeps a key per {@link Symmetry}, the key of the position that the
+ * symmetry maps it to. The lowest of them is the same for all 8 positions that
+ * are one another's rotation or reflection.
+ * <p>
+ * The numbers come from a fixed seed, the keys are the same on every run.
+ */
+final class Zobrist {
+
+    private static final long SEED = 0x5DEECE66DL;
+
+    /**
+     * For every symmetry, the number of the index the symmetry maps an index to.
+     */
+    private static final long[][] X_KEYS = new long[Symmetry.COUNT][BitBoard.CELLS];
+    private static final long[][] O_KEYS = new long[Symmetry.COUNT][BitBoard.CELLS];
+
+    static {
+        Random random = new Random(SEED);
+
+        for (int index = 0; index < BitBoard.CELLS; index++) {
+            X_KEYS[0][index] = random.nextLong();
+            O_KEYS[0][index] = random.nextLong();
+        }
+
+        for (int symmetry = 1; symmetry < Symmetry.COUNT; symmetry++) {
+            for (int index = 0; index < BitBoard.CELLS; index++) {
+                X_KEYS[symmetry][index] = X_KEYS[0][Symmetry.cell(symmetry, index)];
+                O_KEYS[symmetry][index] = O_KEYS[0][Symmetry.cell(symmetry, index)];
+            }
+        }
+    }
+
+    /**
+     * Zobrist cannot be instantiated.
+     */
+    private Zobrist() {
+    }
+
+    /**
+     * Add or remove a move from the keys of a board, which is the same XOR.
+     *
+     * @param zobristKeys the keys of the board, one per symmetry
+     * @param player      the player who holds the index
+     * @param index       the position on the board
+     */
+    static void update(long[] zobristKeys, Board.State player, int index) {
+        long[][] keys = player == Board.State.X ? X_KEYS : O_KEYS;
+
+        for (int symmetry = 0; symmetry < Symmetry.COUNT; symmetry++) {
+            zobristKeys[symmetry] ^= keys[symmetry][index];
+        }
+    }
+
+    /**
+     * Get the key of a board that is the same for its rotations and reflections.
+     *
+     * @param zobristKeys the keys of the board, one per symmetry
+     * @return the lowest key
+     */
+    static long canonicalKey(long[] zobristKeys) {
+        long key = zobristKeys[0];
+
+        for (int symmetry = 1; symmetry < Symmetry.COUNT; symmetry++) {
+            key = Math.min(key, zobristKeys[symmetry]);
+        }
+
+        return key;
+    }
+
+}